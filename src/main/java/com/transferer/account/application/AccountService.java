@@ -1,15 +1,23 @@
 package com.transferer.account.application;
 
 import com.transferer.account.domain.Account;
+import com.transferer.account.domain.AccountEntryType;
 import com.transferer.account.domain.AccountId;
 import com.transferer.account.domain.AccountRepository;
 import com.transferer.account.domain.events.*;
+import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.transaction.domain.TransactionId;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import java.math.BigDecimal;
 import java.util.Random;
@@ -62,33 +70,97 @@ public class AccountService {
     }
 
     public Mono<Account> creditAccount(AccountId accountId, TransactionId transactionId, BigDecimal amount) {
-        return getAccount(accountId)
-                .doOnNext(account -> account.credit(amount))
-                .flatMap(account -> {
-                    AccountCreditedEvent event = new AccountCreditedEvent(
-                            account.getId(),
-                            transactionId,
-                            account.getAccountNumber(),
-                            amount,
-                            account.getBalance()
-                    );
-                    return accountRepository.saveAndPublishEvents(account, Collections.singletonList(event));
-                });
+        return applyOnce(accountId, transactionId, AccountEntryType.CREDIT, amount, account -> {
+            account.credit(amount);
+            return new AccountCreditedEvent(
+                    account.getId(),
+                    transactionId,
+                    account.getAccountNumber(),
+                    amount,
+                    account.getBalance()
+            );
+        });
     }
 
     public Mono<Account> debitAccount(AccountId accountId, TransactionId transactionId, BigDecimal amount) {
-        return getAccount(accountId)
-                .doOnNext(account -> account.debit(amount))
-                .flatMap(account -> {
-                    AccountDebitedEvent event = new AccountDebitedEvent(
-                            account.getId(),
+        return applyOnce(accountId, transactionId, AccountEntryType.DEBIT, amount, account -> {
+            account.debit(amount);
+            return new AccountDebitedEvent(
+                    account.getId(),
+                    transactionId,
+                    account.getAccountNumber(),
+                    amount,
+                    account.getBalance()
+            );
+        });
+    }
+
+    /**
+     * Applies a debit or credit for {@code transactionId} at most once. The account row stays
+     * locked until the transaction ends, so a saga step that runs again, even at the same time,
+     * finds the entry recorded by the first run and gets the account back unchanged, without an
+     * event.
+     */
+    private Mono<Account> applyOnce(
+            AccountId accountId,
+            TransactionId transactionId,
+            AccountEntryType type,
+            BigDecimal amount,
+            Function<Account, DomainEvent<?>> entry
+    ) {
+        return accountRepository.findByIdForUpdate(accountId)
+                .switchIfEmpty(Mono.error(new AccountNotFoundException("Account not found with ID: " + accountId)))
+                .flatMap(account -> accountRepository.hasEntry(accountId, transactionId, type)
+                        .flatMap(applied -> applied
+                                ? Mono.just(account)
+                                : Mono.fromCallable(() -> entry.apply(account))
+                                        .flatMap(event -> accountRepository.recordEntry(accountId, transactionId, type, amount)
+                                                .then(accountRepository.saveAndPublishEvents(account, List.of(event))))));
+    }
+
+    /**
+     * Locks the given accounts until the surrounding transaction ends. Rows are locked in ID order,
+     * so two transfers between the same accounts cannot deadlock whichever way they go. Accounts
+     * that do not exist are missing from the result.
+     */
+    public Mono<Map<AccountId, Account>> lockAccounts(Collection<AccountId> accountIds) {
+        return Flux.fromIterable(accountIds)
+                .distinct()
+                .sort(Comparator.comparing(AccountId::getValue))
+                .concatMap(accountRepository::findByIdForUpdate)
+                .collectMap(Account::getId, Function.identity());
+    }
+
+    /**
+     * Moves {@code amount} between two accounts locked by {@link #lockAccounts}, recording the
+     * debit and the credit against {@code transactionId}.
+     */
+    public Mono<Void> transfer(Account sender, Account recipient, TransactionId transactionId, BigDecimal amount) {
+        return Mono.fromRunnable(() -> {
+                    sender.debit(amount);
+                    recipient.credit(amount);
+                })
+                .then(Mono.defer(() -> {
+                    AccountDebitedEvent debitedEvent = new AccountDebitedEvent(
+                            sender.getId(),
                             transactionId,
-                            account.getAccountNumber(),
+                            sender.getAccountNumber(),
                             amount,
-                            account.getBalance()
+                            sender.getBalance()
                     );
-                    return accountRepository.saveAndPublishEvents(account, Collections.singletonList(event));
-                });
+                    AccountCreditedEvent creditedEvent = new AccountCreditedEvent(
+                            recipient.getId(),
+                            transactionId,
+                            recipient.getAccountNumber(),
+                            amount,
+                            recipient.getBalance()
+                    );
+                    return accountRepository.recordEntry(sender.getId(), transactionId, AccountEntryType.DEBIT, amount)
+                            .then(accountRepository.recordEntry(recipient.getId(), transactionId, AccountEntryType.CREDIT, amount))
+                            .then(accountRepository.saveAndPublishEvents(sender, Collections.singletonList(debitedEvent)))
+                            .then(accountRepository.saveAndPublishEvents(recipient, Collections.singletonList(creditedEvent)));
+                }))
+                .then();
     }
 
     public Mono<Account> suspendAccount(AccountId accountId) {
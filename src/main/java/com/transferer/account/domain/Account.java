@@ -91,6 +91,14 @@ public class Account implements Persistable<AccountId> {
         this.updatedAt = LocalDateTime.now();
     }
 
+    public boolean canCredit(BigDecimal amount) {
+        return amount != null && amount.compareTo(BigDecimal.ZERO) > 0 && status == AccountStatus.ACTIVE;
+    }
+
+    public boolean canDebit(BigDecimal amount) {
+        return canCredit(amount) && this.balance.compareTo(amount) >= 0;
+    }
+
     public void suspend() {
         this.status = AccountStatus.SUSPENDED;
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,6 @@
+package com.transferer.account.domain;
+
+public enum AccountEntryType {
+    DEBIT,
+    CREDIT
+}
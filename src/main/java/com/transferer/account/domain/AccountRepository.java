@@ -1,14 +1,21 @@
 package com.transferer.account.domain;
 
 import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.transaction.domain.TransactionId;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface AccountRepository {
     Mono<Account> save(Account account);
     
     Mono<Account> findById(AccountId id);
+
+    /**
+     * Finds an account and locks its row until the surrounding transaction ends.
+     */
+    Mono<Account> findByIdForUpdate(AccountId id);
     
     Mono<Account> findByAccountNumber(String accountNumber);
     
@@ -17,4 +24,11 @@ public interface AccountRepository {
     Mono<Void> deleteById(AccountId id);
 
     Mono<Account> saveAndPublishEvents(Account account, List<DomainEvent<?>> events);
+
+    /**
+     * Whether a {@code type} entry for {@code transactionId} was already applied to the account.
+     */
+    Mono<Boolean> hasEntry(AccountId accountId, TransactionId transactionId, AccountEntryType type);
+
+    Mono<Void> recordEntry(AccountId accountId, TransactionId transactionId, AccountEntryType type, BigDecimal amount);
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import com.transferer.account.domain.events.body.AccountActivatedEventBody;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
 
+import java.time.Instant;
+
 public class AccountActivatedEvent extends DomainEvent<AccountActivatedEventBody> {
     private final AccountId accountId;
 
@@ -16,6 +18,11 @@ public class AccountActivatedEvent extends DomainEvent<AccountActivatedEventBody
         this.accountId = accountId;
     }
 
+    public AccountActivatedEvent(String eventId, Instant occurredAt, AccountActivatedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.ACCOUNT_ACTIVATED, body);
+        this.accountId = body.getAccountId();
+    }
+
     @Override
     public String getAggregateId() {
         return accountId.toString();
@@ -7,6 +7,7 @@ import com.transferer.shared.domain.events.DomainEventType;
 import com.transferer.transaction.domain.TransactionId;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class AccountCreditedEvent extends DomainEvent<AccountCreditEventBody> {
     private final AccountId accountId;
@@ -25,6 +26,11 @@ public class AccountCreditedEvent extends DomainEvent<AccountCreditEventBody> {
         this.accountId = accountId;
     }
 
+    public AccountCreditedEvent(String eventId, Instant occurredAt, AccountCreditEventBody body) {
+        super(eventId, occurredAt, DomainEventType.ACCOUNT_CREDITED, body);
+        this.accountId = body.getAccountId();
+    }
+
     @Override
     public String getAggregateId() {
         return accountId.toString();
@@ -5,6 +5,8 @@ import com.transferer.account.domain.events.body.AccountDeactivatedEventBody;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
 
+import java.time.Instant;
+
 public class AccountDeactivatedEvent extends DomainEvent<AccountDeactivatedEventBody> {
     private final AccountId accountId;
 
@@ -16,6 +18,11 @@ public class AccountDeactivatedEvent extends DomainEvent<AccountDeactivatedEvent
         this.accountId = accountId;
     }
 
+    public AccountDeactivatedEvent(String eventId, Instant occurredAt, AccountDeactivatedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.ACCOUNT_DEACTIVATED, body);
+        this.accountId = body.getAccountId();
+    }
+
     @Override
     public String getAggregateId() {
         return accountId.toString();
@@ -7,6 +7,7 @@ import com.transferer.shared.domain.events.DomainEventType;
 import com.transferer.transaction.domain.TransactionId;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class AccountDebitedEvent extends DomainEvent<AccountDebitedEventBody> {
     private final AccountId accountId;
@@ -25,6 +26,11 @@ public class AccountDebitedEvent extends DomainEvent<AccountDebitedEventBody> {
         this.accountId = accountId;
     }
 
+    public AccountDebitedEvent(String eventId, Instant occurredAt, AccountDebitedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.ACCOUNT_DEBITED, body);
+        this.accountId = body.getAccountId();
+    }
+
     @Override
     public String getAggregateId() {
         return accountId.toString();
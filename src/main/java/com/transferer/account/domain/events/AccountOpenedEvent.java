@@ -6,6 +6,7 @@ import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class AccountOpenedEvent extends DomainEvent<AccountOpenedEventBody> {
     private final AccountId accountId;
@@ -18,6 +19,11 @@ public class AccountOpenedEvent extends DomainEvent<AccountOpenedEventBody> {
         this.accountId = accountId;
     }
 
+    public AccountOpenedEvent(String eventId, Instant occurredAt, AccountOpenedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.ACCOUNT_OPENED, body);
+        this.accountId = body.getAccountId();
+    }
+
     @Override
     public String getAggregateId() {
         return accountId.toString();
@@ -5,6 +5,8 @@ import com.transferer.account.domain.events.body.AccountSuspendedEventBody;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
 
+import java.time.Instant;
+
 public class AccountSuspendedEvent extends DomainEvent<AccountSuspendedEventBody> {
     private final AccountId accountId;
 
@@ -16,6 +18,11 @@ public class AccountSuspendedEvent extends DomainEvent<AccountSuspendedEventBody
         this.accountId = accountId;
     }
 
+    public AccountSuspendedEvent(String eventId, Instant occurredAt, AccountSuspendedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.ACCOUNT_SUSPENDED, body);
+        this.accountId = body.getAccountId();
+    }
+
     @Override
     public String getAggregateId() {
         return accountId.toString();
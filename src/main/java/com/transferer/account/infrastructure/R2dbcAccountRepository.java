@@ -1,20 +1,38 @@
 package com.transferer.account.infrastructure;
 
 import com.transferer.account.domain.Account;
+import com.transferer.account.domain.AccountEntryType;
 import com.transferer.account.domain.AccountId;
 import com.transferer.account.domain.AccountRepository;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.events.TransactionalEventPublisher;
+import com.transferer.transaction.domain.TransactionId;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 interface R2dbcAccountRepositoryJpa extends R2dbcRepository<Account, AccountId> {
     Mono<Account> findByAccountNumber(String accountNumber);
     Mono<Boolean> existsByAccountNumber(String accountNumber);
+
+    @Query("SELECT * FROM accounts WHERE id = :id FOR UPDATE")
+    Mono<Account> findByIdForUpdate(AccountId id);
+
+    @Query("SELECT COUNT(*) FROM account_entries " +
+           "WHERE account_id = :accountId AND transaction_id = :transactionId AND entry_type = :entryType")
+    Mono<Long> countEntries(String accountId, String transactionId, String entryType);
+
+    @Modifying
+    @Query("INSERT INTO account_entries (account_id, transaction_id, entry_type, amount, created_at) " +
+           "VALUES (:accountId, :transactionId, :entryType, :amount, :createdAt)")
+    Mono<Integer> insertEntry(String accountId, String transactionId, String entryType, BigDecimal amount, LocalDateTime createdAt);
 }
 
 @Repository
@@ -49,12 +67,30 @@ public class R2dbcAccountRepository implements AccountRepository {
                 .as(transactionalOperator::transactional);
     }
     
+    @Override
+    public Mono<Boolean> hasEntry(AccountId accountId, TransactionId transactionId, AccountEntryType type) {
+        return jpaRepository.countEntries(accountId.getValue(), transactionId.getValue(), type.name())
+                .map(count -> count > 0);
+    }
+
+    @Override
+    public Mono<Void> recordEntry(AccountId accountId, TransactionId transactionId, AccountEntryType type, BigDecimal amount) {
+        return jpaRepository.insertEntry(accountId.getValue(), transactionId.getValue(), type.name(), amount, LocalDateTime.now())
+                .then();
+    }
+
     @Override
     public Mono<Account> findById(AccountId id) {
         return jpaRepository.findById(id)
                 .doOnNext(Account::markNotNew);
     }
     
+    @Override
+    public Mono<Account> findByIdForUpdate(AccountId id) {
+        return jpaRepository.findByIdForUpdate(id)
+                .doOnNext(Account::markNotNew);
+    }
+    
     @Override
     public Mono<Account> findByAccountNumber(String accountNumber) {
         return jpaRepository.findByAccountNumber(accountNumber)
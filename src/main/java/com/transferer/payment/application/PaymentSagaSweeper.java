@@ -0,0 +1,126 @@
+package com.transferer.payment.application;
+
+import com.transferer.payment.domain.Payment;
+import com.transferer.payment.domain.PaymentId;
+import com.transferer.payment.domain.PaymentRepository;
+import com.transferer.payment.domain.PaymentStatus;
+import com.transferer.payment.domain.PaymentStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resumes payment sagas that stopped moving, e.g. because the instance running a step went down
+ * or its command was lost. Payments still in flight whose step has been idle longer than the
+ * threshold for that step are paged through oldest first and have their step run again, a few at
+ * a time and at a limited rate, so a large backlog after an outage does not swamp the pool.
+ */
+@Component
+public class PaymentSagaSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentSagaSweeper.class);
+
+    private static final List<PaymentStatus> IN_FLIGHT_STATUSES =
+            List.of(PaymentStatus.PENDING, PaymentStatus.PROCESSING, PaymentStatus.COMPENSATING);
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final PaymentId KEYSET_START_ID = PaymentId.of("");
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final Map<PaymentStep, Duration> idleThresholds;
+    private final Duration shortestIdleThreshold;
+    private final int pageSize;
+    private final int concurrency;
+    private final TokenBucket rateLimiter;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public PaymentSagaSweeper(
+            PaymentRepository paymentRepository,
+            PaymentService paymentService,
+            Environment environment,
+            @Value("${payment.saga.sweeper.idle-threshold:600000}") long idleThresholdMillis,
+            @Value("${payment.saga.sweeper.page-size:200}") int pageSize,
+            @Value("${payment.saga.sweeper.concurrency:4}") int concurrency,
+            @Value("${payment.saga.sweeper.rate:20}") double ratePerSecond,
+            @Value("${payment.saga.sweeper.burst:20}") int burst) {
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.idleThresholds = new EnumMap<>(PaymentStep.class);
+        for (PaymentStep step : PaymentStep.values()) {
+            long millis = environment.getProperty(
+                    "payment.saga.sweeper.step-idle-thresholds." + step.name(), Long.class, idleThresholdMillis);
+            idleThresholds.put(step, Duration.ofMillis(millis));
+        }
+        this.shortestIdleThreshold = Collections.min(idleThresholds.values());
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+        this.rateLimiter = new TokenBucket(ratePerSecond, burst);
+    }
+
+    /**
+     * Runs once at startup, picking up sagas left in flight by the previous deployment, and
+     * periodically after that. A sweep still running when the next one is due is left to finish.
+     */
+    @Scheduled(fixedDelayString = "${payment.saga.sweeper.interval:60000}")
+    public void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        sweepOnce(LocalDateTime.now())
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> sweeping.set(false))
+                .subscribe(
+                    resumedCount -> {
+                        if (resumedCount > 0) {
+                            logger.info("Resumed {} idle payment sagas", resumedCount);
+                        }
+                    },
+                    error -> logger.error("Error sweeping idle payment sagas", error)
+                );
+    }
+
+    Mono<Long> sweepOnce(LocalDateTime now) {
+        // The query uses the shortest threshold; longer ones are applied per step as rows come in
+        LocalDateTime updatedBefore = now.minus(shortestIdleThreshold);
+        return Flux.fromIterable(IN_FLIGHT_STATUSES)
+                .concatMap(status -> idlePayments(status, updatedBefore))
+                .filter(payment -> payment.getUpdatedAt().isBefore(now.minus(idleThresholds.get(payment.getCurrentStep()))))
+                .flatMap(payment -> rateLimiter.acquire()
+                        .then(paymentService.resumePayment(payment))
+                        .onErrorResume(error -> {
+                            logger.warn("Error resuming payment {} at step {}", payment.getId(), payment.getCurrentStep(), error);
+                            return Mono.empty();
+                        }), concurrency)
+                .count();
+    }
+
+    private Flux<Payment> idlePayments(PaymentStatus status, LocalDateTime updatedBefore) {
+        return page(status, updatedBefore, KEYSET_START, KEYSET_START_ID)
+                .expand(page -> {
+                    if (page.size() < pageSize) {
+                        return Mono.empty();
+                    }
+                    Payment last = page.get(page.size() - 1);
+                    return page(status, updatedBefore, last.getUpdatedAt(), last.getId());
+                })
+                .flatMapIterable(page -> page);
+    }
+
+    private Mono<List<Payment>> page(PaymentStatus status, LocalDateTime updatedBefore, LocalDateTime afterUpdatedAt, PaymentId afterId) {
+        return paymentRepository.findIdle(status, updatedBefore, afterUpdatedAt, afterId, pageSize)
+                .collectList();
+    }
+}
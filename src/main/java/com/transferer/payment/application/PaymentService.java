@@ -1,6 +1,7 @@
 package com.transferer.payment.application;
 
 import com.transferer.account.application.AccountService;
+import com.transferer.account.domain.Account;
 import com.transferer.account.domain.AccountId;
 import com.transferer.account.domain.events.AccountCreditedEvent;
 import com.transferer.account.domain.events.AccountDebitedEvent;
@@ -9,24 +10,33 @@ import com.transferer.payment.domain.PaymentId;
 import com.transferer.payment.domain.PaymentRepository;
 import com.transferer.payment.domain.PaymentStatus;
 import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.SagaCommandChannel;
 import com.transferer.payment.domain.events.PaymentInitiatedEvent;
 import com.transferer.payment.domain.events.PaymentCompletedEvent;
 import com.transferer.payment.domain.events.PaymentFailedEvent;
 import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
 import com.transferer.shared.events.EventBus;
+import com.transferer.shared.events.EventInbox;
+import com.transferer.shared.events.HandlerOptions;
+import com.transferer.shared.saga.SagaDefinition;
+import com.transferer.shared.saga.SagaEngine;
 import com.transferer.transaction.application.TransactionService;
 import com.transferer.transaction.domain.TransactionId;
 import com.transferer.transaction.domain.events.TransactionCompletedEvent;
-import com.transferer.transaction.domain.events.TransactionCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -35,144 +45,136 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final TransactionService transactionService;
     private final AccountService accountService;
+    private final boolean expressEnabled;
+    private final SagaEngine<PaymentStep, Payment> saga;
 
     public PaymentService(
             PaymentRepository paymentRepository,
             TransactionService transactionService,
             AccountService accountService,
-            EventBus eventBus
+            EventBus eventBus,
+            SagaCommandChannel sagaCommandChannel,
+            EventInbox eventInbox,
+            MeterRegistry meterRegistry,
+            @Value("${payment.saga.max-concurrency:16}") int sagaMaxConcurrency,
+            @Value("${payment.saga.queue-capacity:1024}") int sagaQueueCapacity,
+            @Value("${payment.saga.step-timeout:10000}") long sagaStepTimeoutMillis,
+            @Value("${payment.saga.max-retries:3}") int sagaMaxRetries,
+            @Value("${payment.saga.retry-backoff:100}") long sagaRetryBackoffMillis,
+            @Value("${payment.saga.fused-steps:}") Set<PaymentStep> sagaFusedSteps,
+            @Value("${payment.express.enabled:false}") boolean expressEnabled
     ) {
         this.paymentRepository = paymentRepository;
         this.transactionService = transactionService;
         this.accountService = accountService;
-
-        eventBus.subscribe(
-                PaymentStepAdvancedEvent.class,
-                this::handlePaymentStepAdvancedEvent
-        );
-
-        eventBus.subscribe(
-                TransactionCreatedEvent.class,
-                this::handleTransactionCreatedEvent
-        );
-
-        eventBus.subscribe(
-                AccountDebitedEvent.class,
-                this::handleAccountDebitedEvent
-        );
-
-        eventBus.subscribe(
-                AccountCreditedEvent.class,
-                this::handleAccountCreditedEvent
-        );
-
-        eventBus.subscribe(
-                TransactionCompletedEvent.class,
-                this::handleTransactionCompletedEvent
-        );
-
-        eventBus.subscribe(
-                PaymentFailedEvent.class,
-                this::handlePaymentFailedEvent
+        this.expressEnabled = expressEnabled;
+        this.saga = new SagaEngine<>(sagaDefinition(Duration.ofMillis(sagaStepTimeoutMillis)), sagaFusedSteps, meterRegistry);
+
+        // Each handler gets its own bounded lanes, so saga steps hit the connection pool at a
+        // governed rate instead of all at once. Redelivered events are dropped by the inbox before
+        // a handler reloads the payment for them.
+        HandlerOptions sagaHandlerOptions = new HandlerOptions(
+                sagaMaxConcurrency,
+                sagaQueueCapacity,
+                Duration.ofMillis(sagaStepTimeoutMillis),
+                sagaMaxRetries,
+                Duration.ofMillis(sagaRetryBackoffMillis)
+        ).withInbox(eventInbox, "payment-saga");
+
+        sagaCommandChannel.subscribe(
+                this::handlePaymentStepAdvancedEvent,
+                sagaHandlerOptions
         );
+        saga.subscribe(eventBus, sagaHandlerOptions);
     }
 
-    private void handlePaymentStepAdvancedEvent(PaymentStepAdvancedEvent event) {
-        PaymentId paymentId = event.getBody().getPaymentId();
-        paymentRepository.findById(paymentId)
-                .flatMap(this::processPaymentSaga)
-                .subscribe();
+    /**
+     * Step commands run the step a payment rests at; events from transactions and accounts move it
+     * on from the step that waits for them.
+     */
+    private SagaDefinition<PaymentStep, Payment> sagaDefinition(Duration stepTimeout) {
+        return SagaDefinition.<PaymentStep, Payment>builder("payment", PaymentStep.class, Payment::getCurrentStep)
+                .defaultTimeout(stepTimeout)
+                .step(PaymentStep.INITIATED, this::createTransaction,
+                        (payment, error) -> handlePaymentFailure(payment, payment.getCurrentStep(), error.getMessage()))
+                .fuse(PaymentStep.INITIATED, this::createProcessingTransaction)
+                .step(PaymentStep.TRANSACTION_CREATED, this::startTransactionProcessing,
+                        (payment, error) -> handlePaymentFailure(payment, PaymentStep.TRANSACTION_CREATED, error.getMessage()))
+                .step(PaymentStep.TRANSACTION_PROCESSING, this::debitSenderAccount,
+                        (payment, error) -> handlePaymentFailure(payment, PaymentStep.TRANSACTION_PROCESSING, error.getMessage()))
+                .step(PaymentStep.SENDER_DEBITED, this::creditRecipientAccount,
+                        (payment, error) -> startCompensation(payment, error.getMessage()))
+                .step(PaymentStep.RECIPIENT_CREDITED, this::completePayment,
+                        (payment, error) -> startCompensation(payment, error.getMessage()))
+                .step(PaymentStep.COMPENSATING_SENDER_CREDIT, this::compensateSenderAccount,
+                        (payment, error) -> handlePaymentFailure(payment, payment.getCurrentStep(),
+                                "Compensation failed: " + error.getMessage()))
+                .on(AccountDebitedEvent.class, event -> paymentRepository.findByTransactionId(event.getBody().getTransactionId()))
+                .transition(AccountDebitedEvent.class, PaymentStep.TRANSACTION_PROCESSING,
+                        (payment, event) -> savePaymentWithStepAdvancement(payment, PaymentStep.TRANSACTION_PROCESSING, PaymentStep.SENDER_DEBITED))
+                .on(AccountCreditedEvent.class, event -> paymentRepository.findByTransactionId(event.getBody().getTransactionId()))
+                .transition(AccountCreditedEvent.class, PaymentStep.SENDER_DEBITED,
+                        (payment, event) -> savePaymentWithStepAdvancement(payment, PaymentStep.SENDER_DEBITED, PaymentStep.RECIPIENT_CREDITED))
+                .transition(AccountCreditedEvent.class, PaymentStep.COMPENSATING_SENDER_CREDIT,
+                        (payment, event) -> markPaymentAsCompensated(payment))
+                .on(TransactionCompletedEvent.class, event -> paymentRepository.findByTransactionId(event.getBody().getTransactionId()))
+                .transition(TransactionCompletedEvent.class, PaymentStep.RECIPIENT_CREDITED,
+                        (payment, event) -> markPaymentAsCompleted(payment))
+                .on(PaymentFailedEvent.class, event -> paymentRepository.findById(event.getBody().getPaymentId()))
+                .transition(PaymentFailedEvent.class, PaymentStep.FAILED, this::failTransaction)
+                .build();
     }
 
-    private void handleTransactionCreatedEvent(TransactionCreatedEvent event) {
-        TransactionId transactionId = event.getBody().getTransactionId();
-        paymentRepository.findByTransactionId(transactionId)
-                .flatMap(payment ->
-                        savePaymentWithStepAdvancement(
-                                payment,
-                                PaymentStep.INITIATED,
-                                PaymentStep.TRANSACTION_CREATED
-                        )
-                )
-                .subscribe();
-    }
-
-    private void handleAccountDebitedEvent(AccountDebitedEvent event) {
-        TransactionId transactionId = event.getBody().getTransactionId();
-        paymentRepository.findByTransactionId(transactionId)
-                .flatMap(payment ->
-                        savePaymentWithStepAdvancement(
-                                payment,
-                                PaymentStep.TRANSACTION_PROCESSING,
-                                PaymentStep.SENDER_DEBITED
-                        )
-                )
-                .subscribe();
+    private Mono<Void> handlePaymentStepAdvancedEvent(PaymentStepAdvancedEvent event) {
+        PaymentId paymentId = event.getBody().getPaymentId();
+        return paymentRepository.findById(paymentId)
+                .flatMap(saga::advance)
+                .then();
     }
 
-    private void handleAccountCreditedEvent(AccountCreditedEvent event) {
-        TransactionId transactionId = event.getBody().getTransactionId();
-        paymentRepository.findByTransactionId(transactionId)
-                .flatMap(payment -> {
-                    if (payment.requiresCompensation()) {
-                        PaymentStep currentStep = payment.getCurrentStep();
-                        payment.markAsCompensated();
-                        PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
-                                payment.getId(),
-                                Optional.of(currentStep),
-                                payment.getCurrentStep()
-                        );
-                        return Mono.fromRunnable(payment::markAsCompensated)
-                                .then(
-                                        paymentRepository.saveAndPublishEvents(payment, List.of(stepAdvancedEvent))
-                                );
-                    } else {
-                        return savePaymentWithStepAdvancement(
-                                payment,
-                                PaymentStep.SENDER_DEBITED,
-                                PaymentStep.RECIPIENT_CREDITED
-                        );
-                    }
-                })
-                .subscribe();
+    private Mono<Payment> markPaymentAsCompensated(Payment payment) {
+        PaymentStep currentStep = payment.getCurrentStep();
+        payment.markAsCompensated();
+        PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
+                payment.getId(),
+                Optional.of(currentStep),
+                payment.getCurrentStep()
+        );
+        return paymentRepository.saveAndPublishEvents(payment, List.of(stepAdvancedEvent));
     }
 
-    private void handleTransactionCompletedEvent(TransactionCompletedEvent event) {
-        TransactionId transactionId = event.getBody().getTransactionId();
-        paymentRepository.findByTransactionId(transactionId)
-                .flatMap(payment -> {
-                    PaymentStep currentStep = payment.getCurrentStep();
-                    payment.markAsCompleted();
-                    PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
-                            payment.getId(),
-                            Optional.of(currentStep),
-                            payment.getCurrentStep()
-                    );
-                    PaymentCompletedEvent completedEvent = new PaymentCompletedEvent(
-                            payment.getId(),
-                            payment.getTransactionId(),
-                            payment.getSenderAccountId(),
-                            payment.getRecipientAccountId(),
-                            payment.getAmount(),
-                            payment.getCompletedAt()
-                    );
-                    return paymentRepository.saveAndPublishEvents(
-                            payment,
-                            List.of(stepAdvancedEvent, completedEvent)
-                    );
-                })
-                .subscribe();
+    private Mono<Payment> markPaymentAsCompleted(Payment payment) {
+        PaymentStep currentStep = payment.getCurrentStep();
+        payment.markAsCompleted();
+        PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
+                payment.getId(),
+                Optional.of(currentStep),
+                payment.getCurrentStep()
+        );
+        PaymentCompletedEvent completedEvent = new PaymentCompletedEvent(
+                payment.getId(),
+                payment.getTransactionId(),
+                payment.getSenderAccountId(),
+                payment.getRecipientAccountId(),
+                payment.getAmount(),
+                payment.getCompletedAt()
+        );
+        return paymentRepository.saveAndPublishEvents(
+                payment,
+                List.of(stepAdvancedEvent, completedEvent)
+        );
     }
 
-    private void handlePaymentFailedEvent(PaymentFailedEvent event) {
-        PaymentId paymentId = event.getBody().getPaymentId();
-        paymentRepository.findById(paymentId)
-                .flatMap(savedPayment ->
-                        transactionService.markTransactionAsFailed(
-                                event.getBody().getTransactionId(),
-                                event.getBody().getFailureReason()
-                        ).then(Mono.just(savedPayment))
-                );
+    private Mono<Payment> failTransaction(Payment payment, PaymentFailedEvent event) {
+        // Payments that fail before their transaction is created have nothing to fail
+        if (event.getBody().getTransactionId() == null) {
+            return Mono.just(payment);
+        }
+        return transactionService.markTransactionAsFailed(
+                        event.getBody().getTransactionId(),
+                        event.getBody().getFailureReason()
+                )
+                .thenReturn(payment);
     }
 
     public Mono<Payment> initiatePayment(AccountId senderAccountId, AccountId recipientAccountId, BigDecimal amount, String description) {
@@ -187,37 +189,81 @@ public class PaymentService {
         }
 
         return Mono.fromCallable(() -> new Payment(senderAccountId, recipientAccountId, amount, description))
-                .flatMap(payment -> {
-                    // TODO consider building a way to feed changes and get back the events you need from them
-                    PaymentInitiatedEvent initiatedEvent = new PaymentInitiatedEvent(
-                            payment.getId(),
-                            payment.getSenderAccountId(),
-                            payment.getRecipientAccountId(),
-                            payment.getAmount(),
-                            payment.getDescription()
-                    );
-                    PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
-                            payment.getId(),
-                            Optional.empty(),
-                            payment.getCurrentStep()
-                    );
-                    return paymentRepository.saveAndPublishEvents(
-                            payment,
-                            List.of(initiatedEvent, stepAdvancedEvent)
-                    );
+                .flatMap(payment -> expressEnabled
+                        ? settleExpress(payment).switchIfEmpty(Mono.defer(() -> startSaga(payment)))
+                        : startSaga(payment));
+    }
+
+    private Mono<Payment> startSaga(Payment payment) {
+        // TODO consider building a way to feed changes and get back the events you need from them
+        PaymentInitiatedEvent initiatedEvent = new PaymentInitiatedEvent(
+                payment.getId(),
+                payment.getSenderAccountId(),
+                payment.getRecipientAccountId(),
+                payment.getAmount(),
+                payment.getDescription()
+        );
+        PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
+                payment.getId(),
+                Optional.empty(),
+                payment.getCurrentStep()
+        );
+        return paymentRepository.saveAndPublishEvents(
+                payment,
+                List.of(initiatedEvent, stepAdvancedEvent)
+        );
+    }
+
+    /**
+     * Settles a payment between two of our own accounts within the caller's transaction: both
+     * account rows are locked, then the transaction, both balances, the payment and all of their
+     * events are written together. Completes empty without writing anything when either account
+     * lives elsewhere or would reject the transfer, leaving the payment to the saga, which owns
+     * failing and compensating payments.
+     */
+    private Mono<Payment> settleExpress(Payment payment) {
+        AccountId senderAccountId = payment.getSenderAccountId();
+        AccountId recipientAccountId = payment.getRecipientAccountId();
+        BigDecimal amount = payment.getAmount();
+        return accountService.lockAccounts(List.of(senderAccountId, recipientAccountId))
+                .flatMap(accounts -> {
+                    Account sender = accounts.get(senderAccountId);
+                    Account recipient = accounts.get(recipientAccountId);
+                    if (sender == null || recipient == null || !sender.canDebit(amount) || !recipient.canCredit(amount)) {
+                        return Mono.empty();
+                    }
+                    return transactionService.createCompletedTransaction(
+                                    senderAccountId,
+                                    recipientAccountId,
+                                    amount,
+                                    payment.getDescription()
+                            )
+                            .flatMap(transaction ->
+                                    accountService.transfer(sender, recipient, transaction.getId(), amount)
+                                            .then(Mono.defer(() -> completeExpressPayment(payment, transaction.getId())))
+                            );
                 });
     }
 
-    private Mono<Payment> processPaymentSaga(Payment payment) {
-        return switch (payment.getCurrentStep()) {
-            case INITIATED -> createTransaction(payment);
-            case TRANSACTION_CREATED -> startTransactionProcessing(payment);
-            case TRANSACTION_PROCESSING -> debitSenderAccount(payment);
-            case SENDER_DEBITED -> creditRecipientAccount(payment);
-            case RECIPIENT_CREDITED -> completePayment(payment);
-            case COMPENSATING_SENDER_CREDIT -> compensateSenderAccount(payment);
-            default -> Mono.just(payment);
-        };
+    private Mono<Payment> completeExpressPayment(Payment payment, TransactionId transactionId) {
+        payment.setTransactionId(transactionId);
+        payment.markAsCompleted();
+        PaymentInitiatedEvent initiatedEvent = new PaymentInitiatedEvent(
+                payment.getId(),
+                payment.getSenderAccountId(),
+                payment.getRecipientAccountId(),
+                payment.getAmount(),
+                payment.getDescription()
+        );
+        PaymentCompletedEvent completedEvent = new PaymentCompletedEvent(
+                payment.getId(),
+                payment.getTransactionId(),
+                payment.getSenderAccountId(),
+                payment.getRecipientAccountId(),
+                payment.getAmount(),
+                payment.getCompletedAt()
+        );
+        return paymentRepository.saveAndPublishEvents(payment, List.of(initiatedEvent, completedEvent));
     }
 
     private Mono<Payment> createTransaction(Payment payment) {
@@ -227,14 +273,37 @@ public class PaymentService {
                     payment.getAmount(),
                     payment.getDescription()
                 )
-                .then(Mono.just(payment))
-                .onErrorResume(error ->
-                        handlePaymentFailure(
-                                payment,
-                                payment.getCurrentStep(),
-                                error.getMessage()
-                        )
-                );
+                .flatMap(transaction -> {
+                    payment.setTransactionId(transaction.getId());
+                    PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
+                            payment.getId(),
+                            Optional.of(PaymentStep.INITIATED),
+                            payment.getCurrentStep()
+                    );
+                    return paymentRepository.saveAndPublishEvents(payment, List.of(stepAdvancedEvent));
+                });
+    }
+
+    /**
+     * {@link #createTransaction} and {@link #startTransactionProcessing} in one: the transaction
+     * is created already processing, and the payment goes straight to
+     * {@link PaymentStep#TRANSACTION_PROCESSING}.
+     */
+    private Mono<Payment> createProcessingTransaction(Payment payment) {
+        return transactionService.createProcessingTransaction(
+                    payment.getSenderAccountId(),
+                    payment.getRecipientAccountId(),
+                    payment.getAmount(),
+                    payment.getDescription()
+                )
+                .flatMap(transaction -> {
+                    payment.setTransactionId(transaction.getId());
+                    return savePaymentWithStepAdvancement(
+                            payment,
+                            PaymentStep.INITIATED,
+                            PaymentStep.TRANSACTION_PROCESSING
+                    );
+                });
     }
 
     private Mono<Payment> startTransactionProcessing(Payment payment) {
@@ -245,13 +314,6 @@ public class PaymentService {
                                 PaymentStep.TRANSACTION_CREATED,
                                 PaymentStep.TRANSACTION_PROCESSING
                         )
-                )
-                .onErrorResume(error ->
-                        handlePaymentFailure(
-                                payment,
-                                PaymentStep.TRANSACTION_CREATED,
-                                error.getMessage()
-                        )
                 );
     }
 
@@ -261,43 +323,36 @@ public class PaymentService {
                         payment.getTransactionId(),
                         payment.getAmount()
                 )
-                .then(Mono.just(payment))
-                .onErrorResume(error ->
-                        handlePaymentFailure(
-                                payment,
-                                PaymentStep.TRANSACTION_PROCESSING,
-                                error.getMessage()
-                        )
-                );
+                .then(Mono.just(payment));
     }
 
     private Mono<Payment> creditRecipientAccount(Payment payment) {
         return accountService.creditAccount(payment.getRecipientAccountId(), payment.getTransactionId(), payment.getAmount())
-                .then(Mono.just(payment))
-                .onErrorResume(error -> startCompensation(payment, error.getMessage()));
+                .then(Mono.just(payment));
     }
 
     private Mono<Payment> completePayment(Payment payment) {
         return transactionService.markTransactionAsCompleted(payment.getTransactionId())
-                .then(Mono.just(payment))
-                .onErrorResume(error -> startCompensation(payment, error.getMessage()));
+                .then(Mono.just(payment));
     }
 
     private Mono<Payment> startCompensation(Payment payment, String failureReason) {
         if (!payment.requiresCompensation()) {
             return handlePaymentFailure(payment, payment.getCurrentStep(), failureReason);
         }
+        PaymentStep currentStep = payment.getCurrentStep();
         payment.startCompensation();
-        return paymentRepository.save(payment);
+        PaymentStepAdvancedEvent stepAdvancedEvent = new PaymentStepAdvancedEvent(
+                payment.getId(),
+                Optional.of(currentStep),
+                payment.getCurrentStep()
+        );
+        return paymentRepository.saveAndPublishEvents(payment, List.of(stepAdvancedEvent));
     }
 
     private Mono<Payment> compensateSenderAccount(Payment payment) {
         return accountService.creditAccount(payment.getSenderAccountId(), payment.getTransactionId(), payment.getAmount())
-                .then(Mono.just(payment))
-                .onErrorResume(compensationError ->
-                        handlePaymentFailure(payment, payment.getCurrentStep(),
-                                "Compensation failed: " + compensationError.getMessage())
-                );
+                .then(Mono.just(payment));
     }
 
     private Mono<Payment> handlePaymentFailure(Payment payment, PaymentStep failedAtStep, String failureReason) {
@@ -365,9 +420,18 @@ public class PaymentService {
         return paymentRepository.findByCurrentStep(step);
     }
 
-    public Flux<Payment> retryFailedPayments() {
-        return paymentRepository.findByStatus(PaymentStatus.PENDING)
-                .filter(payment -> payment.getCurrentStep() != PaymentStep.INITIATED)
-                .flatMap(this::processPaymentSaga);
+    /**
+     * Runs the step {@code payment} rests at again, unless the payment changed since it was read,
+     * in which case the saga is moving and completes empty. Steps are safe to run again: account
+     * entries and transaction status changes already made for the payment's transaction are left
+     * as they are. Like steps run from saga commands, each one commits on its own, so a failed step
+     * does not take its failure handling down with it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<Payment> resumePayment(Payment payment) {
+        return paymentRepository.findById(payment.getId())
+                .filter(current -> current.getCurrentStep() == payment.getCurrentStep()
+                        && current.getUpdatedAt().equals(payment.getUpdatedAt()))
+                .flatMap(saga::advance);
     }
 }
\ No newline at end of file
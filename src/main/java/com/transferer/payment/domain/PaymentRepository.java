@@ -6,6 +6,7 @@ import com.transferer.transaction.domain.TransactionId;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PaymentRepository {
@@ -21,6 +22,12 @@ public interface PaymentRepository {
     
     Flux<Payment> findByCurrentStep(PaymentStep step);
 
+    /**
+     * Up to {@code limit} payments in {@code status} last updated before {@code updatedBefore},
+     * oldest first, starting after the {@code (afterUpdatedAt, afterId)} keyset position.
+     */
+    Flux<Payment> findIdle(PaymentStatus status, LocalDateTime updatedBefore, LocalDateTime afterUpdatedAt, PaymentId afterId, int limit);
+
     Mono<Void> deleteById(PaymentId id);
 
     Mono<Payment> saveAndPublishEvents(Payment payment, List<DomainEvent<?>> events);
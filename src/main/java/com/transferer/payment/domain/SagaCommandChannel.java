@@ -0,0 +1,27 @@
+package com.transferer.payment.domain;
+
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.shared.events.HandlerOptions;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Carries the step changes that drive the payment saga. They are internal to the payment module,
+ * so they stay out of the outbox: a payment has at most one outstanding command, and sending a
+ * new one replaces it.
+ */
+public interface SagaCommandChannel {
+
+    /**
+     * Records {@code command} as the latest step of its payment, within the caller's transaction,
+     * and hands it to the subscriber.
+     */
+    Mono<Void> send(PaymentStepAdvancedEvent command);
+
+    /**
+     * Registers the handler of saga commands. A command counts as handled once the {@link Mono}
+     * returned for it completes; commands left unhandled are delivered again.
+     */
+    void subscribe(Function<PaymentStepAdvancedEvent, Mono<Void>> handler, HandlerOptions options);
+}
@@ -8,6 +8,7 @@ import com.transferer.shared.domain.events.DomainEventType;
 import com.transferer.transaction.domain.TransactionId;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 public class PaymentCompletedEvent extends DomainEvent<PaymentCompletedEventBody> {
@@ -28,6 +29,11 @@ public class PaymentCompletedEvent extends DomainEvent<PaymentCompletedEventBody
         this.paymentId = paymentId;
     }
 
+    public PaymentCompletedEvent(String eventId, Instant occurredAt, PaymentCompletedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.PAYMENT_COMPLETED, body);
+        this.paymentId = body.getPaymentId();
+    }
+
     @Override
     public String getAggregateId() {
         return paymentId.toString();
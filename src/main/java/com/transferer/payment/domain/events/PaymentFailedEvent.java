@@ -9,6 +9,7 @@ import com.transferer.shared.domain.events.DomainEventType;
 import com.transferer.transaction.domain.TransactionId;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class PaymentFailedEvent extends DomainEvent<PaymentFailedEventBody> {
     private final PaymentId paymentId;
@@ -29,6 +30,11 @@ public class PaymentFailedEvent extends DomainEvent<PaymentFailedEventBody> {
         this.paymentId = paymentId;
     }
 
+    public PaymentFailedEvent(String eventId, Instant occurredAt, PaymentFailedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.PAYMENT_FAILED, body);
+        this.paymentId = body.getPaymentId();
+    }
+
     @Override
     public String getAggregateId() {
         return paymentId.toString();
@@ -7,6 +7,7 @@ import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class PaymentInitiatedEvent extends DomainEvent<PaymentInitiatedEventBody> {
     private final PaymentId paymentId;
@@ -25,6 +26,11 @@ public class PaymentInitiatedEvent extends DomainEvent<PaymentInitiatedEventBody
         this.paymentId = paymentId;
     }
 
+    public PaymentInitiatedEvent(String eventId, Instant occurredAt, PaymentInitiatedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.PAYMENT_INITIATED, body);
+        this.paymentId = body.getPaymentId();
+    }
+
     @Override
     public String getAggregateId() {
         return paymentId.toString();
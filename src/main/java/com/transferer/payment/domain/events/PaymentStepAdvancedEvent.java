@@ -6,6 +6,7 @@ import com.transferer.payment.domain.events.body.PaymentStepAdvancedEventBody;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public class PaymentStepAdvancedEvent extends DomainEvent<PaymentStepAdvancedEventBody> {
@@ -23,6 +24,11 @@ public class PaymentStepAdvancedEvent extends DomainEvent<PaymentStepAdvancedEve
         this.paymentId = paymentId;
     }
 
+    public PaymentStepAdvancedEvent(String eventId, Instant occurredAt, PaymentStepAdvancedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.PAYMENT_STEP_ADVANCED, body);
+        this.paymentId = body.getPaymentId();
+    }
+
     @Override
     public String getAggregateId() {
         return paymentId.toString();
@@ -6,6 +6,8 @@ import com.transferer.payment.domain.PaymentId;
 import com.transferer.payment.domain.PaymentRepository;
 import com.transferer.payment.domain.PaymentStatus;
 import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.SagaCommandChannel;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.events.TransactionalEventPublisher;
 import com.transferer.transaction.domain.TransactionId;
@@ -16,7 +18,10 @@ import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 interface R2dbcPaymentRepositoryJpa extends R2dbcRepository<Payment, PaymentId> {
     Mono<Payment> findByTransactionId(TransactionId transactionId);
@@ -25,20 +30,28 @@ interface R2dbcPaymentRepositoryJpa extends R2dbcRepository<Payment, PaymentId>
     
     @Query("SELECT * FROM payments WHERE sender_account_id = :accountId OR recipient_account_id = :accountId")
     Flux<Payment> findByAccountId(AccountId accountId);
+
+    @Query("SELECT * FROM payments WHERE status = :status AND updated_at < :updatedBefore " +
+           "AND (updated_at > :afterUpdatedAt OR (updated_at = :afterUpdatedAt AND id > :afterId)) " +
+           "ORDER BY updated_at, id LIMIT :limit")
+    Flux<Payment> findIdle(String status, LocalDateTime updatedBefore, LocalDateTime afterUpdatedAt, PaymentId afterId, int limit);
 }
 
 @Repository
 public class R2dbcPaymentRepository implements PaymentRepository {
     private final R2dbcPaymentRepositoryJpa jpaRepository;
     private final TransactionalEventPublisher eventPublisher;
+    private final SagaCommandChannel sagaCommandChannel;
     private final TransactionalOperator transactionalOperator;
     
     public R2dbcPaymentRepository(
             R2dbcPaymentRepositoryJpa jpaRepository,
             TransactionalEventPublisher eventPublisher,
+            SagaCommandChannel sagaCommandChannel,
             TransactionalOperator transactionalOperator) {
         this.jpaRepository = jpaRepository;
         this.eventPublisher = eventPublisher;
+        this.sagaCommandChannel = sagaCommandChannel;
         this.transactionalOperator = transactionalOperator;
     }
     
@@ -48,13 +61,26 @@ public class R2dbcPaymentRepository implements PaymentRepository {
                 .doOnNext(Payment::markNotNew);
     }
 
+    /**
+     * Step changes go to the saga command channel, where only the last one of the payment is kept;
+     * all other events go to the outbox.
+     */
     @Override
     public Mono<Payment> saveAndPublishEvents(Payment payment, List<DomainEvent<?>> events) {
+        Map<Boolean, List<DomainEvent<?>>> byChannel = events.stream()
+                .collect(Collectors.partitioningBy(PaymentStepAdvancedEvent.class::isInstance));
+        List<DomainEvent<?>> sagaCommands = byChannel.get(true);
+        List<DomainEvent<?>> integrationEvents = byChannel.get(false);
         return jpaRepository.save(payment)
-                .flatMap(savedPayment ->
-                        eventPublisher.publishWithinTransaction(events, transactionalOperator)
-                                .then(Mono.just(savedPayment))
-                )
+                .flatMap(savedPayment -> {
+                    Mono<Void> published = integrationEvents.isEmpty()
+                            ? Mono.empty()
+                            : eventPublisher.publishWithinTransaction(integrationEvents, transactionalOperator);
+                    Mono<Void> commanded = sagaCommands.isEmpty()
+                            ? Mono.empty()
+                            : sagaCommandChannel.send((PaymentStepAdvancedEvent) sagaCommands.get(sagaCommands.size() - 1));
+                    return published.then(commanded).then(Mono.just(savedPayment));
+                })
                 .as(transactionalOperator::transactional);
     }
     
@@ -88,6 +114,12 @@ public class R2dbcPaymentRepository implements PaymentRepository {
                 .doOnNext(Payment::markNotNew);
     }
 
+    @Override
+    public Flux<Payment> findIdle(PaymentStatus status, LocalDateTime updatedBefore, LocalDateTime afterUpdatedAt, PaymentId afterId, int limit) {
+        return jpaRepository.findIdle(status.name(), updatedBefore, afterUpdatedAt, afterId, limit)
+                .doOnNext(Payment::markNotNew);
+    }
+
     @Override
     public Mono<Void> deleteById(PaymentId id) {
         return jpaRepository.deleteById(id);
@@ -0,0 +1,65 @@
+package com.transferer.payment.infrastructure;
+
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.SagaCommandChannel;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.payment.domain.events.body.PaymentStepAdvancedEventBody;
+import com.transferer.shared.events.DispatchOptions;
+import com.transferer.shared.events.EventDispatcher;
+import com.transferer.shared.events.HandlerOptions;
+import com.transferer.shared.outbox.OutboxNotifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Keeps one row per payment in {@code saga_commands} holding its latest step, in place of a
+ * {@link PaymentStepAdvancedEvent} row in the outbox for every step. Sending only writes the row;
+ * {@link SagaCommandRelay} hands it to the subscriber once the sending transaction has committed.
+ */
+@Component
+public class R2dbcSagaCommandChannel implements SagaCommandChannel {
+
+    private final SagaCommandRepository sagaCommandRepository;
+    private final OutboxNotifier outboxNotifier;
+    private final EventDispatcher eventDispatcher;
+
+    public R2dbcSagaCommandChannel(
+            SagaCommandRepository sagaCommandRepository,
+            OutboxNotifier outboxNotifier,
+            MeterRegistry meterRegistry) {
+        this.sagaCommandRepository = sagaCommandRepository;
+        this.outboxNotifier = outboxNotifier;
+        this.eventDispatcher = new EventDispatcher("saga-commands", DispatchOptions.synchronous(), meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> send(PaymentStepAdvancedEvent command) {
+        PaymentStepAdvancedEventBody body = command.getBody();
+        String paymentId = body.getPaymentId().getValue();
+        String step = body.getCurrentStep().name();
+        String previousStep = body.getPreviousStep().map(PaymentStep::name).orElse(null);
+        return sagaCommandRepository.replace(paymentId, command.getEventId(), step, previousStep, command.getOccurredAt())
+                .flatMap(replaced -> replaced > 0
+                        ? Mono.just(replaced)
+                        : sagaCommandRepository.insert(paymentId, command.getEventId(), step, previousStep, command.getOccurredAt()))
+                .then(outboxNotifier.notifyWithinTransaction());
+    }
+
+    @Override
+    public void subscribe(Function<PaymentStepAdvancedEvent, Mono<Void>> handler, HandlerOptions options) {
+        eventDispatcher.subscribe(
+                PaymentStepAdvancedEvent.class,
+                command -> handler.apply(command)
+                        .then(sagaCommandRepository.acknowledge(command.getBody().getPaymentId().getValue(), command.getEventId()))
+                        .then(),
+                options
+        );
+    }
+
+    void deliver(PaymentStepAdvancedEvent command) {
+        eventDispatcher.dispatch(command);
+    }
+}
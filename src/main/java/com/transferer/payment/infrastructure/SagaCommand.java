@@ -0,0 +1,100 @@
+package com.transferer.payment.infrastructure;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Table("saga_commands")
+public class SagaCommand {
+
+    @Id
+    @Column("payment_id")
+    private String paymentId;
+
+    @Column("command_id")
+    private String commandId;
+
+    @Column("step")
+    private String step;
+
+    @Column("previous_step")
+    private String previousStep;
+
+    @Column("issued_at")
+    private Instant issuedAt;
+
+    @Column("handled")
+    private boolean handled;
+
+    @Column("claimed_by")
+    private String claimedBy;
+
+    @Column("claimed_until")
+    private Instant claimedUntil;
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(String paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public String getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(String commandId) {
+        this.commandId = commandId;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    public void setStep(String step) {
+        this.step = step;
+    }
+
+    public String getPreviousStep() {
+        return previousStep;
+    }
+
+    public void setPreviousStep(String previousStep) {
+        this.previousStep = previousStep;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(Instant issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+
+    public boolean isHandled() {
+        return handled;
+    }
+
+    public void setHandled(boolean handled) {
+        this.handled = handled;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Instant getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Instant claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+}
@@ -0,0 +1,139 @@
+package com.transferer.payment.infrastructure;
+
+import com.transferer.payment.domain.PaymentId;
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.payment.domain.events.body.PaymentStepAdvancedEventBody;
+import com.transferer.shared.outbox.OutboxNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Leases unhandled saga commands and hands them to the subscriber of
+ * {@link R2dbcSagaCommandChannel}, woken by the outbox notifier when commands are sent and on a
+ * poll interval otherwise. A command whose lease runs out before it is handled, e.g. because the
+ * instance holding it stopped, is leased and delivered again.
+ */
+@Component
+public class SagaCommandRelay implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(SagaCommandRelay.class);
+
+    private final SagaCommandRepository sagaCommandRepository;
+    private final R2dbcSagaCommandChannel sagaCommandChannel;
+    private final OutboxNotifier outboxNotifier;
+    private final String instanceId;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration leaseDuration;
+    private final Duration retention;
+    private volatile Disposable relay;
+
+    public SagaCommandRelay(
+            SagaCommandRepository sagaCommandRepository,
+            R2dbcSagaCommandChannel sagaCommandChannel,
+            OutboxNotifier outboxNotifier,
+            @Value("${payment.saga.commands.instance-id:${random.uuid}}") String instanceId,
+            @Value("${payment.saga.commands.batch-size:500}") int batchSize,
+            @Value("${payment.saga.commands.poll-interval:1000}") long pollIntervalMillis,
+            @Value("${payment.saga.commands.lease-duration:60000}") long leaseDurationMillis,
+            @Value("${payment.saga.commands.retention-days:7}") int retentionDays) {
+        this.sagaCommandRepository = sagaCommandRepository;
+        this.sagaCommandChannel = sagaCommandChannel;
+        this.outboxNotifier = outboxNotifier;
+        this.instanceId = instanceId;
+        this.batchSize = batchSize;
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+        this.leaseDuration = Duration.ofMillis(leaseDurationMillis);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Override
+    public void start() {
+        relay = Flux.merge(outboxNotifier.signals(), Flux.interval(pollInterval))
+                // Signals arriving while a batch is relayed collapse into one more round
+                .onBackpressureLatest()
+                .concatMap(signal -> relayBatch()
+                        .onErrorResume(error -> {
+                            logger.error("Error relaying saga commands", error);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = relay;
+        relay = null;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return relay != null;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.saga.commands.retention-interval:3600000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(retention);
+        sagaCommandRepository.deleteHandled(cutoff)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                    purgedCount -> {
+                        if (purgedCount > 0) {
+                            logger.info("Purged {} handled saga commands issued before {}", purgedCount, cutoff);
+                        }
+                    },
+                    error -> logger.error("Error purging handled saga commands", error)
+                );
+    }
+
+    Mono<Long> relayBatch() {
+        // Truncated so the lease reads back equal from columns of millisecond precision or better
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Instant leaseUntil = now.plus(leaseDuration);
+        return sagaCommandRepository.claim(instanceId, now, leaseUntil, batchSize)
+                .filter(claimed -> claimed > 0)
+                .flatMapMany(claimed -> sagaCommandRepository.findClaimed(instanceId, leaseUntil))
+                .map(SagaCommandRelay::toCommand)
+                .doOnNext(this::deliver)
+                .count();
+    }
+
+    private void deliver(PaymentStepAdvancedEvent command) {
+        try {
+            sagaCommandChannel.deliver(command);
+        } catch (RejectedExecutionException e) {
+            // Left unhandled, so it is leased again once this lease runs out
+            logger.warn("Saga command handler is saturated; deferring command {} for payment {}",
+                    command.getEventId(), command.getAggregateId());
+        }
+    }
+
+    private static PaymentStepAdvancedEvent toCommand(SagaCommand sagaCommand) {
+        return new PaymentStepAdvancedEvent(
+                sagaCommand.getCommandId(),
+                sagaCommand.getIssuedAt(),
+                new PaymentStepAdvancedEventBody(
+                        PaymentId.of(sagaCommand.getPaymentId()),
+                        Optional.ofNullable(sagaCommand.getPreviousStep()).map(PaymentStep::valueOf),
+                        PaymentStep.valueOf(sagaCommand.getStep())
+                )
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package com.transferer.payment.infrastructure;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface SagaCommandRepository extends R2dbcRepository<SagaCommand, String> {
+
+    /**
+     * Overwrites the command of a payment, whether or not the previous one was handled or is
+     * leased to a relay. Updates nothing if the payment has no command yet.
+     */
+    @Modifying
+    @Query("UPDATE saga_commands SET command_id = :commandId, step = :step, previous_step = :previousStep, " +
+            "issued_at = :issuedAt, handled = FALSE, claimed_by = NULL, claimed_until = NULL WHERE payment_id = :paymentId")
+    Mono<Integer> replace(String paymentId, String commandId, String step, String previousStep, Instant issuedAt);
+
+    @Modifying
+    @Query("INSERT INTO saga_commands (payment_id, command_id, step, previous_step, issued_at, handled) " +
+            "VALUES (:paymentId, :commandId, :step, :previousStep, :issuedAt, FALSE)")
+    Mono<Integer> insert(String paymentId, String commandId, String step, String previousStep, Instant issuedAt);
+
+    /**
+     * Marks a command as handled, unless it has been replaced by a newer one in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE saga_commands SET handled = TRUE, claimed_by = NULL, claimed_until = NULL " +
+            "WHERE payment_id = :paymentId AND command_id = :commandId")
+    Mono<Integer> acknowledge(String paymentId, String commandId);
+
+    /**
+     * Leases up to {@code limit} unhandled commands to {@code owner} until {@code leaseUntil},
+     * skipping commands leased to someone else whose lease has not expired yet.
+     */
+    @Modifying
+    @Query("UPDATE saga_commands SET claimed_by = :owner, claimed_until = :leaseUntil WHERE payment_id IN (" +
+            "SELECT payment_id FROM saga_commands WHERE handled = FALSE " +
+            "AND (claimed_until IS NULL OR claimed_until < :now) " +
+            "ORDER BY issued_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> claim(String owner, Instant now, Instant leaseUntil, int limit);
+
+    @Query("SELECT * FROM saga_commands WHERE claimed_by = :owner AND claimed_until = :leaseUntil AND handled = FALSE " +
+            "ORDER BY issued_at ASC")
+    Flux<SagaCommand> findClaimed(String owner, Instant leaseUntil);
+
+    @Modifying
+    @Query("DELETE FROM saga_commands WHERE handled = TRUE AND issued_at < :cutoff")
+    Mono<Integer> deleteHandled(Instant cutoff);
+}
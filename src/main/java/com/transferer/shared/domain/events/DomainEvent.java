@@ -18,6 +18,13 @@ public abstract class DomainEvent<T extends DomainEventBody> {
         this.body = body;
     }
 
+    protected DomainEvent(String eventId, Instant occurredAt, DomainEventType eventType, T body) {
+        this.eventId = eventId;
+        this.occurredAt = occurredAt;
+        this.eventType = eventType;
+        this.body = body;
+    }
+
     public String getEventId() {
         return eventId;
     }
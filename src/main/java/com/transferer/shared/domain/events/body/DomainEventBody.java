@@ -1,7 +1,4 @@
 package com.transferer.shared.domain.events.body;
 
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-
-@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "@class")
 public class DomainEventBody {
 }
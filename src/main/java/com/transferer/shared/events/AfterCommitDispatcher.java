@@ -0,0 +1,81 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Holds back events published inside a reactive transaction until it commits, so subscribers never
+ * go looking for rows that are not visible to them yet, or wait on locks the publisher still holds.
+ * Events are buffered per transaction, across however many publishes it makes, and handed over in
+ * publish order once it commits; they are dropped if it rolls back. Outside a transaction events
+ * are handed over straight away.
+ */
+public class AfterCommitDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(AfterCommitDispatcher.class);
+
+    private final Consumer<DomainEvent<?>> dispatch;
+
+    public AfterCommitDispatcher(Consumer<DomainEvent<?>> dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    public Mono<Void> dispatchAfterCommit(List<? extends DomainEvent<?>> events) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronizationManager -> buffer(synchronizationManager).addAll(events))
+                .switchIfEmpty(Mono.fromRunnable(() -> dispatchAll(events)))
+                .onErrorResume(NoTransactionException.class, error -> Mono.fromRunnable(() -> dispatchAll(events)))
+                .then();
+    }
+
+    private List<DomainEvent<?>> buffer(TransactionSynchronizationManager synchronizationManager) {
+        TransactionBuffer buffer = (TransactionBuffer) synchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new TransactionBuffer(synchronizationManager);
+            synchronizationManager.bindResource(this, buffer);
+            synchronizationManager.registerSynchronization(buffer);
+        }
+        return buffer.events;
+    }
+
+    private void dispatchAll(List<? extends DomainEvent<?>> events) {
+        for (DomainEvent<?> event : events) {
+            try {
+                dispatch.accept(event);
+            } catch (RuntimeException e) {
+                // The event is committed by now; failing the publisher would only suggest otherwise
+                logger.error("Error dispatching committed event {} of type {}", event.getEventId(), event.getEventType(), e);
+            }
+        }
+    }
+
+    private final class TransactionBuffer implements TransactionSynchronization {
+        private final TransactionSynchronizationManager synchronizationManager;
+        private final List<DomainEvent<?>> events = new ArrayList<>();
+
+        TransactionBuffer(TransactionSynchronizationManager synchronizationManager) {
+            this.synchronizationManager = synchronizationManager;
+        }
+
+        @Override
+        public Mono<Void> afterCompletion(int status) {
+            return Mono.fromRunnable(() -> {
+                synchronizationManager.unbindResourceIfPossible(AfterCommitDispatcher.this);
+                if (status == STATUS_COMMITTED) {
+                    dispatchAll(events);
+                } else if (!events.isEmpty()) {
+                    logger.debug("Discarded {} events of a transaction that did not commit", events.size());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.transferer.shared.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multicasts events to subscribers, each through its own fixed-size ring buffer, so that a slow
+ * subscriber can only ever hold {@code capacity} events in memory. What happens once a buffer is
+ * full is decided per subscriber by its {@link OverflowPolicy}, and every event lost that way is
+ * counted rather than dropped silently. Events emitted while nobody is subscribed are not kept.
+ * <ul>
+ *   <li>{@code eventbus.buffer.occupancy}: events buffered across all subscribers of the sink</li>
+ *   <li>{@code eventbus.events.dropped}: events lost to overflow, by policy</li>
+ * </ul>
+ */
+public class BoundedEventSink<T> {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedEventSink.class);
+
+    private final String name;
+    private final int defaultCapacity;
+    private final OverflowPolicy defaultPolicy;
+    private final Duration blockTimeout;
+    private final CopyOnWriteArrayList<RingSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<OverflowPolicy, Counter> dropped = new EnumMap<>(OverflowPolicy.class);
+
+    public BoundedEventSink(String name, int defaultCapacity, OverflowPolicy defaultPolicy, Duration blockTimeout,
+                            MeterRegistry meterRegistry) {
+        if (defaultCapacity < 1) {
+            throw new IllegalArgumentException("Event sink capacity must be at least 1");
+        }
+        this.name = name;
+        this.defaultCapacity = defaultCapacity;
+        this.defaultPolicy = defaultPolicy;
+        this.blockTimeout = blockTimeout;
+        Gauge.builder("eventbus.buffer.occupancy", this, BoundedEventSink::occupancy)
+                .description("Events buffered for subscribers that have not requested them yet")
+                .tag("sink", name)
+                .register(meterRegistry);
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            dropped.put(policy, Counter.builder("eventbus.events.dropped")
+                    .description("Events lost because a subscriber's buffer was full")
+                    .tag("sink", name)
+                    .tag("policy", policy.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void emit(T event) {
+        for (RingSubscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public Flux<T> asFlux() {
+        return asFlux(defaultCapacity, defaultPolicy);
+    }
+
+    public Flux<T> asFlux(int capacity, OverflowPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event sink capacity must be at least 1");
+        }
+        return Flux.create(sink -> {
+            RingSubscriber subscriber = new RingSubscriber(sink, capacity, policy);
+            subscribers.add(subscriber);
+            sink.onRequest(requested -> subscriber.drain());
+            sink.onDispose(subscriber::detach);
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    int occupancy() {
+        int occupancy = 0;
+        for (RingSubscriber subscriber : subscribers) {
+            occupancy += subscriber.size();
+        }
+        return occupancy;
+    }
+
+    private final class RingSubscriber {
+        private final FluxSink<T> sink;
+        private final Object[] ring;
+        private final OverflowPolicy policy;
+        private final AtomicInteger wip = new AtomicInteger();
+        private int head;
+        private int size;
+        private boolean detached;
+
+        RingSubscriber(FluxSink<T> sink, int capacity, OverflowPolicy policy) {
+            this.sink = sink;
+            this.ring = new Object[capacity];
+            this.policy = policy;
+        }
+
+        void offer(T event) {
+            boolean accepted;
+            synchronized (this) {
+                accepted = !detached && (size < ring.length || makeRoom());
+                if (accepted) {
+                    ring[(head + size) % ring.length] = event;
+                    size++;
+                }
+            }
+            if (accepted) {
+                drain();
+            }
+        }
+
+        /**
+         * Applies the overflow policy to a full buffer and returns whether the incoming event can
+         * now be buffered.
+         */
+        private boolean makeRoom() {
+            switch (policy) {
+                case DROP_OLDEST -> {
+                    poll();
+                    dropped.get(policy).increment();
+                    return true;
+                }
+                case BLOCK_PRODUCER -> {
+                    if (Schedulers.isInNonBlockingThread()) {
+                        dropped.get(policy).increment();
+                        return false;
+                    }
+                    long deadline = System.nanoTime() + blockTimeout.toNanos();
+                    long remaining = blockTimeout.toNanos();
+                    while (size == ring.length && !detached && remaining > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        remaining = deadline - System.nanoTime();
+                    }
+                    if (size < ring.length && !detached) {
+                        return true;
+                    }
+                    dropped.get(policy).increment();
+                    return false;
+                }
+                case DISCONNECT -> {
+                    dropped.get(policy).increment(size + 1);
+                    logger.warn("Disconnecting subscriber of {} after its buffer of {} events overflowed", name, ring.length);
+                    detach();
+                    sink.error(Exceptions.failWithOverflow("Subscriber of " + name + " fell " + ring.length + " events behind"));
+                    return false;
+                }
+                default -> {
+                    dropped.get(policy).increment();
+                    return false;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized T poll() {
+            if (size == 0) {
+                return null;
+            }
+            T event = (T) ring[head];
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+            notifyAll();
+            return event;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void detach() {
+            if (detached) {
+                return;
+            }
+            detached = true;
+            subscribers.remove(this);
+            Arrays.fill(ring, null);
+            size = 0;
+            notifyAll();
+        }
+
+        /**
+         * Hands buffered events downstream as far as it has requested them. Only one thread drains
+         * at a time; offers arriving meanwhile make it loop once more instead of draining
+         * concurrently.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0) {
+                    T event = poll();
+                    if (event == null) {
+                        break;
+                    }
+                    sink.next(event);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.transferer.shared.events;
+
+/**
+ * Where a consumer that has never run before starts reading. Consumers that already have a
+ * position always resume from it.
+ */
+public enum ConsumerStartPosition {
+    /** From the oldest event still retained. */
+    EARLIEST,
+    /** From events published after the consumer is first registered. */
+    LATEST
+}
@@ -0,0 +1,36 @@
+package com.transferer.shared.events;
+
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * How an {@link EventBus} hands events to a subscription's handler.
+ * <ul>
+ *   <li>{@link Mode#SYNCHRONOUS}: on the publishing thread, before the publish completes</li>
+ *   <li>{@link Mode#QUEUED}: through a queue of {@code queueCapacity} events owned by the
+ *   subscription, drained on {@code scheduler}. Events are hashed on their aggregate ID into
+ *   {@code lanes}, each handled strictly in order, so events of one aggregate never overtake each
+ *   other. Publishing into a full queue fails straight away rather than waiting for room, since
+ *   the publisher typically runs on an event loop thread.</li>
+ * </ul>
+ */
+public record DispatchOptions(Mode mode, int queueCapacity, int lanes, Scheduler scheduler) {
+
+    public enum Mode {
+        SYNCHRONOUS,
+        QUEUED
+    }
+
+    public DispatchOptions {
+        if (mode == Mode.QUEUED && (queueCapacity < 1 || lanes < 1)) {
+            throw new IllegalArgumentException("Queued dispatch needs a queue capacity and lanes of at least 1");
+        }
+    }
+
+    public static DispatchOptions synchronous() {
+        return new DispatchOptions(Mode.SYNCHRONOUS, 0, 0, null);
+    }
+
+    public static DispatchOptions queued(int queueCapacity, int lanes, Scheduler scheduler) {
+        return new DispatchOptions(Mode.QUEUED, queueCapacity, lanes, scheduler);
+    }
+}
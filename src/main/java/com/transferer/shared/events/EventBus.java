@@ -2,12 +2,41 @@ package com.transferer.shared.events;
 
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface EventBus extends EventPublisher {
     <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler);
+
+    /**
+     * Like {@link #subscribe(Class, Consumer)}, but dispatching to {@code handler} as set out by
+     * {@code options} rather than the bus default.
+     */
+    <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler, DispatchOptions options);
+
+    /**
+     * Subscribes a reactive handler. The bus subscribes to the {@link Mono} it returns itself,
+     * within the concurrency, timeout and retry limits of {@code options}, so handlers neither
+     * call {@code subscribe()} themselves nor run unbounded.
+     */
+    <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Function<T, Mono<Void>> handler, HandlerOptions options);
     Flux<DomainEvent<?>> eventStream();
     Flux<DomainEvent<?>> eventStream(DomainEventType eventType);
-}
\ No newline at end of file
+
+    /**
+     * Like {@link #eventStream()}, but buffering at most {@code capacity} events for this
+     * subscriber and applying {@code overflowPolicy} once it falls that far behind.
+     */
+    Flux<DomainEvent<?>> eventStream(int capacity, OverflowPolicy overflowPolicy);
+
+    /**
+     * Registers a named consumer that reads every event at its own pace and keeps its own
+     * position, independently of other consumers and subscribers. Disposing the returned handle
+     * stops the consumer; its position is kept for the next registration under the same name.
+     */
+    Disposable consume(String consumerName, ConsumerStartPosition startPosition, EventConsumer consumer);
+}
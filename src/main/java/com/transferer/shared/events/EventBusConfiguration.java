@@ -0,0 +1,24 @@
+package com.transferer.shared.events;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class EventBusConfiguration {
+
+    /**
+     * Dispatch options for subscriptions that do not ask for their own.
+     */
+    @Bean
+    public DispatchOptions dispatchOptions(
+            @Value("${eventbus.dispatch.mode:synchronous}") DispatchOptions.Mode mode,
+            @Value("${eventbus.dispatch.queue-capacity:1024}") int queueCapacity,
+            @Value("${eventbus.dispatch.lanes:4}") int lanes) {
+        return switch (mode) {
+            case SYNCHRONOUS -> DispatchOptions.synchronous();
+            case QUEUED -> DispatchOptions.queued(queueCapacity, lanes, Schedulers.boundedElastic());
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Handles events for a named consumer registered with {@link EventBus#consume}, one batch at a
+ * time. The consumer's position only moves past a batch once the returned {@link Mono} completes;
+ * if it fails, the same batch is delivered again, so handlers must be idempotent.
+ */
+@FunctionalInterface
+public interface EventConsumer {
+    Mono<Void> consume(List<DomainEvent<?>> events);
+}
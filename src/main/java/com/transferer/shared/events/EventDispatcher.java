@@ -0,0 +1,317 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Delivers published events to the class-based subscriptions of an {@link EventBus}, each
+ * according to its {@link DispatchOptions} or, for reactive handlers, its {@link HandlerOptions}.
+ * Queued and reactive subscriptions report their depth as {@code eventbus.dispatch.queue.depth}
+ * and events they had no room for as {@code eventbus.dispatch.rejected}; reactive handlers that
+ * still fail after their retries are counted in {@code eventbus.handler.failed}. All are tagged
+ * with the bus and the subscribed event class.
+ */
+public class EventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(EventDispatcher.class);
+    // Events a lane handles before yielding its worker to other lanes
+    private static final int LANE_DRAIN_LIMIT = 256;
+
+    private final String busName;
+    private final MeterRegistry meterRegistry;
+    private final DispatchOptions defaultOptions;
+    private volatile DispatchTable dispatchTable = new DispatchTable(new Subscription[0]);
+
+    public EventDispatcher(String busName, DispatchOptions defaultOptions, MeterRegistry meterRegistry) {
+        this.busName = busName;
+        this.defaultOptions = defaultOptions;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler) {
+        subscribe(eventClass, handler, defaultOptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler, DispatchOptions options) {
+        // The dispatch table only routes events to subscriptions whose class they are an instance of
+        Consumer<DomainEvent<?>> untypedHandler = (Consumer<DomainEvent<?>>) (Consumer<?>) handler;
+        addSubscription(options.mode() == DispatchOptions.Mode.QUEUED
+                ? new QueuedSubscription(eventClass, untypedHandler, options)
+                : new SynchronousSubscription(eventClass, untypedHandler));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Function<T, Mono<Void>> handler, HandlerOptions options) {
+        Function<DomainEvent<?>, Mono<Void>> untypedHandler = (Function<DomainEvent<?>, Mono<Void>>) (Function<?, ?>) handler;
+        addSubscription(new ReactiveSubscription(eventClass, untypedHandler, options));
+    }
+
+    /**
+     * Runs or enqueues the event for every subscription to its class or one of its supertypes.
+     * Throws a {@link RejectedExecutionException} if a queued subscription has no room for it, so
+     * that the publisher can retry; subscriptions that did take the event will see it again.
+     */
+    public void dispatch(DomainEvent<?> event) {
+        for (Subscription subscription : dispatchTable.route(event)) {
+            subscription.deliver(event);
+        }
+    }
+
+    private synchronized void addSubscription(Subscription subscription) {
+        Subscription[] current = dispatchTable.subscriptions;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        dispatchTable = new DispatchTable(updated);
+    }
+
+    private interface Subscription {
+        Class<?> eventClass();
+
+        void deliver(DomainEvent<?> event);
+    }
+
+    /**
+     * An immutable snapshot of the subscriptions, replaced as a whole whenever one is added, with
+     * the subscriptions matching each {@link DomainEventType} resolved across the type hierarchy
+     * into an array. Resolution happens on the first event of a type, since the event class behind
+     * a type is only known once one is published, and is redone only if a different class shows
+     * up for the same type.
+     */
+    private static final class DispatchTable {
+        private static final DomainEventType[] EVENT_TYPES = DomainEventType.values();
+
+        private final Subscription[] subscriptions;
+        private final AtomicReferenceArray<Route> routes = new AtomicReferenceArray<>(EVENT_TYPES.length);
+
+        DispatchTable(Subscription[] subscriptions) {
+            this.subscriptions = subscriptions;
+        }
+
+        Subscription[] route(DomainEvent<?> event) {
+            Class<?> eventClass = event.getClass();
+            int index = event.getEventType().ordinal();
+            Route route = routes.get(index);
+            if (route == null || route.eventClass != eventClass) {
+                route = new Route(eventClass, resolve(eventClass));
+                routes.set(index, route);
+            }
+            return route.subscriptions;
+        }
+
+        private Subscription[] resolve(Class<?> eventClass) {
+            return Arrays.stream(subscriptions)
+                    .filter(subscription -> subscription.eventClass().isAssignableFrom(eventClass))
+                    .toArray(Subscription[]::new);
+        }
+
+        private record Route(Class<?> eventClass, Subscription[] subscriptions) {
+        }
+    }
+
+    private static int laneOf(DomainEvent<?> event, int lanes) {
+        return Math.floorMod(String.valueOf(event.getAggregateId()).hashCode(), lanes);
+    }
+
+    private <S> void registerQueueDepth(Class<?> eventClass, S subscription, ToDoubleFunction<S> depth) {
+        Gauge.builder("eventbus.dispatch.queue.depth", subscription, depth)
+                .description("Events waiting in the dispatch queue of a subscription")
+                .tag("bus", busName)
+                .tag("event", eventClass.getSimpleName())
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(Class<?> eventClass) {
+        return Counter.builder("eventbus.dispatch.rejected")
+                .description("Events a subscription's dispatch queue had no room for")
+                .tag("bus", busName)
+                .tag("event", eventClass.getSimpleName())
+                .register(meterRegistry);
+    }
+
+    private static void handle(Class<?> eventClass, Consumer<DomainEvent<?>> handler, DomainEvent<?> event) {
+        try {
+            handler.accept(event);
+        } catch (Exception e) {
+            logger.error("Error in event handler for class {}: {}", eventClass.getSimpleName(), e.getMessage(), e);
+        }
+    }
+
+    private record SynchronousSubscription(Class<?> eventClass, Consumer<DomainEvent<?>> handler) implements Subscription {
+        @Override
+        public void deliver(DomainEvent<?> event) {
+            handle(eventClass, handler, event);
+        }
+    }
+
+    private final class QueuedSubscription implements Subscription {
+        private final Class<?> eventClass;
+        private final Consumer<DomainEvent<?>> handler;
+        private final DispatchOptions options;
+        private final Lane[] lanes;
+        private final Counter rejected;
+
+        QueuedSubscription(Class<?> eventClass, Consumer<DomainEvent<?>> handler, DispatchOptions options) {
+            this.eventClass = eventClass;
+            this.handler = handler;
+            this.options = options;
+            this.lanes = new Lane[options.lanes()];
+            int laneCapacity = Math.max(1, (options.queueCapacity() + options.lanes() - 1) / options.lanes());
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new Lane(laneCapacity);
+            }
+            registerQueueDepth(eventClass, this, QueuedSubscription::depth);
+            this.rejected = rejectedCounter(eventClass);
+        }
+
+        @Override
+        public Class<?> eventClass() {
+            return eventClass;
+        }
+
+        @Override
+        public void deliver(DomainEvent<?> event) {
+            Lane lane = lanes[laneOf(event, lanes.length)];
+            // Never waits for room: dispatch runs on the publisher's thread, often an event loop
+            if (!lane.queue.offer(event)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Dispatch queue for " + eventClass.getSimpleName() + " is full");
+            }
+            lane.schedule();
+        }
+
+        private double depth() {
+            int depth = 0;
+            for (Lane lane : lanes) {
+                depth += lane.queue.size();
+            }
+            return depth;
+        }
+
+        /**
+         * A queue drained by at most one worker at a time, which keeps its events in order while
+         * lanes run in parallel on the subscription's scheduler.
+         */
+        private final class Lane {
+            private final ArrayBlockingQueue<DomainEvent<?>> queue;
+            private final AtomicInteger wip = new AtomicInteger();
+
+            Lane(int capacity) {
+                this.queue = new ArrayBlockingQueue<>(capacity);
+            }
+
+            void schedule() {
+                if (wip.getAndIncrement() == 0) {
+                    options.scheduler().schedule(this::drain);
+                }
+            }
+
+            private void drain() {
+                int missed = 1;
+                do {
+                    for (int handled = 0; handled < LANE_DRAIN_LIMIT; handled++) {
+                        DomainEvent<?> event = queue.poll();
+                        if (event == null) {
+                            break;
+                        }
+                        handle(eventClass, handler, event);
+                    }
+                    if (!queue.isEmpty()) {
+                        // Yield to other lanes and come back for the rest
+                        options.scheduler().schedule(this::drain);
+                        return;
+                    }
+                    missed = wip.addAndGet(-missed);
+                } while (missed != 0);
+            }
+        }
+    }
+
+    /**
+     * Feeds events through a bounded queue into a pipeline that subscribes to the handler's
+     * {@link Mono} itself: one lane per unit of concurrency, each handling its events one at a
+     * time and in order, with a timeout and retries per event.
+     */
+    private final class ReactiveSubscription implements Subscription {
+        private final Class<?> eventClass;
+        private final Function<DomainEvent<?>, Mono<Void>> handler;
+        private final HandlerOptions options;
+        private final Sinks.Many<DomainEvent<?>> queue;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Counter rejected;
+        private final Counter failed;
+
+        ReactiveSubscription(Class<?> eventClass, Function<DomainEvent<?>, Mono<Void>> handler, HandlerOptions options) {
+            this.eventClass = eventClass;
+            this.handler = handler;
+            this.options = options;
+            this.queue = Sinks.many().unicast().onBackpressureBuffer(Queues.<DomainEvent<?>>get(options.queueCapacity()).get());
+            registerQueueDepth(eventClass, pending, AtomicInteger::get);
+            this.rejected = rejectedCounter(eventClass);
+            this.failed = Counter.builder("eventbus.handler.failed")
+                    .description("Events a reactive handler failed on after exhausting its retries")
+                    .tag("bus", busName)
+                    .tag("event", eventClass.getSimpleName())
+                    .register(meterRegistry);
+            queue.asFlux()
+                    // Keeps handler assembly and the drain loop off the publishing thread
+                    .publishOn(Schedulers.parallel())
+                    .groupBy(event -> laneOf(event, options.maxConcurrency()))
+                    .flatMap(lane -> lane.concatMap(this::handle), options.maxConcurrency())
+                    .subscribe();
+        }
+
+        @Override
+        public Class<?> eventClass() {
+            return eventClass;
+        }
+
+        @Override
+        public void deliver(DomainEvent<?> event) {
+            Sinks.EmitResult result;
+            synchronized (this) {
+                result = queue.tryEmitNext(event);
+            }
+            if (result.isFailure()) {
+                rejected.increment();
+                throw new RejectedExecutionException("Handler queue for " + eventClass.getSimpleName() + " is full (" + result + ")");
+            }
+            pending.incrementAndGet();
+        }
+
+        private Mono<Void> handle(DomainEvent<?> event) {
+            pending.decrementAndGet();
+            Mono<Void> handling = Mono.defer(() -> handler.apply(event))
+                    .timeout(options.timeout())
+                    .retryWhen(Retry.backoff(options.maxRetries(), options.retryBackoff()));
+            if (options.inbox() != null) {
+                handling = options.inbox().processOnce(options.inboxConsumer(), event, handling);
+            }
+            return handling
+                    .onErrorResume(error -> {
+                        failed.increment();
+                        logger.error("Error in event handler for class {} on event {}: {}",
+                                eventClass.getSimpleName(), event.getEventId(), error.getMessage(), error);
+                        return Mono.empty();
+                    });
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Remembers which events each consumer has handled, so that events delivered more than once are
+ * only handled once. Handlers opt in through {@link HandlerOptions#withInbox(EventInbox, String)}.
+ */
+public interface EventInbox {
+
+    /**
+     * Subscribes to {@code handling} unless {@code consumer} has already handled {@code event}, and
+     * records the event as handled once it completes. A failed handling is not recorded, so the
+     * event is handled again when it is redelivered.
+     */
+    Mono<Void> processOnce(String consumer, DomainEvent<?> event, Mono<Void> handling);
+}
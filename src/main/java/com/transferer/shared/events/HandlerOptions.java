@@ -0,0 +1,50 @@
+package com.transferer.shared.events;
+
+import java.time.Duration;
+
+/**
+ * Limits for a reactive subscription registered with
+ * {@link EventBus#subscribe(Class, java.util.function.Function, HandlerOptions)}.
+ * <ul>
+ *   <li>{@code maxConcurrency}: handler invocations in flight at once. Events are hashed on their
+ *   aggregate ID into that many lanes, so events of one aggregate are still handled in order.</li>
+ *   <li>{@code queueCapacity}: events waiting for a free lane before publishers are refused.</li>
+ *   <li>{@code timeout}: how long one invocation may take before it counts as failed.</li>
+ *   <li>{@code maxRetries} and {@code retryBackoff}: retries of a failed invocation, with
+ *   exponential backoff, before the event is logged and given up on.</li>
+ *   <li>{@code inbox} and {@code inboxConsumer}: if set, events the consumer has already handled
+ *   are skipped, see {@link #withInbox(EventInbox, String)}.</li>
+ * </ul>
+ */
+public record HandlerOptions(int maxConcurrency, int queueCapacity, Duration timeout, int maxRetries, Duration retryBackoff,
+                             EventInbox inbox, String inboxConsumer) {
+
+    public HandlerOptions {
+        if (maxConcurrency < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Handler concurrency and queue capacity must be at least 1");
+        }
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Handler retries cannot be negative");
+        }
+        if (inbox != null && inboxConsumer == null) {
+            throw new IllegalArgumentException("An inbox needs the name of the consumer it deduplicates for");
+        }
+    }
+
+    public HandlerOptions(int maxConcurrency, int queueCapacity, Duration timeout, int maxRetries, Duration retryBackoff) {
+        this(maxConcurrency, queueCapacity, timeout, maxRetries, retryBackoff, null, null);
+    }
+
+    /**
+     * These options, with events checked against {@code inbox} under the name {@code consumer}
+     * before they reach the handler. Handlers that must each see every event need their own
+     * consumer name.
+     */
+    public HandlerOptions withInbox(EventInbox inbox, String consumer) {
+        return new HandlerOptions(maxConcurrency, queueCapacity, timeout, maxRetries, retryBackoff, inbox, consumer);
+    }
+
+    public static HandlerOptions defaults() {
+        return new HandlerOptions(16, 1024, Duration.ofSeconds(10), 3, Duration.ofMillis(100));
+    }
+}
@@ -2,30 +2,50 @@ package com.transferer.shared.events;
 
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.time.Duration;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Component
 @ConditionalOnProperty(name = "eventbus.enabled", havingValue = "true", matchIfMissing = false)
 public class InMemoryEventBus implements EventBus {
     
     private static final Logger logger = LoggerFactory.getLogger(InMemoryEventBus.class);
+    private static final int CONSUMER_BATCH_SIZE = 100;
+    private static final Duration CONSUMER_BATCH_WINDOW = Duration.ofMillis(100);
+    private static final int DEFAULT_SINK_CAPACITY = 1024;
+    private static final Duration DEFAULT_SINK_BLOCK_TIMEOUT = Duration.ofMillis(100);
     
-    private final Sinks.Many<DomainEvent<?>> eventSink;
-    private final ConcurrentHashMap<Class<? extends DomainEvent<?>>, CopyOnWriteArrayList<Consumer<DomainEvent<?>>>> subscribers;
+    private final BoundedEventSink<DomainEvent<?>> eventSink;
+    private final EventDispatcher eventDispatcher;
     
     public InMemoryEventBus() {
-        this.eventSink = Sinks.many().multicast().onBackpressureBuffer();
-        this.subscribers = new ConcurrentHashMap<>();
+        this(Metrics.globalRegistry, DEFAULT_SINK_CAPACITY, OverflowPolicy.DROP_OLDEST, DEFAULT_SINK_BLOCK_TIMEOUT.toMillis(),
+                DispatchOptions.synchronous());
+    }
+
+    @Autowired
+    public InMemoryEventBus(
+            MeterRegistry meterRegistry,
+            @Value("${eventbus.sink.capacity:1024}") int sinkCapacity,
+            @Value("${eventbus.sink.overflow-policy:drop-oldest}") OverflowPolicy overflowPolicy,
+            @Value("${eventbus.sink.block-timeout:100}") long blockTimeoutMillis,
+            DispatchOptions dispatchOptions) {
+        this.eventSink = new BoundedEventSink<>("in-memory", sinkCapacity, overflowPolicy,
+                Duration.ofMillis(blockTimeoutMillis), meterRegistry);
+        this.eventDispatcher = new EventDispatcher("in-memory", dispatchOptions, meterRegistry);
     }
     
     @Override
@@ -34,34 +54,30 @@ public class InMemoryEventBus implements EventBus {
             logger.info("Publishing event: {} with ID: {}", event.getEventType(), event.getEventId());
 
             // Emit to reactive stream
-            eventSink.tryEmitNext(event);
+            eventSink.emit(event);
 
             // Notify class-based subscribers
-            CopyOnWriteArrayList<Consumer<DomainEvent<?>>> classHandlers = subscribers.get(event.getClass());
-            if (classHandlers != null) {
-                classHandlers.forEach(handler -> {
-                    try {
-                        handler.accept(event);
-                    } catch (Exception e) {
-                        logger.error("Error in event handler for class {}: {}", event.getClass().getSimpleName(), e.getMessage(), e);
-                    }
-                });
-            }
+            eventDispatcher.dispatch(event);
         });
     }
 
     @Override
     public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler) {
-        subscribers.computeIfAbsent(
-                eventClass,
-                k -> new CopyOnWriteArrayList<>()
-        ).add(event -> {
-            if (eventClass.isInstance(event)) {
-                handler.accept(eventClass.cast(event));
-            }
-        });
+        eventDispatcher.subscribe(eventClass, handler);
         logger.debug("Subscribed handler to event class: {}", eventClass.getSimpleName());
     }
+
+    @Override
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler, DispatchOptions options) {
+        eventDispatcher.subscribe(eventClass, handler, options);
+        logger.debug("Subscribed {} handler to event class: {}", options.mode(), eventClass.getSimpleName());
+    }
+
+    @Override
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Function<T, Mono<Void>> handler, HandlerOptions options) {
+        eventDispatcher.subscribe(eventClass, handler, options);
+        logger.debug("Subscribed reactive handler to event class: {} with {}", eventClass.getSimpleName(), options);
+    }
     
     @Override
     public Flux<DomainEvent<?>> eventStream() {
@@ -72,4 +88,25 @@ public class InMemoryEventBus implements EventBus {
     public Flux<DomainEvent<?>> eventStream(DomainEventType eventType) {
         return eventSink.asFlux().filter(event -> event.getEventType().equals(eventType));
     }
+
+    @Override
+    public Flux<DomainEvent<?>> eventStream(int capacity, OverflowPolicy overflowPolicy) {
+        return eventSink.asFlux(capacity, overflowPolicy);
+    }
+
+    /**
+     * Nothing is stored, so consumers only see events published while they are registered,
+     * whatever their start position, and batches that fail are logged and dropped.
+     */
+    @Override
+    public Disposable consume(String consumerName, ConsumerStartPosition startPosition, EventConsumer consumer) {
+        return eventSink.asFlux()
+                .bufferTimeout(CONSUMER_BATCH_SIZE, CONSUMER_BATCH_WINDOW)
+                .concatMap(events -> consumer.consume(events)
+                        .onErrorResume(error -> {
+                            logger.error("Consumer {} failed to handle {} events", consumerName, events.size(), error);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
 }
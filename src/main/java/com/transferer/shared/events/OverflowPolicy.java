@@ -0,0 +1,20 @@
+package com.transferer.shared.events;
+
+/**
+ * What a {@link BoundedEventSink} does with an event for a subscriber whose buffer is full.
+ */
+public enum OverflowPolicy {
+    /** Evict the oldest buffered event to make room. */
+    DROP_OLDEST,
+    /** Discard the incoming event. */
+    DROP_NEWEST,
+    /**
+     * Make the publisher wait for room, up to the sink's block timeout, then discard the event.
+     * The wait parks the emitting thread, so this policy must not be used where events are emitted
+     * on an event loop, which includes the buses' after-commit dispatch on R2DBC and Netty threads.
+     * On threads Reactor marks as non-blocking it does not wait and discards the event right away.
+     */
+    BLOCK_PRODUCER,
+    /** Terminate the subscriber with an overflow error and discard what it had buffered. */
+    DISCONNECT
+}
@@ -1,6 +1,7 @@
 package com.transferer.shared.exception;
 
 import com.transferer.account.application.AccountNotFoundException;
+import com.transferer.shared.outbox.OutboxDeadLetterNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -26,6 +27,17 @@ public class GlobalExceptionHandler {
         return Mono.just(errorResponse);
     }
 
+    @ExceptionHandler(OutboxDeadLetterNotFoundException.class)
+    public Mono<ErrorResponse> handleOutboxDeadLetterNotFoundException(OutboxDeadLetterNotFoundException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "Dead letter not found",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return Mono.just(errorResponse);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public Mono<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponse errorResponse = new ErrorResponse(
@@ -0,0 +1,148 @@
+package com.transferer.shared.inbox;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.events.EventInbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps handled events in the {@code processed_events} table, fronted by an LRU cache of recently
+ * handled events so that the redeliveries seen in practice, which follow shortly after the
+ * original, are skipped without a query.
+ *
+ * <p>An event is recorded after its handling completes rather than in the same transaction, so a
+ * crash in between still leads to the event being handled again. Two copies of an event are never
+ * handled concurrently: they share an aggregate ID, and handlers run events of one aggregate in
+ * order.
+ */
+@Component
+public class R2dbcEventInbox implements EventInbox {
+    private static final Logger logger = LoggerFactory.getLogger(R2dbcEventInbox.class);
+
+    private final DatabaseClient databaseClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<InboxKey, Boolean> recentlyProcessed;
+    private final Duration retention;
+
+    public R2dbcEventInbox(
+            DatabaseClient databaseClient,
+            MeterRegistry meterRegistry,
+            @Value("${inbox.cache-size:10000}") int cacheSize,
+            @Value("${inbox.retention.days:7}") int retentionDays) {
+        this.databaseClient = databaseClient;
+        this.meterRegistry = meterRegistry;
+        this.recentlyProcessed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<InboxKey, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Override
+    public Mono<Void> processOnce(String consumer, DomainEvent<?> event, Mono<Void> handling) {
+        InboxKey key = new InboxKey(consumer, event.getEventId());
+        if (isRecentlyProcessed(key)) {
+            skipped(consumer, "cache");
+            return Mono.empty();
+        }
+        return isProcessed(key)
+                .flatMap(processed -> {
+                    if (processed) {
+                        remember(key);
+                        skipped(consumer, "store");
+                        return Mono.empty();
+                    }
+                    return handling.then(markProcessed(key));
+                });
+    }
+
+    /**
+     * Deletes records of events handled longer ago than the outbox keeps events, after which they
+     * can no longer be redelivered.
+     */
+    @Scheduled(fixedDelayString = "${inbox.retention.interval:3600000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(retention);
+        purgeProcessedBefore(cutoff)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                    purgedCount -> {
+                        if (purgedCount > 0) {
+                            logger.info("Purged {} inbox records of events processed before {}", purgedCount, cutoff);
+                        }
+                    },
+                    error -> logger.error("Error purging inbox records", error)
+                );
+    }
+
+    Mono<Long> purgeProcessedBefore(Instant cutoff) {
+        return databaseClient.sql("DELETE FROM processed_events WHERE processed_at < :cutoff")
+                .bind("cutoff", cutoff)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Boolean> isProcessed(InboxKey key) {
+        return databaseClient.sql("SELECT 1 FROM processed_events WHERE consumer = :consumer AND event_id = :eventId")
+                .bind("consumer", key.consumer())
+                .bind("eventId", key.eventId())
+                .fetch()
+                .first()
+                .hasElement();
+    }
+
+    private Mono<Void> markProcessed(InboxKey key) {
+        return databaseClient.sql("INSERT INTO processed_events (consumer, event_id, processed_at) " +
+                        "SELECT :consumer, :eventId, :now " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM processed_events WHERE consumer = :consumer AND event_id = :eventId)")
+                .bind("consumer", key.consumer())
+                .bind("eventId", key.eventId())
+                .bind("now", Instant.now())
+                .fetch()
+                .rowsUpdated()
+                // Another instance recorded the event between the existence check and the insert
+                .onErrorResume(DataIntegrityViolationException.class, error -> Mono.just(0L))
+                .doOnSuccess(ignored -> remember(key))
+                .then();
+    }
+
+    private boolean isRecentlyProcessed(InboxKey key) {
+        synchronized (recentlyProcessed) {
+            return recentlyProcessed.containsKey(key);
+        }
+    }
+
+    private void remember(InboxKey key) {
+        synchronized (recentlyProcessed) {
+            recentlyProcessed.put(key, Boolean.TRUE);
+        }
+    }
+
+    private void skipped(String consumer, String source) {
+        Counter.builder("inbox.duplicates.skipped")
+                .description("Redelivered events skipped because their consumer had already handled them")
+                .tag("consumer", consumer)
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record InboxKey(String consumer, String eventId) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.transferer.shared.infrastructure;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+public enum DatabaseDialect {
+    POSTGRES,
+    H2;
+
+    public static DatabaseDialect of(ConnectionFactory connectionFactory) {
+        String name = connectionFactory.getMetadata().getName();
+        if (name.toLowerCase().contains("postgres")) {
+            return POSTGRES;
+        }
+        if (name.equalsIgnoreCase("H2")) {
+            return H2;
+        }
+        throw new IllegalStateException("Unsupported database: " + name);
+    }
+
+    /**
+     * Wraps a bind marker holding a JSON document so it can be written to the dialect's JSON column type.
+     */
+    public String jsonValue(String bindMarker) {
+        return switch (this) {
+            case POSTGRES -> "CAST(" + bindMarker + " AS JSONB)";
+            case H2 -> bindMarker;
+        };
+    }
+}
@@ -0,0 +1,316 @@
+package com.transferer.shared.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of encoded events in pre-allocated, memory-mapped files of
+ * {@code fileSize} bytes. Each record is framed as payload length, CRC32C of the payload and the
+ * payload itself; a zero length marks the end of the written part of a file, and a length of -1
+ * that the writer rolled over to the next file.
+ * <p>
+ * Appends return once their records are on disk. Appends that arrive while an fsync is running
+ * are all covered by the next one (group commit), so the number of fsyncs stays bounded however
+ * many publishers write concurrently. Readers only ever see durable records. On open, the newest
+ * file is validated frame by frame, and a torn or corrupt frame is discarded together with
+ * everything after it.
+ */
+public class EventJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(EventJournal.class);
+    static final int FRAME_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int END_OF_FILE = -1;
+    private static final int ZERO_CHUNK_BYTES = 1 << 20;
+    private static final Pattern FILE_NAME = Pattern.compile("journal-(\\d{10})\\.log");
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final int fileSize;
+    private final ConcurrentSkipListMap<Integer, MappedByteBuffer> files = new ConcurrentSkipListMap<>();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Sinks.Many<JournalPosition> durablePositions = Sinks.many().replay().latest();
+    private int writeFile;
+    private int writeOffset;
+    private CompletableFuture<Void> pendingFlush;
+    private volatile JournalPosition durablePosition;
+
+    public EventJournal(Path directory, int fileSize) throws IOException {
+        if (fileSize <= FRAME_HEADER_BYTES) {
+            throw new IllegalArgumentException("Journal file size must exceed the frame header");
+        }
+        this.directory = directory;
+        this.fileSize = fileSize;
+        Files.createDirectories(directory);
+        for (int file : existingFiles()) {
+            files.put(file, map(file, false));
+        }
+        if (files.isEmpty()) {
+            files.put(1, map(1, true));
+        }
+        writeFile = files.lastKey();
+        writeOffset = recover(writeFile);
+        durablePosition = new JournalPosition(writeFile, writeOffset);
+        durablePositions.tryEmitNext(durablePosition);
+    }
+
+    /**
+     * Appends {@code payloads} as consecutive records. The returned future completes once all of
+     * them are durable.
+     */
+    public CompletableFuture<Void> append(List<byte[]> payloads) {
+        synchronized (this) {
+            for (byte[] payload : payloads) {
+                int frameLength = FRAME_HEADER_BYTES + payload.length;
+                if (frameLength > fileSize) {
+                    throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the file size");
+                }
+                if (writeOffset + frameLength > fileSize) {
+                    rollOver();
+                }
+                MappedByteBuffer buffer = files.get(writeFile);
+                buffer.putInt(writeOffset + Integer.BYTES, checksum(payload));
+                buffer.put(writeOffset + FRAME_HEADER_BYTES, payload);
+                buffer.putInt(writeOffset, payload.length);
+                writeOffset += frameLength;
+            }
+            if (pendingFlush == null) {
+                pendingFlush = new CompletableFuture<>();
+                flusher.execute(this::flush);
+            }
+            return pendingFlush;
+        }
+    }
+
+    /**
+     * Reads up to {@code maxEntries} durable records starting at {@code from}.
+     */
+    public List<JournalEntry> read(JournalPosition from, int maxEntries) {
+        JournalPosition durable = durablePosition;
+        List<JournalEntry> entries = new ArrayList<>();
+        JournalPosition position = from;
+        while (entries.size() < maxEntries && position.compareTo(durable) < 0) {
+            MappedByteBuffer buffer = files.get(position.file());
+            if (buffer == null) {
+                throw new IllegalStateException("Journal file " + position.file() + " no longer exists");
+            }
+            int length = position.offset() + FRAME_HEADER_BYTES <= fileSize ? buffer.getInt(position.offset()) : END_OF_FILE;
+            if (length == END_OF_FILE || length == 0) {
+                position = new JournalPosition(position.file() + 1, 0);
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position.offset() + FRAME_HEADER_BYTES, payload);
+            if (checksum(payload) != buffer.getInt(position.offset() + Integer.BYTES)) {
+                throw new IllegalStateException("Corrupt journal record at " + position);
+            }
+            JournalPosition next = new JournalPosition(position.file(), position.offset() + FRAME_HEADER_BYTES + length);
+            entries.add(new JournalEntry(position, next, payload));
+            position = next;
+        }
+        return entries;
+    }
+
+    /**
+     * Emits the latest durable position, starting with the current one, whenever an fsync
+     * completes.
+     */
+    public Flux<JournalPosition> durablePositions() {
+        return durablePositions.asFlux();
+    }
+
+    /**
+     * Deletes files that lie entirely before {@code position}.
+     */
+    public void deleteBefore(JournalPosition position) {
+        for (Integer file : List.copyOf(files.keySet())) {
+            if (file >= position.file()) {
+                break;
+            }
+            files.remove(file);
+            try {
+                Files.deleteIfExists(path(file));
+            } catch (IOException e) {
+                logger.warn("Failed to delete consumed journal file {}", path(file), e);
+            }
+        }
+    }
+
+    public JournalPosition loadCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (!Files.exists(checkpoint)) {
+            int firstFile = files.firstKey();
+            return new JournalPosition(firstFile, 0);
+        }
+        String[] parts = Files.readString(checkpoint, StandardCharsets.UTF_8).trim().split(":");
+        return new JournalPosition(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * Records how far the journal has been consumed. It is not forced to disk: losing it only
+     * means records get dispatched again.
+     */
+    public void saveCheckpoint(JournalPosition position) throws IOException {
+        Path pending = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(pending, position.file() + ":" + position.offset(), StandardCharsets.UTF_8);
+        Files.move(pending, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        synchronized (this) {
+            files.values().forEach(MappedByteBuffer::force);
+        }
+    }
+
+    private void flush() {
+        CompletableFuture<Void> flush;
+        JournalPosition target;
+        synchronized (this) {
+            flush = pendingFlush;
+            pendingFlush = null;
+            target = new JournalPosition(writeFile, writeOffset);
+        }
+        try {
+            JournalPosition from = durablePosition;
+            for (int file = from.file(); file <= target.file(); file++) {
+                MappedByteBuffer buffer = files.get(file);
+                int start = file == from.file() ? from.offset() : 0;
+                int end = file == target.file() ? target.offset() : fileSize;
+                if (buffer != null && end > start) {
+                    buffer.force(start, end - start);
+                }
+            }
+            durablePosition = target;
+            flush.complete(null);
+            durablePositions.tryEmitNext(target);
+        } catch (RuntimeException e) {
+            flush.completeExceptionally(e);
+        }
+    }
+
+    private void rollOver() {
+        MappedByteBuffer current = files.get(writeFile);
+        if (writeOffset + Integer.BYTES <= fileSize) {
+            current.putInt(writeOffset, END_OF_FILE);
+        }
+        try {
+            files.put(writeFile + 1, map(writeFile + 1, true));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to allocate journal file " + (writeFile + 1), e);
+        }
+        writeFile++;
+        writeOffset = 0;
+    }
+
+    /**
+     * Finds the end of the valid records in {@code file} and zeroes whatever follows, so that a
+     * torn frame can never be mistaken for a record once new ones are appended after it.
+     */
+    private int recover(int file) throws IOException {
+        MappedByteBuffer buffer = files.get(file);
+        int offset = 0;
+        while (offset + FRAME_HEADER_BYTES <= fileSize) {
+            int length = buffer.getInt(offset);
+            if (length == END_OF_FILE) {
+                // Crashed between marking the file as full and allocating the next one
+                files.put(file + 1, map(file + 1, true));
+                writeFile = file + 1;
+                return 0;
+            }
+            if (length <= 0 || offset + FRAME_HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + FRAME_HEADER_BYTES, payload);
+            if (checksum(payload) != buffer.getInt(offset + Integer.BYTES)) {
+                break;
+            }
+            offset += FRAME_HEADER_BYTES + length;
+        }
+        int discarded = 0;
+        for (int i = offset; i < fileSize; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                discarded++;
+            }
+        }
+        if (discarded > 0) {
+            logger.warn("Discarded a torn tail of journal file {} after offset {}", path(file), offset);
+            buffer.force();
+        }
+        return offset;
+    }
+
+    private MappedByteBuffer map(int file, boolean create) throws IOException {
+        Path path = path(file);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (create || channel.size() < fileSize) {
+                preallocate(channel);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+    }
+
+    /**
+     * Writes out the whole file up front so that appends never grow it, and an fsync never has
+     * to update file metadata along with the data.
+     */
+    private void preallocate(FileChannel channel) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(Math.min(ZERO_CHUNK_BYTES, fileSize));
+        long position = channel.size();
+        while (position < fileSize) {
+            zeros.clear().limit((int) Math.min(zeros.capacity(), fileSize - position));
+            position += channel.write(zeros, position);
+        }
+        channel.force(true);
+    }
+
+    private List<Integer> existingFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.map(path -> FILE_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path path(int file) {
+        return directory.resolve(String.format("journal-%010d.log", file));
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
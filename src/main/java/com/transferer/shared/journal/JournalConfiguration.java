@@ -0,0 +1,44 @@
+package com.transferer.shared.journal;
+
+import com.transferer.shared.outbox.OutboxEventBus;
+import com.transferer.shared.outbox.OutboxEventSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Replaces the outbox table with the file-backed {@link EventJournal} for single-node
+ * deployments. Events still reach subscribers through {@link OutboxEventBus}.
+ */
+@Configuration
+@Profile("journal")
+public class JournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public EventJournal eventJournal(
+            @Value("${journal.directory:journal}") String directory,
+            @Value("${journal.file-size:67108864}") int fileSize) throws IOException {
+        return new EventJournal(Path.of(directory), fileSize);
+    }
+
+    @Bean
+    public JournalEventPublisher journalEventPublisher(EventJournal eventJournal, OutboxEventSerializer outboxEventSerializer) {
+        return new JournalEventPublisher(eventJournal, outboxEventSerializer);
+    }
+
+    @Bean
+    public JournalEventDispatcher journalEventDispatcher(
+            EventJournal eventJournal,
+            OutboxEventBus outboxEventBus,
+            OutboxEventSerializer outboxEventSerializer,
+            @Value("${journal.dispatch-batch-size:500}") int batchSize,
+            @Value("${journal.retry-backoff:1000}") long retryBackoffMillis) {
+        return new JournalEventDispatcher(eventJournal, outboxEventBus::dispatch, outboxEventSerializer, batchSize,
+                Duration.ofMillis(retryBackoffMillis));
+    }
+}
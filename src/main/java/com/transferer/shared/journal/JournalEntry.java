@@ -0,0 +1,7 @@
+package com.transferer.shared.journal;
+
+/**
+ * A record read back from the journal, with the position to continue reading from after it.
+ */
+public record JournalEntry(JournalPosition position, JournalPosition next, byte[] payload) {
+}
@@ -0,0 +1,145 @@
+package com.transferer.shared.journal;
+
+import com.transferer.shared.events.EventPublisher;
+import com.transferer.shared.outbox.OutboxEvent;
+import com.transferer.shared.outbox.OutboxEventBinaryFormat;
+import com.transferer.shared.outbox.OutboxEventSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tails the {@link EventJournal} and hands each durable record to subscribers, in journal order,
+ * whenever an fsync completes. Progress is checkpointed after every batch and fully consumed
+ * journal files are deleted. Delivery is at least once: after a restart, everything since the
+ * last checkpoint is dispatched again.
+ *
+ * <p>Records whose payload cannot be decoded are logged and skipped. Any other dispatch failure,
+ * such as a subscriber queue rejecting the event, stops the batch at that record, checkpoints what
+ * was dispatched before it and retries from there with backoff.
+ */
+public class JournalEventDispatcher implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(JournalEventDispatcher.class);
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(30);
+
+    private final EventJournal eventJournal;
+    private final EventPublisher eventPublisher;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private volatile JournalPosition position;
+    private volatile Disposable subscription;
+
+    public JournalEventDispatcher(
+            EventJournal eventJournal,
+            EventPublisher eventPublisher,
+            OutboxEventSerializer outboxEventSerializer,
+            int batchSize,
+            Duration retryBackoff) {
+        this.eventJournal = eventJournal;
+        this.eventPublisher = eventPublisher;
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        try {
+            this.position = eventJournal.loadCheckpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load journal checkpoint", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        subscription = eventJournal.durablePositions()
+                .onBackpressureLatest()
+                .concatMap(durable -> drain(), 1)
+                .subscribe(
+                    dispatchedCount -> {
+                        if (dispatchedCount > 0) {
+                            logger.debug("Dispatched {} journaled events", dispatchedCount);
+                        }
+                    },
+                    error -> logger.error("Journal dispatch terminated", error)
+                );
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        subscription = null;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null;
+    }
+
+    Mono<Long> drain() {
+        return dispatchBatch()
+                .expand(dispatchedCount -> dispatchedCount < batchSize ? Mono.empty() : dispatchBatch())
+                .reduce(0L, Long::sum)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff)
+                        .maxBackoff(MAX_RETRY_BACKOFF)
+                        .doBeforeRetry(signal -> logger.warn(
+                                "Error dispatching journaled events, retrying from {}", position, signal.failure())));
+    }
+
+    private Mono<Long> dispatchBatch() {
+        return Mono.fromCallable(() -> eventJournal.read(position, batchSize))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(entries -> entries.isEmpty()
+                        ? Mono.just(0L)
+                        : dispatchAll(entries));
+    }
+
+    private Mono<Long> dispatchAll(List<JournalEntry> entries) {
+        List<JournalEntry> dispatched = new ArrayList<>(entries.size());
+        return Flux.fromIterable(entries)
+                .concatMap(entry -> dispatch(entry).thenReturn(entry))
+                .doOnNext(dispatched::add)
+                .then(Mono.fromCallable(() -> advance(dispatched)))
+                .onErrorResume(error -> dispatched.isEmpty()
+                        ? Mono.error(error)
+                        : Mono.fromCallable(() -> advance(dispatched)).then(Mono.error(error)));
+    }
+
+    private Mono<Void> dispatch(JournalEntry entry) {
+        return Mono.fromCallable(() -> outboxEventSerializer.deserialize(decode(entry)))
+                .onErrorResume(error -> {
+                    // A record that cannot be decoded now never will be; skip it rather than block the journal
+                    logger.error("Skipping undecodable journal record at {}", entry.position(), error);
+                    return Mono.empty();
+                })
+                .flatMap(eventPublisher::publish);
+    }
+
+    private long advance(List<JournalEntry> entries) throws IOException {
+        JournalPosition next = entries.get(entries.size() - 1).next();
+        eventJournal.saveCheckpoint(next);
+        eventJournal.deleteBefore(next);
+        position = next;
+        return entries.size();
+    }
+
+    private static OutboxEvent decode(JournalEntry entry) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.payload()))) {
+            return OutboxEventBinaryFormat.read(in);
+        }
+    }
+}
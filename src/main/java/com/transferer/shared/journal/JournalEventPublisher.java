@@ -0,0 +1,79 @@
+package com.transferer.shared.journal;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.events.TransactionalEventPublisher;
+import com.transferer.shared.outbox.OutboxEventBinaryFormat;
+import com.transferer.shared.outbox.OutboxEventSerializer;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes events by appending them to the {@link EventJournal} instead of the outbox table.
+ * Events are encoded up front, so an event that cannot be serialized still fails the
+ * transaction, but only appended once the transaction has committed, so a rollback never leaves
+ * events behind. The commit completes once the append is durable; the trade-off against the
+ * outbox is that a crash between the database commit and that fsync loses the events.
+ */
+public class JournalEventPublisher implements TransactionalEventPublisher {
+
+    private final EventJournal eventJournal;
+    private final OutboxEventSerializer outboxEventSerializer;
+
+    public JournalEventPublisher(EventJournal eventJournal, OutboxEventSerializer outboxEventSerializer) {
+        this.eventJournal = eventJournal;
+        this.outboxEventSerializer = outboxEventSerializer;
+    }
+
+    @Override
+    public Mono<Void> publish(DomainEvent<?> event) {
+        return appendAfterCommit(List.of(event));
+    }
+
+    @Override
+    public Mono<Void> publishWithinTransaction(List<DomainEvent<?>> events, TransactionalOperator transactionalOperator) {
+        return appendAfterCommit(events)
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Void> appendAfterCommit(List<DomainEvent<?>> events) {
+        return Mono.fromCallable(() -> encode(events))
+                .flatMap(payloads -> TransactionSynchronizationManager.forCurrentTransaction()
+                        .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                        .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(
+                                new TransactionSynchronization() {
+                                    @Override
+                                    public Mono<Void> afterCommit() {
+                                        return append(payloads);
+                                    }
+                                }
+                        ))
+                        .then()
+                        .switchIfEmpty(append(payloads))
+                        .onErrorResume(NoTransactionException.class, error -> append(payloads)));
+    }
+
+    private Mono<Void> append(List<byte[]> payloads) {
+        return Mono.fromFuture(() -> eventJournal.append(payloads));
+    }
+
+    private List<byte[]> encode(List<DomainEvent<?>> events) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        for (DomainEvent<?> event : events) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                OutboxEventBinaryFormat.write(out, outboxEventSerializer.serialize(event));
+            }
+            payloads.add(bytes.toByteArray());
+        }
+        return payloads;
+    }
+}
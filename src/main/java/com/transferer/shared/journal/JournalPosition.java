@@ -0,0 +1,13 @@
+package com.transferer.shared.journal;
+
+/**
+ * A byte offset within one of the journal's numbered files.
+ */
+public record JournalPosition(int file, int offset) implements Comparable<JournalPosition> {
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int byFile = Integer.compare(file, other.file);
+        return byFile != 0 ? byFile : Integer.compare(offset, other.offset);
+    }
+}
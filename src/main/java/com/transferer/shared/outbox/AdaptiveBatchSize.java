@@ -0,0 +1,30 @@
+package com.transferer.shared.outbox;
+
+import java.time.Duration;
+
+/**
+ * Additive-increase/multiplicative-decrease sizing for outbox batches. A full batch that finished
+ * within the target latency grows the next one by {@code minBatchSize}; a batch that overran it
+ * halves the next one. Short batches say nothing about capacity and leave the size alone.
+ */
+final class AdaptiveBatchSize {
+    private final OutboxDrainPolicy drainPolicy;
+    private volatile int current;
+
+    AdaptiveBatchSize(OutboxDrainPolicy drainPolicy) {
+        this.drainPolicy = drainPolicy;
+        this.current = drainPolicy.initialBatchSize();
+    }
+
+    int current() {
+        return current;
+    }
+
+    void record(long processedCount, int limit, Duration elapsed) {
+        if (elapsed.compareTo(drainPolicy.targetBatchLatency()) > 0) {
+            current = Math.max(drainPolicy.minBatchSize(), limit / 2);
+        } else if (processedCount >= limit) {
+            current = Math.min(drainPolicy.maxBatchSize(), limit + drainPolicy.minBatchSize());
+        }
+    }
+}
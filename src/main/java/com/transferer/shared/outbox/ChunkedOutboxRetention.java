@@ -0,0 +1,50 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Retention for an unpartitioned outbox table: processed events are deleted in id-ordered chunks
+ * of {@code chunkSize}, each its own short statement, so a large purge never holds locks on or
+ * rewrites the whole backlog at once.
+ */
+public class ChunkedOutboxRetention implements OutboxRetention {
+
+    private final DatabaseClient databaseClient;
+    private final String table;
+    private final int chunkSize;
+
+    public ChunkedOutboxRetention(DatabaseClient databaseClient, String table, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Outbox retention chunk size must be at least 1");
+        }
+        this.databaseClient = databaseClient;
+        this.table = table;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Mono<Void> prepare(Instant now) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Long> purge(Instant cutoff, long consumedUpToId) {
+        return deleteChunk(cutoff, consumedUpToId)
+                .expand(deletedCount -> deletedCount < chunkSize ? Mono.empty() : deleteChunk(cutoff, consumedUpToId))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> deleteChunk(Instant cutoff, long consumedUpToId) {
+        return databaseClient.sql("DELETE FROM " + table + " WHERE id IN (" +
+                        "SELECT id FROM " + table + " WHERE processed_at IS NOT NULL AND created_at < :cutoff " +
+                        "AND id <= :consumedUpToId ORDER BY id ASC LIMIT :limit)")
+                .bind("cutoff", cutoff)
+                .bind("consumedUpToId", consumedUpToId)
+                .bind("limit", chunkSize)
+                .fetch()
+                .rowsUpdated();
+    }
+}
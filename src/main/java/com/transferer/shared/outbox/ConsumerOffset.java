@@ -0,0 +1,45 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Table("consumer_offsets")
+public class ConsumerOffset {
+
+    @Id
+    @Column("consumer_name")
+    private String consumerName;
+
+    @Column("last_event_id")
+    private long lastEventId;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    public void setConsumerName(String consumerName) {
+        this.consumerName = consumerName;
+    }
+
+    public long getLastEventId() {
+        return lastEventId;
+    }
+
+    public void setLastEventId(long lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,53 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface ConsumerOffsetRepository extends R2dbcRepository<ConsumerOffset, String> {
+
+    /**
+     * Creates the offset of a consumer at {@code lastEventId} unless it already has one.
+     */
+    @Modifying
+    @Query("INSERT INTO consumer_offsets (consumer_name, last_event_id, updated_at) " +
+            "SELECT :consumerName, :lastEventId, :now " +
+            "WHERE NOT EXISTS (SELECT 1 FROM consumer_offsets WHERE consumer_name = :consumerName)")
+    Mono<Integer> register(String consumerName, long lastEventId, Instant now);
+
+    /**
+     * Moves the offset of a consumer from {@code expectedEventId} to {@code lastEventId}. Updates
+     * nothing if another instance of the consumer has moved it in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE consumer_offsets SET last_event_id = :lastEventId, updated_at = :now " +
+            "WHERE consumer_name = :consumerName AND last_event_id = :expectedEventId")
+    Mono<Integer> commit(String consumerName, long expectedEventId, long lastEventId, Instant now);
+
+    /**
+     * Records that a consumer with nothing to read is still alive, without moving its offset.
+     */
+    @Modifying
+    @Query("UPDATE consumer_offsets SET updated_at = :now WHERE consumer_name = :consumerName")
+    Mono<Integer> touch(String consumerName, Instant now);
+
+    /**
+     * The offset of the consumer furthest behind among those that committed or checked in since
+     * {@code activeSince}, or empty if there are none.
+     */
+    @Query("SELECT last_event_id FROM consumer_offsets WHERE updated_at >= :activeSince ORDER BY last_event_id ASC LIMIT 1")
+    Mono<Long> findSlowestOffset(Instant activeSince);
+
+    /**
+     * Consumers that have neither committed nor checked in since {@code activeSince}, e.g. because
+     * they were removed or renamed.
+     */
+    @Query("SELECT * FROM consumer_offsets WHERE updated_at < :activeSince ORDER BY consumer_name ASC")
+    Flux<ConsumerOffset> findInactive(Instant activeSince);
+}
@@ -0,0 +1,100 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.account.domain.events.AccountActivatedEvent;
+import com.transferer.account.domain.events.AccountCreditedEvent;
+import com.transferer.account.domain.events.AccountDeactivatedEvent;
+import com.transferer.account.domain.events.AccountDebitedEvent;
+import com.transferer.account.domain.events.AccountOpenedEvent;
+import com.transferer.account.domain.events.AccountSuspendedEvent;
+import com.transferer.account.domain.events.body.AccountActivatedEventBody;
+import com.transferer.account.domain.events.body.AccountCreditEventBody;
+import com.transferer.account.domain.events.body.AccountDeactivatedEventBody;
+import com.transferer.account.domain.events.body.AccountDebitedEventBody;
+import com.transferer.account.domain.events.body.AccountOpenedEventBody;
+import com.transferer.account.domain.events.body.AccountSuspendedEventBody;
+import com.transferer.payment.domain.events.PaymentCompletedEvent;
+import com.transferer.payment.domain.events.PaymentFailedEvent;
+import com.transferer.payment.domain.events.PaymentInitiatedEvent;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.payment.domain.events.body.PaymentCompletedEventBody;
+import com.transferer.payment.domain.events.body.PaymentFailedEventBody;
+import com.transferer.payment.domain.events.body.PaymentInitiatedEventBody;
+import com.transferer.payment.domain.events.body.PaymentStepAdvancedEventBody;
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import com.transferer.transaction.domain.events.TransactionCompletedEvent;
+import com.transferer.transaction.domain.events.TransactionCreatedEvent;
+import com.transferer.transaction.domain.events.TransactionFailedEvent;
+import com.transferer.transaction.domain.events.body.TransactionCompletedEventBody;
+import com.transferer.transaction.domain.events.body.TransactionCreatedEventBody;
+import com.transferer.transaction.domain.events.body.TransactionFailedEventBody;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Maps each {@link DomainEventType} to its event class, body class and a factory that rebuilds
+ * the event from the envelope columns of an outbox row and its decoded body.
+ */
+public class EventTypeRegistry {
+
+    @FunctionalInterface
+    public interface EventFactory<B, E> {
+        E create(String eventId, Instant occurredAt, B body);
+    }
+
+    public record Registration<B extends DomainEventBody, E extends DomainEvent<B>>(
+            DomainEventType eventType,
+            Class<E> eventClass,
+            Class<B> bodyClass,
+            EventFactory<B, E> factory
+    ) {
+        public E create(String eventId, Instant occurredAt, Object body) {
+            return factory.create(eventId, occurredAt, bodyClass.cast(body));
+        }
+    }
+
+    private final Map<DomainEventType, Registration<?, ?>> registrations = new EnumMap<>(DomainEventType.class);
+
+    public static EventTypeRegistry defaultRegistry() {
+        return new EventTypeRegistry()
+                .register(DomainEventType.ACCOUNT_ACTIVATED, AccountActivatedEvent.class, AccountActivatedEventBody.class, AccountActivatedEvent::new)
+                .register(DomainEventType.ACCOUNT_DEACTIVATED, AccountDeactivatedEvent.class, AccountDeactivatedEventBody.class, AccountDeactivatedEvent::new)
+                .register(DomainEventType.ACCOUNT_CREDITED, AccountCreditedEvent.class, AccountCreditEventBody.class, AccountCreditedEvent::new)
+                .register(DomainEventType.ACCOUNT_DEBITED, AccountDebitedEvent.class, AccountDebitedEventBody.class, AccountDebitedEvent::new)
+                .register(DomainEventType.ACCOUNT_OPENED, AccountOpenedEvent.class, AccountOpenedEventBody.class, AccountOpenedEvent::new)
+                .register(DomainEventType.ACCOUNT_SUSPENDED, AccountSuspendedEvent.class, AccountSuspendedEventBody.class, AccountSuspendedEvent::new)
+                .register(DomainEventType.TRANSACTION_CREATED, TransactionCreatedEvent.class, TransactionCreatedEventBody.class, TransactionCreatedEvent::new)
+                .register(DomainEventType.TRANSACTION_COMPLETED, TransactionCompletedEvent.class, TransactionCompletedEventBody.class, TransactionCompletedEvent::new)
+                .register(DomainEventType.TRANSACTION_FAILED, TransactionFailedEvent.class, TransactionFailedEventBody.class, TransactionFailedEvent::new)
+                .register(DomainEventType.PAYMENT_INITIATED, PaymentInitiatedEvent.class, PaymentInitiatedEventBody.class, PaymentInitiatedEvent::new)
+                .register(DomainEventType.PAYMENT_STEP_ADVANCED, PaymentStepAdvancedEvent.class, PaymentStepAdvancedEventBody.class, PaymentStepAdvancedEvent::new)
+                .register(DomainEventType.PAYMENT_COMPLETED, PaymentCompletedEvent.class, PaymentCompletedEventBody.class, PaymentCompletedEvent::new)
+                .register(DomainEventType.PAYMENT_FAILED, PaymentFailedEvent.class, PaymentFailedEventBody.class, PaymentFailedEvent::new);
+    }
+
+    public <B extends DomainEventBody, E extends DomainEvent<B>> EventTypeRegistry register(
+            DomainEventType eventType,
+            Class<E> eventClass,
+            Class<B> bodyClass,
+            EventFactory<B, E> factory) {
+        registrations.put(eventType, new Registration<>(eventType, eventClass, bodyClass, factory));
+        return this;
+    }
+
+    public Registration<?, ?> lookup(DomainEventType eventType) {
+        Registration<?, ?> registration = registrations.get(eventType);
+        if (registration == null) {
+            throw new IllegalArgumentException("No event class registered for event type: " + eventType);
+        }
+        return registration;
+    }
+
+    public Collection<Registration<?, ?>> registrations() {
+        return Collections.unmodifiableCollection(registrations.values());
+    }
+}
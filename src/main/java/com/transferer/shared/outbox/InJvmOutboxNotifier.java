@@ -0,0 +1,39 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+public class InJvmOutboxNotifier implements OutboxNotifier {
+
+    private final Sinks.Many<String> signalSink = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public Mono<Void> notifyWithinTransaction() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCommit() {
+                                return Mono.fromRunnable(InJvmOutboxNotifier.this::signal);
+                            }
+                        }
+                ))
+                .switchIfEmpty(Mono.fromRunnable(this::signal))
+                .onErrorResume(NoTransactionException.class, error -> Mono.fromRunnable(this::signal))
+                .then();
+    }
+
+    @Override
+    public Flux<String> signals() {
+        return signalSink.asFlux();
+    }
+
+    private void signal() {
+        signalSink.tryEmitNext(CHANNEL);
+    }
+}
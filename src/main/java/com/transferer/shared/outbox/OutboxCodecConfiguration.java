@@ -0,0 +1,43 @@
+package com.transferer.shared.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transferer.shared.outbox.codec.EventCodec;
+import com.transferer.shared.outbox.codec.JacksonEventCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class OutboxCodecConfiguration {
+
+    @Bean
+    public EventCodec jsonEventCodec(ObjectMapper objectMapper) {
+        return JacksonEventCodec.json(objectMapper);
+    }
+
+    @Bean
+    public EventCodec smileEventCodec(ObjectMapper objectMapper) {
+        return JacksonEventCodec.smile(objectMapper);
+    }
+
+    @Bean
+    public EventCodec cborEventCodec(ObjectMapper objectMapper) {
+        return JacksonEventCodec.cbor(objectMapper);
+    }
+
+    @Bean
+    public EventTypeRegistry eventTypeRegistry() {
+        return EventTypeRegistry.defaultRegistry();
+    }
+
+    @Bean
+    public OutboxEventSerializer outboxEventSerializer(
+            EventTypeRegistry eventTypeRegistry,
+            List<EventCodec> codecs,
+            @Value("${outbox.codec.format:json}") String format,
+            @Value("${outbox.codec.compression-threshold:-1}") int compressionThreshold) {
+        return new OutboxEventSerializer(eventTypeRegistry, codecs, format, compressionThreshold);
+    }
+}
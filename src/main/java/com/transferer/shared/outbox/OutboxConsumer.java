@@ -0,0 +1,221 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.events.ConsumerStartPosition;
+import com.transferer.shared.events.EventConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads the outbox for one named consumer, in id order and in batches, from the consumer's own
+ * offset in {@code consumer_offsets}. The offset is committed once per batch after the consumer
+ * has handled it, conditionally on nobody else having moved it, so instances of the same consumer
+ * on several nodes at worst deliver a batch twice and never skip one.
+ * <p>
+ * Ids are taken from a sequence before the inserting transaction commits, so a row can become
+ * visible after rows with higher ids. A batch is therefore cut short at the first gap in the id
+ * sequence until the row after the gap is older than {@code settleWindow}; gaps left by rolled back
+ * or dead-lettered events are skipped after that. Writes taking longer than the window may have
+ * their events skipped by consumers; skipped ids are counted in {@link OutboxMetrics}.
+ * <p>
+ * A consumer with nothing to read still touches its offset every {@code HEARTBEAT_INTERVAL}, so
+ * that retention can tell an idle consumer from one that is gone.
+ */
+class OutboxConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxConsumer.class);
+    private static final long UNKNOWN_OFFSET = -1;
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofMinutes(1);
+
+    private final String consumerName;
+    private final ConsumerStartPosition startPosition;
+    private final EventConsumer eventConsumer;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final OutboxMetrics outboxMetrics;
+    private final int batchSize;
+    private final Duration settleWindow;
+    private final Duration pollInterval;
+    private final AtomicLong offset = new AtomicLong(UNKNOWN_OFFSET);
+    private final AtomicReference<Instant> lastCheckIn = new AtomicReference<>(Instant.EPOCH);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final Disposable.Swap poll = Disposables.swap();
+    private volatile boolean running;
+
+    OutboxConsumer(
+            String consumerName,
+            ConsumerStartPosition startPosition,
+            EventConsumer eventConsumer,
+            OutboxEventRepository outboxEventRepository,
+            ConsumerOffsetRepository consumerOffsetRepository,
+            OutboxEventSerializer outboxEventSerializer,
+            OutboxMetrics outboxMetrics,
+            int batchSize,
+            Duration settleWindow,
+            Duration pollInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Outbox consumer batch size must be at least 1");
+        }
+        this.consumerName = consumerName;
+        this.startPosition = startPosition;
+        this.eventConsumer = eventConsumer;
+        this.outboxEventRepository = outboxEventRepository;
+        this.consumerOffsetRepository = consumerOffsetRepository;
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.outboxMetrics = outboxMetrics;
+        this.batchSize = batchSize;
+        this.settleWindow = settleWindow;
+        this.pollInterval = pollInterval;
+    }
+
+    String getConsumerName() {
+        return consumerName;
+    }
+
+    void start() {
+        running = true;
+        requestDrain();
+    }
+
+    void stop() {
+        running = false;
+        poll.update(Disposables.disposed());
+    }
+
+    /**
+     * Same loop as the outbox processor: batches are read back to back while they come back full,
+     * signals arriving mid-batch are coalesced into one more pass, and otherwise the consumer
+     * polls again after {@code pollInterval}.
+     */
+    void requestDrain() {
+        if (!running) {
+            return;
+        }
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        drainRequested.set(false);
+        consumeBatch()
+                .onErrorResume(error -> {
+                    logger.error("Consumer {} failed at offset {}; retrying in {}", consumerName, offset.get(), pollInterval, error);
+                    return Mono.just(0);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(consumedCount -> {
+                    draining.set(false);
+                    if (consumedCount >= batchSize || drainRequested.get()) {
+                        requestDrain();
+                    } else if (running) {
+                        poll.update(Mono.delay(pollInterval).subscribe(tick -> requestDrain()));
+                    }
+                });
+    }
+
+    /**
+     * Hands the next settled batch after the offset to the consumer, commits the offset past it
+     * and returns how many events it held.
+     */
+    Mono<Integer> consumeBatch() {
+        return currentOffset()
+                .flatMap(from -> outboxEventRepository.findAfter(from, batchSize)
+                        .collectList()
+                        .map(batch -> settledPrefix(from, batch, Instant.now().minus(settleWindow)))
+                        .filter(batch -> !batch.isEmpty())
+                        .flatMap(batch -> deliver(batch)
+                                .then(commit(from, batch.get(batch.size() - 1).getId()))
+                                .doOnSuccess(ignored -> recordSkippedIds(from, batch))
+                                .thenReturn(batch.size())))
+                .switchIfEmpty(Mono.defer(() -> checkIn().thenReturn(0)));
+    }
+
+    private void recordSkippedIds(long from, List<OutboxEvent> batch) {
+        long skipped = batch.get(batch.size() - 1).getId() - from - batch.size();
+        if (skipped > 0) {
+            logger.debug("Consumer {} skipped {} ids after offset {}", consumerName, skipped, from);
+            outboxMetrics.recordSkippedIds(consumerName, skipped);
+        }
+    }
+
+    private Mono<Void> checkIn() {
+        Instant now = Instant.now();
+        Instant last = lastCheckIn.get();
+        if (offset.get() == UNKNOWN_OFFSET || last.plus(HEARTBEAT_INTERVAL).isAfter(now)
+                || !lastCheckIn.compareAndSet(last, now)) {
+            return Mono.empty();
+        }
+        return consumerOffsetRepository.touch(consumerName, now).then();
+    }
+
+    /**
+     * The events of {@code batch} that directly follow {@code offset} without an unsettled gap,
+     * i.e. a missing id whose successor was created after {@code settledBefore}.
+     */
+    static List<OutboxEvent> settledPrefix(long offset, List<OutboxEvent> batch, Instant settledBefore) {
+        long expectedId = offset + 1;
+        int settled = 0;
+        for (OutboxEvent outboxEvent : batch) {
+            if (outboxEvent.getId() != expectedId && outboxEvent.getCreatedAt().isAfter(settledBefore)) {
+                break;
+            }
+            expectedId = outboxEvent.getId() + 1;
+            settled++;
+        }
+        return batch.subList(0, settled);
+    }
+
+    private Mono<Long> currentOffset() {
+        long current = offset.get();
+        if (current != UNKNOWN_OFFSET) {
+            return Mono.just(current);
+        }
+        Mono<Long> initialOffset = startPosition == ConsumerStartPosition.LATEST
+                ? outboxEventRepository.findLatestId().defaultIfEmpty(0L)
+                : Mono.just(0L);
+        return initialOffset
+                .flatMap(lastEventId -> consumerOffsetRepository.register(consumerName, lastEventId, Instant.now()))
+                // Another instance registered the consumer first
+                .onErrorResume(DataIntegrityViolationException.class, error -> Mono.just(0))
+                .then(consumerOffsetRepository.findById(consumerName))
+                .map(ConsumerOffset::getLastEventId)
+                .doOnNext(offset::set);
+    }
+
+    private Mono<Void> deliver(List<OutboxEvent> batch) {
+        return Flux.fromIterable(batch)
+                .<DomainEvent<?>>concatMap(outboxEvent -> Mono.fromCallable(() -> outboxEventSerializer.deserialize(outboxEvent)))
+                .collectList()
+                .flatMap(eventConsumer::consume);
+    }
+
+    private Mono<Void> commit(long from, long lastEventId) {
+        return consumerOffsetRepository.commit(consumerName, from, lastEventId, Instant.now())
+                .doOnNext(updatedCount -> {
+                    if (updatedCount > 0) {
+                        offset.set(lastEventId);
+                        lastCheckIn.set(Instant.now());
+                    } else {
+                        logger.warn("Offset of consumer {} moved by another instance; reloading it", consumerName);
+                        offset.set(UNKNOWN_OFFSET);
+                    }
+                })
+                .then();
+    }
+}
@@ -0,0 +1,96 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.events.ConsumerStartPosition;
+import com.transferer.shared.events.EventConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the named consumers registered through {@link OutboxEventBus#consume}, each on its own
+ * {@link OutboxConsumer} loop over the outbox, so that consumers neither wait for the outbox
+ * processor nor for each other. Consumers registered while the context starts up begin reading
+ * once it has started; outbox notifications wake all of them.
+ */
+@Component
+public class OutboxConsumers implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxConsumers.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final OutboxNotifier outboxNotifier;
+    private final OutboxMetrics outboxMetrics;
+    private final int batchSize;
+    private final Duration settleWindow;
+    private final Duration pollInterval;
+    private final CopyOnWriteArrayList<OutboxConsumer> consumers = new CopyOnWriteArrayList<>();
+    private volatile Disposable signalSubscription;
+
+    public OutboxConsumers(
+            OutboxEventRepository outboxEventRepository,
+            ConsumerOffsetRepository consumerOffsetRepository,
+            OutboxEventSerializer outboxEventSerializer,
+            OutboxNotifier outboxNotifier,
+            OutboxMetrics outboxMetrics,
+            @Value("${outbox.consumers.batch-size:500}") int batchSize,
+            @Value("${outbox.consumers.settle-window:5000}") long settleWindowMillis,
+            @Value("${outbox.consumers.poll-interval:1000}") long pollIntervalMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.consumerOffsetRepository = consumerOffsetRepository;
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.outboxNotifier = outboxNotifier;
+        this.outboxMetrics = outboxMetrics;
+        this.batchSize = batchSize;
+        this.settleWindow = Duration.ofMillis(settleWindowMillis);
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+    }
+
+    public synchronized Disposable register(String consumerName, ConsumerStartPosition startPosition, EventConsumer eventConsumer) {
+        OutboxConsumer consumer = new OutboxConsumer(consumerName, startPosition, eventConsumer, outboxEventRepository,
+                consumerOffsetRepository, outboxEventSerializer, outboxMetrics, batchSize, settleWindow, pollInterval);
+        if (consumers.stream().anyMatch(existing -> existing.getConsumerName().equals(consumerName))) {
+            throw new IllegalStateException("Consumer " + consumerName + " is already registered");
+        }
+        consumers.add(consumer);
+        logger.debug("Registered outbox consumer {}", consumerName);
+        if (isRunning()) {
+            consumer.start();
+        }
+        return () -> {
+            consumers.remove(consumer);
+            consumer.stop();
+        };
+    }
+
+    @Override
+    public void start() {
+        signalSubscription = outboxNotifier.signals()
+                .subscribe(
+                    channel -> consumers.forEach(OutboxConsumer::requestDrain),
+                    error -> logger.error("Outbox notification stream terminated", error)
+                );
+        consumers.forEach(OutboxConsumer::start);
+    }
+
+    @Override
+    public void stop() {
+        Disposable subscription = signalSubscription;
+        signalSubscription = null;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        consumers.forEach(OutboxConsumer::stop);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return signalSubscription != null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Table("outbox_dead_letters")
+public class OutboxDeadLetter {
+
+    @Id
+    private Long id;
+
+    @Column("event_id")
+    private String eventId;
+
+    @Column("event_type")
+    private DomainEventType eventType;
+
+    @Column("aggregate_id")
+    private String aggregateId;
+
+    @Column("event_data")
+    private String eventData;
+
+    @Column("event_payload")
+    private byte[] eventPayload;
+
+    @Column("codec")
+    private String codec;
+
+    @Column("occurred_at")
+    private Instant occurredAt;
+
+    @Column("attempts")
+    private int attempts;
+
+    @Column("last_error")
+    private String lastError;
+
+    @Column("dead_lettered_at")
+    private Instant deadLetteredAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public DomainEventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(DomainEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(String aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getEventData() {
+        return eventData;
+    }
+
+    public void setEventData(String eventData) {
+        this.eventData = eventData;
+    }
+
+    public byte[] getEventPayload() {
+        return eventPayload;
+    }
+
+    public void setEventPayload(byte[] eventPayload) {
+        this.eventPayload = eventPayload;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getDeadLetteredAt() {
+        return deadLetteredAt;
+    }
+
+    public void setDeadLetteredAt(Instant deadLetteredAt) {
+        this.deadLetteredAt = deadLetteredAt;
+    }
+}
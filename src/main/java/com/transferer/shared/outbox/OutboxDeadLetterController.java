@@ -0,0 +1,27 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/outbox/dead-letters")
+public class OutboxDeadLetterController {
+
+    private final OutboxDeadLetterService outboxDeadLetterService;
+
+    public OutboxDeadLetterController(OutboxDeadLetterService outboxDeadLetterService) {
+        this.outboxDeadLetterService = outboxDeadLetterService;
+    }
+
+    @GetMapping
+    public Flux<OutboxDeadLetterResponse> getDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        return outboxDeadLetterService.getDeadLetters(limit)
+                .map(OutboxDeadLetterResponse::new);
+    }
+
+    @PostMapping("/{id}/replay")
+    public Mono<Void> replayDeadLetter(@PathVariable Long id) {
+        return outboxDeadLetterService.replay(id);
+    }
+}
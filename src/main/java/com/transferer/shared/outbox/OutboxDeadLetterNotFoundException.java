@@ -0,0 +1,7 @@
+package com.transferer.shared.outbox;
+
+public class OutboxDeadLetterNotFoundException extends RuntimeException {
+    public OutboxDeadLetterNotFoundException(String message) {
+        super(message);
+    }
+}
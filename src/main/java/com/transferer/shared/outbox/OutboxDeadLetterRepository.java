@@ -0,0 +1,27 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface OutboxDeadLetterRepository extends R2dbcRepository<OutboxDeadLetter, Long> {
+
+    @Query("SELECT * FROM outbox_dead_letters ORDER BY id ASC LIMIT :limit")
+    Flux<OutboxDeadLetter> findOldest(int limit);
+
+    /**
+     * Copies a dead letter back into the outbox as a fresh row with no attempts, at the tail of
+     * the id sequence.
+     */
+    @Modifying
+    @Query("INSERT INTO outbox_events (event_id, event_type, aggregate_id, event_data, event_payload, codec, occurred_at, created_at) " +
+            "SELECT event_id, event_type, aggregate_id, event_data, event_payload, codec, occurred_at, :now " +
+            "FROM outbox_dead_letters WHERE id = :id")
+    Mono<Integer> requeue(Long id, Instant now);
+}
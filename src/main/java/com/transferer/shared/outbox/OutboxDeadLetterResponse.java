@@ -0,0 +1,63 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+
+import java.time.Instant;
+
+public class OutboxDeadLetterResponse {
+
+    private Long id;
+    private String eventId;
+    private DomainEventType eventType;
+    private String aggregateId;
+    private int attempts;
+    private String lastError;
+    private Instant occurredAt;
+    private Instant deadLetteredAt;
+
+    public OutboxDeadLetterResponse() {
+    }
+
+    public OutboxDeadLetterResponse(OutboxDeadLetter deadLetter) {
+        this.id = deadLetter.getId();
+        this.eventId = deadLetter.getEventId();
+        this.eventType = deadLetter.getEventType();
+        this.aggregateId = deadLetter.getAggregateId();
+        this.attempts = deadLetter.getAttempts();
+        this.lastError = deadLetter.getLastError();
+        this.occurredAt = deadLetter.getOccurredAt();
+        this.deadLetteredAt = deadLetter.getDeadLetteredAt();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public DomainEventType getEventType() {
+        return eventType;
+    }
+
+    public String getAggregateId() {
+        return aggregateId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public Instant getDeadLetteredAt() {
+        return deadLetteredAt;
+    }
+}
@@ -0,0 +1,56 @@
+package com.transferer.shared.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Service
+@Transactional
+public class OutboxDeadLetterService {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDeadLetterService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDeadLetterRepository outboxDeadLetterRepository;
+    private final OutboxNotifier outboxNotifier;
+
+    public OutboxDeadLetterService(
+            OutboxEventRepository outboxEventRepository,
+            OutboxDeadLetterRepository outboxDeadLetterRepository,
+            OutboxNotifier outboxNotifier) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxDeadLetterRepository = outboxDeadLetterRepository;
+        this.outboxNotifier = outboxNotifier;
+    }
+
+    /**
+     * Moves a claimed event out of the outbox so that it no longer holds back its aggregate or
+     * takes up batch capacity. Does nothing if the claim was lost in the meantime.
+     */
+    public Mono<Void> deadLetter(OutboxEvent outboxEvent, String owner, String lastError) {
+        return outboxEventRepository.copyToDeadLetters(outboxEvent.getId(), owner, lastError, Instant.now())
+                .filter(copiedCount -> copiedCount > 0)
+                .flatMap(copiedCount -> outboxEventRepository.deleteClaimedEvent(outboxEvent.getId(), owner))
+                .doOnNext(deletedCount -> logger.warn("Moved outbox event {} ({}) to dead letters after {} attempts: {}",
+                        outboxEvent.getEventId(), outboxEvent.getEventType(), outboxEvent.getAttempts() + 1, lastError))
+                .then();
+    }
+
+    @Transactional(readOnly = true)
+    public Flux<OutboxDeadLetter> getDeadLetters(int limit) {
+        return outboxDeadLetterRepository.findOldest(limit);
+    }
+
+    public Mono<Void> replay(Long deadLetterId) {
+        return outboxDeadLetterRepository.findById(deadLetterId)
+                .switchIfEmpty(Mono.error(new OutboxDeadLetterNotFoundException("Dead letter not found with ID: " + deadLetterId)))
+                .flatMap(deadLetter -> outboxDeadLetterRepository.requeue(deadLetter.getId(), Instant.now())
+                        .then(outboxDeadLetterRepository.delete(deadLetter))
+                        .doOnSuccess(ignored -> logger.info("Replaying dead-lettered outbox event {}", deadLetter.getEventId())))
+                .then(outboxNotifier.notifyWithinTransaction());
+    }
+}
@@ -0,0 +1,95 @@
+package com.transferer.shared.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Acknowledgements for events the {@link OutboxEventBus} delivered in-process under
+ * {@link OutboxDispatchMode#HYBRID}. The {@link OutboxEventProcessor} drains them in bulk and marks
+ * their rows as processed, so no node republishes them. The log is bounded: once it is full the
+ * oldest acknowledgement is dropped, and that event is simply republished after the grace window,
+ * which subscribers already tolerate as a redelivery.
+ * <p>
+ * The processor also flushes the log on its own every {@link #acknowledgeInterval()}, since an idle
+ * processor may not start a batch for longer than the grace window. The interval must therefore be
+ * shorter than the grace window, or other nodes would republish events this node already delivered.
+ */
+@Component
+public class OutboxDispatchLog {
+
+    private final OutboxDispatchMode mode;
+    private final Duration graceWindow;
+    private final Duration acknowledgeInterval;
+    private final BlockingQueue<String> dispatchedEventIds;
+
+    public OutboxDispatchLog(
+            @Value("${outbox.processor.mode:poll}") OutboxDispatchMode mode,
+            @Value("${outbox.processor.grace-window:5000}") long graceWindowMillis,
+            @Value("${outbox.processor.acknowledge-interval:1000}") long acknowledgeIntervalMillis,
+            @Value("${outbox.processor.dispatch-log-capacity:10000}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Outbox dispatch log capacity must be at least 1");
+        }
+        if (mode == OutboxDispatchMode.HYBRID && (acknowledgeIntervalMillis < 1 || acknowledgeIntervalMillis >= graceWindowMillis)) {
+            throw new IllegalArgumentException("Outbox acknowledge interval (" + acknowledgeIntervalMillis
+                    + "ms) must be positive and shorter than the grace window (" + graceWindowMillis + "ms)");
+        }
+        this.mode = mode;
+        this.graceWindow = Duration.ofMillis(graceWindowMillis);
+        this.acknowledgeInterval = Duration.ofMillis(acknowledgeIntervalMillis);
+        this.dispatchedEventIds = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public static OutboxDispatchLog polling() {
+        return new OutboxDispatchLog(OutboxDispatchMode.POLL, 0, 0, 1);
+    }
+
+    public static OutboxDispatchLog hybrid(Duration graceWindow, int capacity) {
+        return new OutboxDispatchLog(OutboxDispatchMode.HYBRID, graceWindow.toMillis(), graceWindow.toMillis() / 2, capacity);
+    }
+
+    /**
+     * Whether the bus delivers events in-process right after commit.
+     */
+    public boolean isHybrid() {
+        return mode == OutboxDispatchMode.HYBRID;
+    }
+
+    /**
+     * How old an unacknowledged event must be before the processor republishes it.
+     */
+    public Duration graceWindow() {
+        return graceWindow;
+    }
+
+    /**
+     * How often the processor flushes the log when no batch does it first.
+     */
+    public Duration acknowledgeInterval() {
+        return acknowledgeInterval;
+    }
+
+    public void record(String eventId) {
+        if (!isHybrid()) {
+            return;
+        }
+        while (!dispatchedEventIds.offer(eventId)) {
+            dispatchedEventIds.poll();
+        }
+    }
+
+    /**
+     * Removes and returns up to {@code max} acknowledged event IDs, oldest first.
+     */
+    public List<String> drain(int max) {
+        List<String> eventIds = new ArrayList<>(Math.min(max, dispatchedEventIds.size()));
+        dispatchedEventIds.drainTo(eventIds, max);
+        return eventIds;
+    }
+}
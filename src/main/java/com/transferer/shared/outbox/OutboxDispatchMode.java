@@ -0,0 +1,15 @@
+package com.transferer.shared.outbox;
+
+/**
+ * How the {@link OutboxEventProcessor} treats events that the {@link OutboxEventBus} already
+ * delivered in-process when their transaction committed.
+ */
+public enum OutboxDispatchMode {
+    /** The processor republishes every row it claims, whether or not it was delivered in-process. */
+    POLL,
+    /**
+     * In-process deliveries are acknowledged, and the processor only republishes rows that are
+     * still unacknowledged once the grace window has passed.
+     */
+    HYBRID
+}
@@ -0,0 +1,37 @@
+package com.transferer.shared.outbox;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the outbox drain loop. Batches start at {@code initialBatchSize} and adapt between
+ * {@code minBatchSize} and {@code maxBatchSize} to keep each batch within
+ * {@code targetBatchLatency}. Once the outbox is empty, the fallback poll backs off from
+ * {@code minIdleDelay} to {@code maxIdleDelay}.
+ */
+public record OutboxDrainPolicy(
+        int initialBatchSize,
+        int minBatchSize,
+        int maxBatchSize,
+        Duration targetBatchLatency,
+        Duration minIdleDelay,
+        Duration maxIdleDelay) {
+
+    public OutboxDrainPolicy {
+        if (minBatchSize < 1 || minBatchSize > maxBatchSize) {
+            throw new IllegalArgumentException("Outbox batch size bounds must satisfy 1 <= min <= max");
+        }
+        if (initialBatchSize < minBatchSize || initialBatchSize > maxBatchSize) {
+            throw new IllegalArgumentException("Outbox initial batch size must lie within its bounds");
+        }
+    }
+
+    public static OutboxDrainPolicy fixedBatchSize(int batchSize, Duration minIdleDelay, Duration maxIdleDelay) {
+        return new OutboxDrainPolicy(batchSize, batchSize, batchSize, Duration.ofDays(1), minIdleDelay, maxIdleDelay);
+    }
+
+    public Duration idleDelayAfter(int emptyPolls) {
+        int exponent = Math.min(Math.max(emptyPolls, 0), 30);
+        Duration delay = minIdleDelay.multipliedBy(1L << exponent);
+        return delay.compareTo(maxIdleDelay) > 0 ? maxIdleDelay : delay;
+    }
+}
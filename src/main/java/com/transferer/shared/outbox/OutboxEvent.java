@@ -1,6 +1,7 @@
 package com.transferer.shared.outbox;
 
 import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.outbox.codec.JacksonEventCodec;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -25,12 +26,33 @@ public class OutboxEvent {
     @Column("event_data")
     private String eventData;
     
+    @Column("event_payload")
+    private byte[] eventPayload;
+    
+    @Column("codec")
+    private String codec;
+    
     @Column("occurred_at")
     private Instant occurredAt;
     
     @Column("processed_at")
     private Instant processedAt;
     
+    @Column("claimed_by")
+    private String claimedBy;
+    
+    @Column("claimed_until")
+    private Instant claimedUntil;
+    
+    @Column("attempts")
+    private int attempts;
+    
+    @Column("next_attempt_at")
+    private Instant nextAttemptAt;
+    
+    @Column("last_error")
+    private String lastError;
+    
     @Column("created_at")
     private Instant createdAt;
 
@@ -39,6 +61,7 @@ public class OutboxEvent {
         this.eventType = eventType;
         this.aggregateId = aggregateId;
         this.eventData = eventData;
+        this.codec = JacksonEventCodec.JSON;
         this.occurredAt = occurredAt;
         this.createdAt = Instant.now();
     }
@@ -83,6 +106,22 @@ public class OutboxEvent {
         this.eventData = eventData;
     }
 
+    public byte[] getEventPayload() {
+        return eventPayload;
+    }
+
+    public void setEventPayload(byte[] eventPayload) {
+        this.eventPayload = eventPayload;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
     public Instant getOccurredAt() {
         return occurredAt;
     }
@@ -99,6 +138,46 @@ public class OutboxEvent {
         this.processedAt = processedAt;
     }
 
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Instant getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Instant claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
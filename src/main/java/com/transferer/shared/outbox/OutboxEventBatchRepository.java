@@ -0,0 +1,28 @@
+package com.transferer.shared.outbox;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventBatchRepository {
+
+    /**
+     * Inserts the events with as few statements as possible: one multi-row INSERT per chunk
+     * rather than one round trip per row.
+     */
+    Mono<Integer> insertAll(List<OutboxEvent> outboxEvents);
+
+    /**
+     * Leases up to {@code limit} unprocessed events after the {@code afterId} cursor that occurred
+     * no later than {@code occurredBefore}, if given, to {@code owner} until {@code leaseUntil}. Rows locked by
+     * a concurrent claim or backing off after a failure are skipped, and an event is only claimable
+     * once no earlier event of the same aggregate is leased to someone else, backing off, or still
+     * pending behind the cursor.
+     * <p>
+     * That check only sees committed claims, so on Postgres claims are serialised across processor
+     * instances with a transaction-scoped advisory lock taken before the claim statement, which
+     * keeps per-aggregate ordering across nodes. H2 is single-node only and claims without it.
+     */
+    Mono<Integer> claimEvents(String owner, long afterId, Instant now, Instant leaseUntil, Instant occurredBefore, int limit);
+}
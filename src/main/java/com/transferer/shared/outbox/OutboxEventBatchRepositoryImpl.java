@@ -0,0 +1,110 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.infrastructure.DatabaseDialect;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.StringJoiner;
+
+class OutboxEventBatchRepositoryImpl implements OutboxEventBatchRepository {
+    // Keeps a chunk well below the 65535 bind parameter limit of the Postgres wire protocol
+    static final int INSERT_CHUNK_SIZE = 500;
+    // Arbitrary application-wide key of the advisory lock that serialises outbox claims
+    static final long CLAIM_LOCK_KEY = 0x6f7574626f78L;
+
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_events SET claimed_by = :owner, claimed_until = :leaseUntil WHERE id IN (" +
+            "SELECT candidate.id FROM outbox_events candidate " +
+            "WHERE candidate.processed_at IS NULL AND candidate.id > :afterId " +
+            "AND (:occurredBefore IS NULL OR candidate.occurred_at <= :occurredBefore) " +
+            "AND (candidate.claimed_until IS NULL OR candidate.claimed_until < :now) " +
+            "AND (candidate.next_attempt_at IS NULL OR candidate.next_attempt_at <= :now) " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_events earlier " +
+            "WHERE earlier.aggregate_id = candidate.aggregate_id AND earlier.id < candidate.id " +
+            "AND earlier.processed_at IS NULL " +
+            "AND (earlier.claimed_until >= :now OR earlier.next_attempt_at > :now OR earlier.id <= :afterId)) " +
+            "ORDER BY candidate.id ASC LIMIT :limit FOR UPDATE SKIP LOCKED)";
+
+    private final DatabaseClient databaseClient;
+    private final DatabaseDialect dialect;
+    private final TransactionalOperator transactionalOperator;
+
+    OutboxEventBatchRepositoryImpl(
+            DatabaseClient databaseClient,
+            ConnectionFactory connectionFactory,
+            ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        this.dialect = DatabaseDialect.of(connectionFactory);
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    @Override
+    public Mono<Integer> insertAll(List<OutboxEvent> outboxEvents) {
+        if (outboxEvents.isEmpty()) {
+            return Mono.just(0);
+        }
+        return Flux.fromIterable(outboxEvents)
+                .buffer(INSERT_CHUNK_SIZE)
+                .concatMap(this::insertChunk)
+                .reduce(0, Integer::sum);
+    }
+
+    private Mono<Integer> insertChunk(List<OutboxEvent> chunk) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < chunk.size(); i++) {
+            values.add("(:eventId" + i + ", :eventType" + i + ", :aggregateId" + i + ", "
+                    + dialect.jsonValue(":eventData" + i) + ", :eventPayload" + i + ", :codec" + i + ", "
+                    + ":occurredAt" + i + ", :createdAt" + i + ")");
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                "INSERT INTO outbox_events (event_id, event_type, aggregate_id, event_data, event_payload, codec, occurred_at, created_at) VALUES "
+                        + values);
+        for (int i = 0; i < chunk.size(); i++) {
+            OutboxEvent outboxEvent = chunk.get(i);
+            Instant createdAt = outboxEvent.getCreatedAt() != null ? outboxEvent.getCreatedAt() : Instant.now();
+            spec = spec.bind("eventId" + i, outboxEvent.getEventId())
+                    .bind("eventType" + i, outboxEvent.getEventType().name())
+                    .bind("aggregateId" + i, outboxEvent.getAggregateId())
+                    .bind("codec" + i, outboxEvent.getCodec())
+                    .bind("occurredAt" + i, outboxEvent.getOccurredAt())
+                    .bind("createdAt" + i, createdAt);
+            spec = bindNullable(spec, "eventData" + i, outboxEvent.getEventData(), String.class);
+            spec = bindNullable(spec, "eventPayload" + i, outboxEvent.getEventPayload(), byte[].class);
+        }
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    @Override
+    public Mono<Integer> claimEvents(String owner, long afterId, Instant now, Instant leaseUntil, Instant occurredBefore, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(CLAIM_SQL)
+                .bind("owner", owner)
+                .bind("leaseUntil", leaseUntil)
+                .bind("afterId", afterId)
+                .bind("now", now)
+                .bind("limit", limit);
+        Mono<Integer> claim = bindNullable(spec, "occurredBefore", occurredBefore, Instant.class)
+                .fetch().rowsUpdated().map(Long::intValue);
+        if (dialect != DatabaseDialect.POSTGRES) {
+            return claim;
+        }
+        // The ordering check only sees committed claims, so a claim running alongside another could
+        // overtake events that one is still leasing. Under READ COMMITTED the claim statement takes
+        // its snapshot once the lock is granted, after every earlier claim has committed.
+        return databaseClient.sql("SELECT pg_advisory_xact_lock(:key)")
+                .bind("key", CLAIM_LOCK_KEY)
+                .then()
+                .then(claim)
+                .as(transactionalOperator::transactional);
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(
+            DatabaseClient.GenericExecuteSpec spec, String name, T value, Class<T> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+}
@@ -0,0 +1,81 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Compact binary encoding of an {@link OutboxEvent} for storage outside the database. The payload
+ * is kept exactly as the codec produced it, so a decoded event deserializes like a row read back
+ * from the table.
+ */
+public final class OutboxEventBinaryFormat {
+    private static final byte TEXTUAL = 0;
+    private static final byte BINARY = 1;
+
+    private OutboxEventBinaryFormat() {
+    }
+
+    public static void write(DataOutputStream out, OutboxEvent outboxEvent) throws IOException {
+        out.writeLong(outboxEvent.getId() != null ? outboxEvent.getId() : 0);
+        out.writeUTF(outboxEvent.getEventId());
+        out.writeUTF(outboxEvent.getEventType().name());
+        out.writeUTF(outboxEvent.getAggregateId());
+        out.writeUTF(outboxEvent.getCodec());
+        writeInstant(out, outboxEvent.getOccurredAt());
+        writeInstant(out, outboxEvent.getProcessedAt());
+        writeInstant(out, outboxEvent.getCreatedAt());
+        byte[] payload;
+        if (outboxEvent.getEventData() != null) {
+            out.writeByte(TEXTUAL);
+            payload = outboxEvent.getEventData().getBytes(StandardCharsets.UTF_8);
+        } else {
+            out.writeByte(BINARY);
+            payload = outboxEvent.getEventPayload();
+        }
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    public static OutboxEvent read(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String eventId = in.readUTF();
+        DomainEventType eventType = DomainEventType.valueOf(in.readUTF());
+        String aggregateId = in.readUTF();
+        String codec = in.readUTF();
+        Instant occurredAt = readInstant(in);
+        Instant processedAt = readInstant(in);
+        Instant createdAt = readInstant(in);
+        byte kind = in.readByte();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+
+        OutboxEvent outboxEvent = new OutboxEvent(eventId, eventType, aggregateId, null, occurredAt);
+        outboxEvent.setId(id != 0 ? id : null);
+        outboxEvent.setCodec(codec);
+        outboxEvent.setProcessedAt(processedAt);
+        outboxEvent.setCreatedAt(createdAt);
+        if (kind == TEXTUAL) {
+            outboxEvent.setEventData(new String(payload, StandardCharsets.UTF_8));
+        } else {
+            outboxEvent.setEventPayload(payload);
+        }
+        return outboxEvent;
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeBoolean(instant != null);
+        if (instant != null) {
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+}
@@ -1,23 +1,31 @@
 package com.transferer.shared.outbox;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.events.AfterCommitDispatcher;
+import com.transferer.shared.events.BoundedEventSink;
+import com.transferer.shared.events.ConsumerStartPosition;
+import com.transferer.shared.events.DispatchOptions;
+import com.transferer.shared.events.EventConsumer;
+import com.transferer.shared.events.EventDispatcher;
+import com.transferer.shared.events.HandlerOptions;
+import com.transferer.shared.events.OverflowPolicy;
 import com.transferer.shared.events.TransactionalEventBus;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Component
 @Primary
@@ -26,59 +34,98 @@ public class OutboxEventBus implements TransactionalEventBus {
     private static final Logger logger = LoggerFactory.getLogger(OutboxEventBus.class);
     
     private final OutboxEventRepository outboxEventRepository;
-    private final ObjectMapper objectMapper;
-    private final Sinks.Many<DomainEvent<?>> eventSink;
-    private final ConcurrentHashMap<Class<? extends DomainEvent<?>>, CopyOnWriteArrayList<Consumer<DomainEvent<?>>>> subscribers;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final OutboxConsumers outboxConsumers;
+    private final BoundedEventSink<DomainEvent<?>> eventSink;
+    private final EventDispatcher eventDispatcher;
+    private final AfterCommitDispatcher afterCommitDispatcher;
+    private final OutboxDispatchLog dispatchLog;
     
-    public OutboxEventBus(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    public OutboxEventBus(
+            OutboxEventRepository outboxEventRepository,
+            OutboxEventSerializer outboxEventSerializer,
+            OutboxConsumers outboxConsumers,
+            MeterRegistry meterRegistry,
+            @Value("${eventbus.sink.capacity:1024}") int sinkCapacity,
+            @Value("${eventbus.sink.overflow-policy:drop-oldest}") OverflowPolicy overflowPolicy,
+            @Value("${eventbus.sink.block-timeout:100}") long blockTimeoutMillis,
+            DispatchOptions dispatchOptions,
+            OutboxDispatchLog dispatchLog) {
         this.outboxEventRepository = outboxEventRepository;
-        this.objectMapper = objectMapper;
-        this.eventSink = Sinks.many().multicast().onBackpressureBuffer();
-        this.subscribers = new ConcurrentHashMap<>();
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.outboxConsumers = outboxConsumers;
+        this.eventSink = new BoundedEventSink<>("outbox", sinkCapacity, overflowPolicy,
+                Duration.ofMillis(blockTimeoutMillis), meterRegistry);
+        this.eventDispatcher = new EventDispatcher("outbox", dispatchOptions, meterRegistry);
+        this.dispatchLog = dispatchLog;
+        this.afterCommitDispatcher = new AfterCommitDispatcher(event -> {
+            eventSink.emit(event);
+            notifySubscribers(event);
+            // Only reached once every subscription accepted the event, so the processor can skip its row
+            dispatchLog.record(event.getEventId());
+        });
     }
     
     @Override
     public Mono<Void> publish(DomainEvent<?> event) {
         return getOutboxEvent(event)
                 .flatMap(outboxEventRepository::save)
-                .doOnNext(savedEvent -> {
-                    // Emit to reactive stream after successful save
-                    eventSink.tryEmitNext(event);
-                    notifySubscribers(event);
-                })
-                .then();
+                // Emit to reactive stream and subscribers once the save is committed
+                .flatMap(savedEvent -> afterCommitDispatcher.dispatchAfterCommit(List.of(event)));
+    }
+
+    /**
+     * Hands events the caller has written to the outbox to subscribers once the surrounding
+     * transaction commits, acknowledging each one in the dispatch log.
+     */
+    public Mono<Void> dispatchAfterCommit(List<? extends DomainEvent<?>> events) {
+        return afterCommitDispatcher.dispatchAfterCommit(events);
+    }
+
+    /**
+     * Hands an event that is already in the outbox to subscribers without writing it again.
+     */
+    public Mono<Void> dispatch(DomainEvent<?> event) {
+        return Mono.fromRunnable(() -> {
+            eventSink.emit(event);
+            notifySubscribers(event);
+        });
     }
 
     // TODO do not publish to handlers; a separate process should scan the table
+    /**
+     * Subscribers receive the events once the transaction commits, including a surrounding
+     * transaction this one joins; if it rolls back they never see them. Repositories publish
+     * through {@link OutboxEventPublisher} instead, which comes back to
+     * {@link #dispatchAfterCommit} in hybrid mode.
+     */
     @Override
     public Mono<Void> publishWithinTransaction(List<DomainEvent<?>> events, TransactionalOperator transactionalOperator) {
         return Flux.fromIterable(events)
-                .flatMap(event -> 
-                    getOutboxEvent(event)
-                            .flatMap(outboxEventRepository::save)
-                            .doOnNext(savedEvent -> {
-                                // Emit the original event to reactive stream after successful save
-                                eventSink.tryEmitNext(event);
-                                notifySubscribers(event);
-                            })
-                            .then(Mono.just(event))
-                )
-                .as(transactionalOperator::transactional)
-                .then();
+                .concatMap(this::getOutboxEvent)
+                .collectList()
+                .flatMap(outboxEventRepository::insertAll)
+                .then(afterCommitDispatcher.dispatchAfterCommit(events))
+                .as(transactionalOperator::transactional);
     }
 
     @Override
     public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler) {
-        subscribers.computeIfAbsent(
-                eventClass,
-                k -> new CopyOnWriteArrayList<>()
-        ).add(event -> {
-            if (eventClass.isInstance(event)) {
-                handler.accept(eventClass.cast(event));
-            }
-        });
+        eventDispatcher.subscribe(eventClass, handler);
         logger.debug("Subscribed handler to event class: {}", eventClass.getSimpleName());
     }
+
+    @Override
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler, DispatchOptions options) {
+        eventDispatcher.subscribe(eventClass, handler, options);
+        logger.debug("Subscribed {} handler to event class: {}", options.mode(), eventClass.getSimpleName());
+    }
+
+    @Override
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Function<T, Mono<Void>> handler, HandlerOptions options) {
+        eventDispatcher.subscribe(eventClass, handler, options);
+        logger.debug("Subscribed reactive handler to event class: {} with {}", eventClass.getSimpleName(), options);
+    }
     
     @Override
     public Flux<DomainEvent<?>> eventStream() {
@@ -89,41 +136,27 @@ public class OutboxEventBus implements TransactionalEventBus {
     public Flux<DomainEvent<?>> eventStream(DomainEventType eventType) {
         return eventSink.asFlux().filter(event -> event.getEventType().equals(eventType));
     }
+
+    @Override
+    public Flux<DomainEvent<?>> eventStream(int capacity, OverflowPolicy overflowPolicy) {
+        return eventSink.asFlux(capacity, overflowPolicy);
+    }
     
-    private void notifySubscribers(DomainEvent<?> event) {
-        // Notify class-based subscribers
-        CopyOnWriteArrayList<Consumer<DomainEvent<?>>> handlers = subscribers.get(event.getClass());
-        if (handlers != null) {
-            handlers.forEach(handler -> {
-                try {
-                    handler.accept(event);
-                } catch (Exception e) {
-                    logger.error("Error in event handler for class {}: {}", event.getClass().getSimpleName(), e.getMessage(), e);
-                }
-            });
-        }
+    /**
+     * Consumers read the outbox table from their own offsets rather than the in-process stream, so
+     * they see events from every node and pick up where they left off after a restart.
+     */
+    @Override
+    public Disposable consume(String consumerName, ConsumerStartPosition startPosition, EventConsumer consumer) {
+        return outboxConsumers.register(consumerName, startPosition, consumer);
     }
     
-    private Mono<String> serializeEvent(DomainEvent<?> event) {
-        return Mono.fromCallable(() -> {
-            try {
-                return objectMapper.writeValueAsString(event.getBody());
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException("Failed to serialize event: " + event.getEventId(), e);
-            }
-        });
+    private void notifySubscribers(DomainEvent<?> event) {
+        // Notify class-based subscribers; queued subscriptions only enqueue here
+        eventDispatcher.dispatch(event);
     }
     
     private Mono<OutboxEvent> getOutboxEvent(DomainEvent<?> event) {
-        return serializeEvent(event)
-                .map(eventBody ->
-                        new OutboxEvent(
-                                event.getEventId(),
-                                event.getEventType(),
-                                event.getAggregateId(),
-                                eventBody,
-                                event.getOccurredAt()
-                        )
-                );
+        return Mono.fromCallable(() -> outboxEventSerializer.serialize(event));
     }
 }
\ No newline at end of file
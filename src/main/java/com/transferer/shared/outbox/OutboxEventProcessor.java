@@ -1,98 +1,417 @@
 package com.transferer.shared.outbox;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.events.EventPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
-public class OutboxEventProcessor {
+@Profile("!journal")
+public class OutboxEventProcessor implements SmartLifecycle {
     private static final Logger logger = LoggerFactory.getLogger(OutboxEventProcessor.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
     
     private final OutboxEventRepository outboxEventRepository;
     private final EventPublisher eventPublisher;
-    private final ObjectMapper objectMapper;
-    private final int batchSize;
-    private final Duration cleanupRetention;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final OutboxNotifier outboxNotifier;
+    private final OutboxDeadLetterService outboxDeadLetterService;
+    private final OutboxMetrics outboxMetrics;
+    private final OutboxDispatchLog dispatchLog;
+    private final OutboxRetryPolicy retryPolicy;
+    private final OutboxDrainPolicy drainPolicy;
+    private final AdaptiveBatchSize batchSize;
+    private final int lanes;
+    private final String instanceId;
+    private final Duration leaseDuration;
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicInteger emptyPolls = new AtomicInteger();
+    private final AtomicLong retryWakeUpAt = new AtomicLong();
+    private final Disposable.Swap idlePoll = Disposables.swap();
+    private final Disposable.Swap acknowledgements = Disposables.swap();
+    private final Disposable.Swap retryWakeUp = Disposables.swap();
+    private volatile Disposable signalSubscription;
     
+    @Autowired
     public OutboxEventProcessor(
+            OutboxEventRepository outboxEventRepository,
+            OutboxEventBus outboxEventBus,
+            OutboxEventSerializer outboxEventSerializer,
+            OutboxNotifier outboxNotifier,
+            OutboxDeadLetterService outboxDeadLetterService,
+            OutboxMetrics outboxMetrics,
+            OutboxDispatchLog dispatchLog,
+            @Value("${outbox.processor.batch-size.initial:100}") int initialBatchSize,
+            @Value("${outbox.processor.batch-size.min:10}") int minBatchSize,
+            @Value("${outbox.processor.batch-size.max:1000}") int maxBatchSize,
+            @Value("${outbox.processor.batch-size.target-latency:500}") long targetBatchLatencyMillis,
+            @Value("${outbox.processor.idle-delay.min:250}") long minIdleDelayMillis,
+            @Value("${outbox.processor.idle-delay.max:30000}") long maxIdleDelayMillis,
+            @Value("${outbox.processor.lanes:4}") int lanes,
+            @Value("${outbox.processor.instance-id:${random.uuid}}") String instanceId,
+            @Value("${outbox.processor.lease-duration:30000}") long leaseDurationMillis,
+            @Value("${outbox.processor.retry.max-attempts:10}") int maxAttempts,
+            @Value("${outbox.processor.retry.initial-backoff:1000}") long initialBackoffMillis,
+            @Value("${outbox.processor.retry.max-backoff:300000}") long maxBackoffMillis,
+            @Value("${outbox.processor.batch-size:#{null}}") String legacyBatchSize,
+            @Value("${outbox.processor.interval:#{null}}") String legacyInterval) {
+        // Events read back from the table go straight to subscribers; publishing them through the
+        // bus would append them to the outbox a second time
+        this(outboxEventRepository, outboxEventBus::dispatch, outboxEventSerializer, outboxNotifier,
+                outboxDeadLetterService, outboxMetrics, dispatchLog,
+                new OutboxRetryPolicy(maxAttempts, Duration.ofMillis(initialBackoffMillis), Duration.ofMillis(maxBackoffMillis)),
+                drainPolicy(legacyBatchSize, legacyInterval, initialBatchSize, minBatchSize, maxBatchSize,
+                        targetBatchLatencyMillis, minIdleDelayMillis, maxIdleDelayMillis),
+                lanes, instanceId, leaseDurationMillis);
+    }
+
+    OutboxEventProcessor(
             OutboxEventRepository outboxEventRepository,
             EventPublisher eventPublisher,
-            ObjectMapper objectMapper,
-            @Value("${outbox.processor.batch-size:100}") int batchSize,
-            @Value("${outbox.processor.cleanup-retention-days:7}") int cleanupRetentionDays) {
+            OutboxEventSerializer outboxEventSerializer,
+            OutboxNotifier outboxNotifier,
+            OutboxDeadLetterService outboxDeadLetterService,
+            OutboxMetrics outboxMetrics,
+            OutboxDispatchLog dispatchLog,
+            OutboxRetryPolicy retryPolicy,
+            OutboxDrainPolicy drainPolicy,
+            int lanes,
+            String instanceId,
+            long leaseDurationMillis) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Outbox processor lanes must be at least 1");
+        }
         this.outboxEventRepository = outboxEventRepository;
         this.eventPublisher = eventPublisher;
-        this.objectMapper = objectMapper;
-        this.batchSize = batchSize;
-        this.cleanupRetention = Duration.ofDays(cleanupRetentionDays);
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.outboxNotifier = outboxNotifier;
+        this.outboxDeadLetterService = outboxDeadLetterService;
+        this.outboxMetrics = outboxMetrics;
+        this.dispatchLog = dispatchLog;
+        this.retryPolicy = retryPolicy;
+        this.drainPolicy = drainPolicy;
+        this.batchSize = new AdaptiveBatchSize(drainPolicy);
+        this.lanes = lanes;
+        this.instanceId = instanceId;
+        this.leaseDuration = Duration.ofMillis(leaseDurationMillis);
+        outboxMetrics.registerBatchSize(batchSize::current);
+    }
+
+    private static OutboxDrainPolicy drainPolicy(
+            String legacyBatchSize,
+            String legacyInterval,
+            int initialBatchSize,
+            int minBatchSize,
+            int maxBatchSize,
+            long targetBatchLatencyMillis,
+            long minIdleDelayMillis,
+            long maxIdleDelayMillis) {
+        // The packaged defaults for the nested keys would win over an old scalar override, silently
+        // ignoring it
+        rejectLegacyProperty("outbox.processor.batch-size", legacyBatchSize, "outbox.processor.batch-size.initial");
+        rejectLegacyProperty("outbox.processor.interval", legacyInterval, "outbox.processor.idle-delay.max");
+        return new OutboxDrainPolicy(initialBatchSize, minBatchSize, maxBatchSize, Duration.ofMillis(targetBatchLatencyMillis),
+                Duration.ofMillis(minIdleDelayMillis), Duration.ofMillis(maxIdleDelayMillis));
+    }
+
+    private static void rejectLegacyProperty(String name, String value, String replacement) {
+        if (value != null) {
+            throw new IllegalStateException(name + " is no longer supported; set " + replacement + " instead");
+        }
     }
     
-    @Scheduled(fixedDelayString = "${outbox.processor.interval:5000}")
-    public void processOutboxEvents() {
-        outboxEventRepository.findUnprocessedEvents(batchSize)
-                .flatMap(this::processEvent)
+    @Override
+    public void start() {
+        signalSubscription = outboxNotifier.signals()
+                .subscribe(
+                    channel -> requestDrain(),
+                    error -> logger.error("Outbox notification stream terminated", error)
+                );
+        if (dispatchLog.isHybrid()) {
+            // Batches flush the log too, but an idle processor may not start one within the grace window
+            acknowledgements.update(Flux.interval(dispatchLog.acknowledgeInterval())
+                    .onBackpressureDrop()
+                    .concatMap(tick -> acknowledgeDispatchedEvents(batchSize.current()), 1)
+                    .subscribe());
+        }
+        requestDrain();
+    }
+
+    @Override
+    public void stop() {
+        Disposable subscription = signalSubscription;
+        signalSubscription = null;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        idlePoll.update(Disposables.disposed());
+        acknowledgements.update(Disposables.disposed());
+        retryWakeUp.update(Disposables.disposed());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return signalSubscription != null;
+    }
+
+    /**
+     * Drains the outbox in a single loop per node: the next batch is claimed straight away while
+     * batches come back full, and signals arriving mid-drain are coalesced into one more pass
+     * instead of starting concurrent drains. Once a batch comes back short the loop parks on a
+     * fallback poll, for signals that never arrive (e.g. while the notification listener is
+     * reconnecting), whose delay doubles with every consecutive empty batch.
+     */
+    void requestDrain() {
+        if (!isRunning()) {
+            return;
+        }
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        drainRequested.set(false);
+        int limit = batchSize.current();
+        dispatchBatch()
                 .onErrorResume(error -> {
-                    logger.error("Error processing outbox events", error);
-                    return Mono.empty();
+                    logger.error("Unexpected error in outbox event processing", error);
+                    return Mono.just(0L);
                 })
-                .collectList()
                 .subscribeOn(Schedulers.boundedElastic())
-                .subscribe(
-                    processedCount -> {
-                        if (!processedCount.isEmpty()) {
-                            logger.info("Processed {} outbox events", processedCount.size());
-                        }
-                    },
-                    error -> logger.error("Unexpected error in outbox event processing", error)
-                );
+                .subscribe(processedCount -> {
+                    if (processedCount > 0) {
+                        logger.info("Processed {} outbox events", processedCount);
+                    }
+                    draining.set(false);
+                    if (processedCount >= limit || drainRequested.get()) {
+                        requestDrain();
+                    } else {
+                        scheduleIdlePoll(processedCount > 0);
+                    }
+                });
+    }
+
+    private void scheduleIdlePoll(boolean foundEvents) {
+        if (!isRunning()) {
+            return;
+        }
+        int polls = foundEvents ? 0 : emptyPolls.getAndIncrement();
+        if (foundEvents) {
+            emptyPolls.set(0);
+        }
+        Duration delay = drainPolicy.idleDelayAfter(polls);
+        // Replacing the pending poll cancels it, so drains triggered by signals never leave extra polls behind
+        idlePoll.update(Mono.delay(delay).subscribe(tick -> requestDrain()));
     }
     
-    @Scheduled(fixedDelayString = "${outbox.processor.cleanup-interval:3600000}")
-    public void cleanupProcessedEvents() {
-        Instant cutoff = Instant.now().minus(cleanupRetention);
-        outboxEventRepository.deleteProcessedEventsBefore(cutoff)
+    @Scheduled(fixedDelayString = "${outbox.processor.lease-reaper-interval:60000}")
+    public void releaseExpiredLeases() {
+        outboxEventRepository.releaseExpiredLeases(Instant.now())
                 .subscribeOn(Schedulers.boundedElastic())
                 .subscribe(
-                    deletedCount -> {
-                        if (deletedCount > 0) {
-                            logger.info("Cleaned up {} processed outbox events older than {}", deletedCount, cutoff);
+                    releasedCount -> {
+                        if (releasedCount > 0) {
+                            logger.info("Released {} expired outbox event leases", releasedCount);
                         }
                     },
-                    error -> logger.error("Error cleaning up processed outbox events", error)
+                    error -> logger.error("Error releasing expired outbox event leases", error)
                 );
     }
+
+    /**
+     * Claims and dispatches one batch of unprocessed events past the id cursor. The cursor advances
+     * while batches come back full, so a drain never rescans rows it has already passed. Events are
+     * hashed on their aggregate ID into a fixed number of lanes; each lane publishes strictly in
+     * claim order while the lanes themselves run in parallel. Dispatched events are marked as
+     * processed with one set-based update, and whatever is left unprocessed is released for the
+     * next claim. How long the batch took feeds back into the size of the next one.
+     * <p>
+     * In hybrid mode, events the bus already delivered in-process are marked as processed first,
+     * and only events older than the grace window are claimed, so the processor just catches
+     * whatever in-process delivery missed.
+     */
+    Mono<Long> dispatchBatch() {
+        String claimToken = instanceId + ":" + claimSequence.incrementAndGet();
+        int limit = batchSize.current();
+        long startedAt = System.nanoTime();
+        return acknowledgeDispatchedEvents(limit)
+                .then(Mono.defer(() -> {
+                    Instant now = Instant.now();
+                    Instant occurredBefore = dispatchLog.isHybrid() ? now.minus(dispatchLog.graceWindow()) : null;
+                    return outboxEventRepository.claimEvents(claimToken, cursor.get(), now, now.plus(leaseDuration),
+                            occurredBefore, limit);
+                }))
+                .doOnNext(claimedCount -> {
+                    outboxMetrics.recordBatch(claimedCount, limit);
+                    if (claimedCount < limit) {
+                        // The scan reached the tail; start over so that released, failed or
+                        // late-committing events behind the cursor are picked up again
+                        cursor.set(0);
+                    }
+                })
+                .filter(claimedCount -> claimedCount > 0)
+                .flatMapMany(claimedCount -> outboxEventRepository.findClaimedEvents(claimToken)
+                        .doOnNext(outboxEvent -> {
+                            if (claimedCount >= limit) {
+                                cursor.accumulateAndGet(outboxEvent.getId(), Math::max);
+                            }
+                        }))
+                .groupBy(this::laneOf)
+                .flatMap(lane -> processLane(lane, claimToken), lanes)
+                .buffer(limit)
+                .concatMap(dispatched -> markEventsAsProcessed(dispatched, claimToken))
+                .onErrorResume(error -> {
+                    logger.error("Error processing outbox events", error);
+                    return Mono.empty();
+                })
+                .reduce(0L, Long::sum)
+                .doOnNext(processedCount -> batchSize.record(processedCount, limit, Duration.ofNanos(System.nanoTime() - startedAt)))
+                .flatMap(processedCount -> outboxEventRepository.releaseClaims(claimToken)
+                        .onErrorResume(error -> {
+                            logger.warn("Failed to release outbox claim {}; leases will expire", claimToken, error);
+                            return Mono.just(0);
+                        })
+                        .thenReturn(processedCount));
+    }
+
+    private Mono<Void> acknowledgeDispatchedEvents(int chunkSize) {
+        return Flux.defer(() -> Flux.fromIterable(dispatchLog.drain(Integer.MAX_VALUE)))
+                .buffer(chunkSize)
+                .concatMap(eventIds -> outboxEventRepository.markAllAsDispatched(eventIds, Instant.now()))
+                .reduce(0, Integer::sum)
+                .doOnNext(acknowledgedCount -> {
+                    if (acknowledgedCount > 0) {
+                        logger.debug("Marked {} outbox events delivered in-process as processed", acknowledgedCount);
+                    }
+                })
+                .onErrorResume(error -> {
+                    // Those events are republished once their grace window has passed
+                    logger.warn("Failed to acknowledge outbox events delivered in-process", error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private int laneOf(OutboxEvent outboxEvent) {
+        return Math.floorMod(outboxEvent.getAggregateId().hashCode(), lanes);
+    }
+
+    private Flux<OutboxEvent> processLane(GroupedFlux<Integer, OutboxEvent> lane, String claimToken) {
+        // Once an event fails, later events for the same aggregate are held back until the next
+        // batch so that subscribers never observe them out of order.
+        Set<String> blockedAggregates = new HashSet<>();
+        return lane.publishOn(Schedulers.parallel())
+                .concatMap(outboxEvent -> {
+                    if (blockedAggregates.contains(outboxEvent.getAggregateId())) {
+                        logger.debug("Deferring outbox event {} until earlier events for aggregate {} are processed",
+                                outboxEvent.getEventId(), outboxEvent.getAggregateId());
+                        return Mono.empty();
+                    }
+                    return processEvent(outboxEvent, claimToken)
+                            .switchIfEmpty(Mono.fromRunnable(() -> blockedAggregates.add(outboxEvent.getAggregateId())));
+                });
+    }
     
-    private Mono<OutboxEvent> processEvent(OutboxEvent outboxEvent) {
+    private Mono<OutboxEvent> processEvent(OutboxEvent outboxEvent, String claimToken) {
         return deserializeAndPublishEvent(outboxEvent)
-                .then(markEventAsProcessed(outboxEvent))
+                .thenReturn(outboxEvent)
                 .onErrorResume(error -> {
                     logger.error("Failed to process outbox event: {} with ID: {}", 
                             outboxEvent.getEventType(), outboxEvent.getEventId(), error);
-                    return Mono.empty();
+                    return recordFailure(outboxEvent, claimToken, error).then(Mono.empty());
                 });
     }
-    
-    private Mono<Void> deserializeAndPublishEvent(OutboxEvent outboxEvent) {
-        return Mono.fromCallable(() -> deserializeEvent(outboxEvent))
-                .flatMap(eventPublisher::publish);
+
+    private Mono<Void> recordFailure(OutboxEvent outboxEvent, String claimToken, Throwable error) {
+        int attempts = outboxEvent.getAttempts() + 1;
+        String lastError = describe(error);
+        Mono<Void> outcome;
+        if (retryPolicy.isExhausted(attempts)) {
+            outcome = outboxDeadLetterService.deadLetter(outboxEvent, claimToken, lastError)
+                    .doOnSuccess(ignored -> outboxMetrics.recordDeadLettered(outboxEvent));
+        } else {
+            Duration backoff = retryPolicy.backoffAfter(attempts);
+            outcome = outboxEventRepository.recordFailure(outboxEvent.getId(), claimToken, lastError, Instant.now().plus(backoff))
+                    .doOnSuccess(updatedCount -> {
+                        if (updatedCount > 0) {
+                            outboxMetrics.recordRetried(outboxEvent);
+                            scheduleRetryWakeUp(backoff);
+                        }
+                    })
+                    .then();
+        }
+        return outcome.onErrorResume(recordError -> {
+            logger.error("Failed to record failure of outbox event {}", outboxEvent.getEventId(), recordError);
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Comes back for a failed event once its backoff has elapsed instead of waiting for the fallback
+     * poll. Only one wake-up is pending at a time and a failure can only bring it forward; events
+     * due after it are picked up by the fallback poll.
+     */
+    private synchronized void scheduleRetryWakeUp(Duration backoff) {
+        if (!isRunning()) {
+            return;
+        }
+        long dueAt = System.nanoTime() + backoff.toNanos();
+        long pending = retryWakeUpAt.get();
+        if (pending != 0 && pending - dueAt <= 0) {
+            return;
+        }
+        retryWakeUpAt.set(dueAt);
+        retryWakeUp.update(Mono.delay(backoff).subscribe(tick -> {
+            retryWakeUpAt.compareAndSet(dueAt, 0);
+            requestDrain();
+        }));
+    }
+
+    private static String describe(Throwable error) {
+        String description = error.getClass().getName() + ": " + error.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
     }
     
-    private DomainEvent deserializeEvent(OutboxEvent outboxEvent) throws Exception {
-        return objectMapper.readValue(outboxEvent.getEventData(), DomainEvent.class);
+    private Mono<Void> deserializeAndPublishEvent(OutboxEvent outboxEvent) {
+        return Mono.fromCallable(() -> outboxEventSerializer.deserialize(outboxEvent))
+                .flatMap(eventPublisher::publish)
+                .doOnSuccess(ignored -> outboxMetrics.recordPublished(outboxEvent));
     }
     
-    private Mono<OutboxEvent> markEventAsProcessed(OutboxEvent outboxEvent) {
-        return outboxEventRepository.markAsProcessed(outboxEvent.getId(), Instant.now())
-                .thenReturn(outboxEvent);
+    private Mono<Long> markEventsAsProcessed(List<OutboxEvent> outboxEvents, String claimToken) {
+        List<Long> ids = outboxEvents.stream().map(OutboxEvent::getId).toList();
+        return outboxEventRepository.markAllAsProcessed(ids, claimToken, Instant.now())
+                .doOnNext(updatedCount -> {
+                    if (updatedCount < ids.size()) {
+                        logger.warn("Lease on {} of {} outbox events was lost before they could be marked as processed",
+                                ids.size() - updatedCount, ids.size());
+                    }
+                })
+                .thenReturn((long) ids.size());
     }
-}
\ No newline at end of file
+}
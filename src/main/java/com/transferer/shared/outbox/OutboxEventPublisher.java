@@ -1,11 +1,10 @@
 package com.transferer.shared.outbox;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.events.EventPublisher;
 import com.transferer.shared.events.TransactionalEventPublisher;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
@@ -13,53 +12,61 @@ import reactor.core.publisher.Mono;
 
 import java.util.List;
 
+/**
+ * The publisher behind every repository: events are written to the outbox in the caller's
+ * transaction. Subscribers get them from the {@link OutboxEventProcessor}, which only ever reads
+ * committed rows, so they never race the transaction that wrote them. Under
+ * {@link OutboxDispatchMode#HYBRID} the {@link OutboxEventBus} also hands them to subscribers in
+ * this process as soon as the transaction commits, and the processor only republishes the ones
+ * that delivery missed.
+ */
 @Component
+@Profile("!journal")
 public class OutboxEventPublisher implements EventPublisher, TransactionalEventPublisher {
     private final OutboxEventRepository outboxEventRepository;
-    private final ObjectMapper objectMapper;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final OutboxNotifier outboxNotifier;
+    private final OutboxEventBus outboxEventBus;
+    private final OutboxDispatchLog dispatchLog;
     
-    public OutboxEventPublisher(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    public OutboxEventPublisher(
+            OutboxEventRepository outboxEventRepository,
+            OutboxEventSerializer outboxEventSerializer,
+            OutboxNotifier outboxNotifier,
+            OutboxEventBus outboxEventBus,
+            OutboxDispatchLog dispatchLog) {
         this.outboxEventRepository = outboxEventRepository;
-        this.objectMapper = objectMapper;
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.outboxNotifier = outboxNotifier;
+        this.outboxEventBus = outboxEventBus;
+        this.dispatchLog = dispatchLog;
     }
     
     @Override
     public Mono<Void> publish(DomainEvent<?> event) {
         return getOutboxEvent(event)
                 .flatMap(outboxEventRepository::save)
-                .then();
-    }
-    
-    private Mono<String> serializeEvent(DomainEvent<?> event) {
-        return Mono.fromCallable(() -> {
-            try {
-                return objectMapper.writeValueAsString(event.getBody());
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException("Failed to serialize event: " + event.getEventId(), e);
-            }
-        });
+                .then(outboxNotifier.notifyWithinTransaction())
+                .then(dispatchInProcess(List.of(event)));
     }
     
     @Override
     public Mono<Void> publishWithinTransaction(List<DomainEvent<?>> events, TransactionalOperator transactionalOperator) {
         return Flux.fromIterable(events)
-                .flatMap(this::getOutboxEvent)
-                .flatMap(outboxEventRepository::save)
-                .as(transactionalOperator::transactional)
-                .then();
+                .concatMap(this::getOutboxEvent)
+                .collectList()
+                .flatMap(outboxEventRepository::insertAll)
+                .then(outboxNotifier.notifyWithinTransaction())
+                .then(dispatchInProcess(events))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Void> dispatchInProcess(List<DomainEvent<?>> events) {
+        return dispatchLog.isHybrid() ? outboxEventBus.dispatchAfterCommit(events) : Mono.empty();
     }
 
     private Mono<OutboxEvent> getOutboxEvent(DomainEvent<?> event) {
-        return serializeEvent(event)
-                .map(eventBody ->
-                        new OutboxEvent(
-                                event.getEventId(),
-                                event.getEventType(),
-                                event.getAggregateId(),
-                                eventBody,
-                                event.getOccurredAt()
-                        )
-                );
+        return Mono.fromCallable(() -> outboxEventSerializer.serialize(event));
     }
     
 }
@@ -1,5 +1,6 @@
 package com.transferer.shared.outbox;
 
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
@@ -7,16 +8,93 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.Collection;
 
 @Repository
-public interface OutboxEventRepository extends R2dbcRepository<OutboxEvent, Long> {
-    
-    @Query("SELECT * FROM outbox_events WHERE processed_at IS NULL ORDER BY occurred_at ASC LIMIT :limit")
-    Flux<OutboxEvent> findUnprocessedEvents(int limit);
-    
-    @Query("UPDATE outbox_events SET processed_at = :processedAt WHERE id = :id")
-    Mono<Integer> markAsProcessed(Long id, Instant processedAt);
-    
-    @Query("DELETE FROM outbox_events WHERE processed_at < :before")
-    Mono<Integer> deleteProcessedEventsBefore(Instant before);
-}
\ No newline at end of file
+public interface OutboxEventRepository extends R2dbcRepository<OutboxEvent, Long>, OutboxEventBatchRepository {
+
+    /**
+     * Like {@link #claimEvents(String, long, Instant, Instant, Instant, int)}, regardless of when
+     * events occurred.
+     */
+    default Mono<Integer> claimEvents(String owner, long afterId, Instant now, Instant leaseUntil, int limit) {
+        return claimEvents(owner, afterId, now, leaseUntil, null, limit);
+    }
+
+    @Query("SELECT * FROM outbox_events WHERE claimed_by = :owner AND processed_at IS NULL ORDER BY id ASC")
+    Flux<OutboxEvent> findClaimedEvents(String owner);
+
+    @Modifying
+    @Query("UPDATE outbox_events SET processed_at = :processedAt WHERE id = :id AND claimed_by = :owner")
+    Mono<Integer> markAsProcessed(Long id, String owner, Instant processedAt);
+
+    @Modifying
+    @Query("UPDATE outbox_events SET processed_at = :processedAt WHERE id IN (:ids) AND claimed_by = :owner")
+    Mono<Integer> markAllAsProcessed(Collection<Long> ids, String owner, Instant processedAt);
+
+    /**
+     * Marks events that were already delivered in-process as processed, by event ID, unless a
+     * processor has processed them in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE outbox_events SET processed_at = :processedAt WHERE event_id IN (:eventIds) AND processed_at IS NULL")
+    Mono<Integer> markAllAsDispatched(Collection<String> eventIds, Instant processedAt);
+
+    @Modifying
+    @Query("UPDATE outbox_events SET attempts = attempts + 1, last_error = :lastError, next_attempt_at = :nextAttemptAt " +
+            "WHERE id = :id AND claimed_by = :owner")
+    Mono<Integer> recordFailure(Long id, String owner, String lastError, Instant nextAttemptAt);
+
+    @Modifying
+    @Query("INSERT INTO outbox_dead_letters " +
+            "(event_id, event_type, aggregate_id, event_data, event_payload, codec, occurred_at, attempts, last_error, dead_lettered_at) " +
+            "SELECT event_id, event_type, aggregate_id, event_data, event_payload, codec, occurred_at, attempts + 1, :lastError, :deadLetteredAt " +
+            "FROM outbox_events WHERE id = :id AND claimed_by = :owner")
+    Mono<Integer> copyToDeadLetters(Long id, String owner, String lastError, Instant deadLetteredAt);
+
+    @Modifying
+    @Query("DELETE FROM outbox_events WHERE id = :id AND claimed_by = :owner")
+    Mono<Integer> deleteClaimedEvent(Long id, String owner);
+
+    @Modifying
+    @Query("UPDATE outbox_events SET claimed_by = NULL, claimed_until = NULL WHERE claimed_by = :owner AND processed_at IS NULL")
+    Mono<Integer> releaseClaims(String owner);
+
+    @Modifying
+    @Query("UPDATE outbox_events SET claimed_by = NULL, claimed_until = NULL WHERE processed_at IS NULL AND claimed_until < :now")
+    Mono<Integer> releaseExpiredLeases(Instant now);
+
+    /**
+     * Processed events created before {@code cutoff} that every consumer has read past, i.e. with
+     * ids up to {@code consumedUpToId}.
+     */
+    @Query("SELECT * FROM outbox_events WHERE processed_at IS NOT NULL AND created_at < :cutoff AND id > :afterId " +
+            "AND id <= :consumedUpToId ORDER BY id ASC LIMIT :limit")
+    Flux<OutboxEvent> findArchivable(long afterId, Instant cutoff, long consumedUpToId, int limit);
+
+    /**
+     * The lowest id of an event created before {@code cutoff} that is not processed yet. Every event
+     * created before the cutoff with a lower id is processed and stays so.
+     */
+    @Query("SELECT id FROM outbox_events WHERE processed_at IS NULL AND created_at < :cutoff ORDER BY id ASC LIMIT 1")
+    Mono<Long> findFirstUnprocessedId(Instant cutoff);
+
+    @Modifying
+    @Query("DELETE FROM outbox_events WHERE id IN (:ids) AND processed_at IS NOT NULL")
+    Mono<Integer> deleteArchived(Collection<Long> ids);
+
+    /**
+     * Events after the {@code afterId} cursor in id order, whether processed or not.
+     */
+    @Query("SELECT * FROM outbox_events WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    Flux<OutboxEvent> findAfter(long afterId, int limit);
+
+    @Query("SELECT id FROM outbox_events ORDER BY id DESC LIMIT 1")
+    Mono<Long> findLatestId();
+
+    @Query("SELECT COUNT(*) FROM outbox_events WHERE processed_at IS NULL")
+    Mono<Long> countUnprocessed();
+
+    @Query("SELECT * FROM outbox_events WHERE processed_at IS NULL ORDER BY id ASC LIMIT 1")
+    Mono<OutboxEvent> findOldestUnprocessed();
+}
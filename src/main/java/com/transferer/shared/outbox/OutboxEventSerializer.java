@@ -0,0 +1,105 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.outbox.codec.EventCodec;
+import com.transferer.shared.outbox.codec.JacksonEventCodec;
+import com.transferer.shared.outbox.codec.Lz4Compression;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts domain events to outbox rows and back. Rows are written with the configured codec
+ * and read with whichever codec their {@code codec} column names, so changing the format only
+ * affects new rows. Textual payloads stay in {@code event_data}; binary or compressed payloads
+ * go to {@code event_payload}.
+ */
+public class OutboxEventSerializer {
+    private final EventTypeRegistry eventTypeRegistry;
+    private final EventCodec writeCodec;
+    private final Map<String, EventCodec> codecsByName = new HashMap<>();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold payload size in bytes from which LZ4 compression is applied,
+     *                             or a negative value to disable compression
+     */
+    public OutboxEventSerializer(
+            EventTypeRegistry eventTypeRegistry,
+            List<EventCodec> codecs,
+            String format,
+            int compressionThreshold) {
+        this.eventTypeRegistry = eventTypeRegistry;
+        List<Class<?>> bodyClasses = eventTypeRegistry.registrations().stream()
+                .<Class<?>>map(EventTypeRegistry.Registration::bodyClass)
+                .toList();
+        codecs.forEach(codec -> {
+            codec.prepare(bodyClasses);
+            codecsByName.put(codec.name(), codec);
+        });
+        this.writeCodec = codecFor(format);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public OutboxEvent serialize(DomainEvent<?> event) {
+        byte[] payload;
+        try {
+            payload = writeCodec.encode(event.getBody());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize event: " + event.getEventId(), e);
+        }
+        OutboxEvent outboxEvent = new OutboxEvent(
+                event.getEventId(),
+                event.getEventType(),
+                event.getAggregateId(),
+                null,
+                event.getOccurredAt()
+        );
+        if (compressionThreshold >= 0 && payload.length >= compressionThreshold) {
+            outboxEvent.setCodec(writeCodec.name() + Lz4Compression.SUFFIX);
+            outboxEvent.setEventPayload(Lz4Compression.compress(payload));
+        } else if (writeCodec.isTextual()) {
+            outboxEvent.setCodec(writeCodec.name());
+            outboxEvent.setEventData(new String(payload, StandardCharsets.UTF_8));
+        } else {
+            outboxEvent.setCodec(writeCodec.name());
+            outboxEvent.setEventPayload(payload);
+        }
+        return outboxEvent;
+    }
+
+    /**
+     * Rebuilds the domain event: the registry supplies the body type and factory for the row's
+     * event type, and the envelope comes from the row's columns.
+     */
+    public DomainEvent<?> deserialize(OutboxEvent outboxEvent) throws IOException {
+        EventTypeRegistry.Registration<?, ?> registration = eventTypeRegistry.lookup(outboxEvent.getEventType());
+        Object body = deserialize(outboxEvent, registration.bodyClass());
+        return registration.create(outboxEvent.getEventId(), outboxEvent.getOccurredAt(), body);
+    }
+
+    public <T> T deserialize(OutboxEvent outboxEvent, Class<T> type) throws IOException {
+        String codecName = outboxEvent.getCodec() != null ? outboxEvent.getCodec() : JacksonEventCodec.JSON;
+        byte[] payload;
+        if (codecName.endsWith(Lz4Compression.SUFFIX)) {
+            codecName = codecName.substring(0, codecName.length() - Lz4Compression.SUFFIX.length());
+            payload = Lz4Compression.decompress(outboxEvent.getEventPayload());
+        } else if (outboxEvent.getEventPayload() != null) {
+            payload = outboxEvent.getEventPayload();
+        } else {
+            payload = outboxEvent.getEventData().getBytes(StandardCharsets.UTF_8);
+        }
+        return codecFor(codecName).decode(payload, type);
+    }
+
+    private EventCodec codecFor(String name) {
+        EventCodec codec = codecsByName.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown outbox event codec: " + name);
+        }
+        return codec;
+    }
+}
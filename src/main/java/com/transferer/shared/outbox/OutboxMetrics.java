@@ -0,0 +1,154 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+
+/**
+ * Micrometer instrumentation for the outbox, exposed through the actuator metrics and prometheus
+ * endpoints.
+ * <ul>
+ *   <li>{@code outbox.backlog} and {@code outbox.oldest.age}: unprocessed events and how long the
+ *   oldest of them has been waiting, refreshed from the table on a schedule so that scrapes never
+ *   hit the database</li>
+ *   <li>{@code outbox.dispatch.latency}: time from {@code occurred_at} to publication, per event
+ *   type; its count doubles as the per-type publish rate</li>
+ *   <li>{@code outbox.batch.fill} and {@code outbox.batch.size}: claimed events as a fraction of
+ *   the batch size, and the size the drain loop has currently adapted to</li>
+ *   <li>{@code outbox.events.failed}: failed dispatches per event type, by whether the event was
+ *   retried or dead-lettered</li>
+ *   <li>{@code outbox.consumer.ids.skipped}: ids a named consumer passed over at settled gaps, per
+ *   consumer; rolled back and dead-lettered events leave such gaps, but so do writes that took
+ *   longer than the settle window, whose events that consumer never sees</li>
+ *   <li>{@code outbox.consumers.inactive}: consumers that retention stopped waiting for because
+ *   they have not checked in within the maximum lag</li>
+ * </ul>
+ */
+@Component
+public class OutboxMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxMetrics.class);
+
+    private final MeterRegistry meterRegistry;
+    private final OutboxEventRepository outboxEventRepository;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicReference<Instant> oldestOccurredAt = new AtomicReference<>();
+    private final DistributionSummary batchFill;
+    private final Map<DomainEventType, Timer> dispatchLatency = new EnumMap<>(DomainEventType.class);
+    private final Map<DomainEventType, Counter> retried = new EnumMap<>(DomainEventType.class);
+    private final Map<DomainEventType, Counter> deadLettered = new EnumMap<>(DomainEventType.class);
+    private final AtomicInteger inactiveConsumers = new AtomicInteger();
+
+    public OutboxMetrics(MeterRegistry meterRegistry, OutboxEventRepository outboxEventRepository) {
+        this.meterRegistry = meterRegistry;
+        this.outboxEventRepository = outboxEventRepository;
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("Outbox events not yet processed")
+                .register(meterRegistry);
+        TimeGauge.builder("outbox.oldest.age", this, TimeUnit.MILLISECONDS, OutboxMetrics::oldestAgeMillis)
+                .description("Time the oldest unprocessed outbox event has been waiting")
+                .register(meterRegistry);
+        Gauge.builder("outbox.consumers.inactive", inactiveConsumers, AtomicInteger::get)
+                .description("Named outbox consumers that retention no longer waits for")
+                .register(meterRegistry);
+        this.batchFill = DistributionSummary.builder("outbox.batch.fill")
+                .description("Claimed outbox events as a fraction of the batch size")
+                .register(meterRegistry);
+        for (DomainEventType eventType : DomainEventType.values()) {
+            dispatchLatency.put(eventType, Timer.builder("outbox.dispatch.latency")
+                    .description("Time from an event occurring to its publication by the outbox")
+                    .tag("type", eventType.name())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            retried.put(eventType, failureCounter(meterRegistry, eventType, "retried"));
+            deadLettered.put(eventType, failureCounter(meterRegistry, eventType, "dead_lettered"));
+        }
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, DomainEventType eventType, String outcome) {
+        return Counter.builder("outbox.events.failed")
+                .description("Outbox events whose dispatch failed")
+                .tag("type", eventType.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.metrics.refresh-interval:15000}")
+    public void refreshBacklog() {
+        refresh()
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                    ignored -> { },
+                    error -> logger.warn("Failed to refresh outbox backlog metrics", error)
+                );
+    }
+
+    Mono<Void> refresh() {
+        Mono<Long> count = outboxEventRepository.countUnprocessed()
+                .doOnNext(backlog::set);
+        Mono<Instant> oldest = outboxEventRepository.findOldestUnprocessed()
+                .map(OutboxEvent::getOccurredAt)
+                .doOnSuccess(oldestOccurredAt::set);
+        return Mono.when(count, oldest);
+    }
+
+    void registerBatchSize(IntSupplier batchSize) {
+        Gauge.builder("outbox.batch.size", batchSize, IntSupplier::getAsInt)
+                .description("Current size of outbox batches")
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    void recordBatch(int claimedCount, int batchSize) {
+        batchFill.record((double) claimedCount / batchSize);
+    }
+
+    void recordPublished(OutboxEvent outboxEvent) {
+        Duration latency = Duration.between(outboxEvent.getOccurredAt(), Instant.now());
+        dispatchLatency.get(outboxEvent.getEventType()).record(latency.isNegative() ? Duration.ZERO : latency);
+    }
+
+    void recordRetried(OutboxEvent outboxEvent) {
+        retried.get(outboxEvent.getEventType()).increment();
+    }
+
+    void recordDeadLettered(OutboxEvent outboxEvent) {
+        deadLettered.get(outboxEvent.getEventType()).increment();
+    }
+
+    void recordSkippedIds(String consumerName, long skippedCount) {
+        Counter.builder("outbox.consumer.ids.skipped")
+                .description("Outbox ids a named consumer passed over at settled gaps")
+                .tag("consumer", consumerName)
+                .register(meterRegistry)
+                .increment(skippedCount);
+    }
+
+    void recordInactiveConsumers(int count) {
+        inactiveConsumers.set(count);
+    }
+
+    private double oldestAgeMillis() {
+        Instant oldest = oldestOccurredAt.get();
+        return oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis());
+    }
+}
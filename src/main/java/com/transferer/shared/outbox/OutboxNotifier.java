@@ -0,0 +1,16 @@
+package com.transferer.shared.outbox;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface OutboxNotifier {
+    String CHANNEL = "outbox_events";
+
+    /**
+     * Signals that outbox rows were written. Inside a transaction the signal is only delivered
+     * once that transaction commits.
+     */
+    Mono<Void> notifyWithinTransaction();
+
+    Flux<String> signals();
+}
@@ -0,0 +1,19 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.infrastructure.DatabaseDialect;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+@Configuration
+public class OutboxNotifierConfiguration {
+
+    @Bean
+    public OutboxNotifier outboxNotifier(ConnectionFactory connectionFactory, DatabaseClient databaseClient) {
+        return switch (DatabaseDialect.of(connectionFactory)) {
+            case POSTGRES -> new PostgresOutboxNotifier(databaseClient, connectionFactory);
+            case H2 -> new InJvmOutboxNotifier();
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.transferer.shared.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Retention for the Postgres outbox, which is range-partitioned by day on {@code created_at}.
+ * Partitions are created {@code premakeDays} ahead so inserts never wait on DDL, and a day whose
+ * partition lies entirely before the cutoff is detached and dropped as a whole once every event in
+ * it has been processed, which turns retention into a catalog operation. Rows that landed in the
+ * default partition, e.g. before the first partitions existed, are purged in chunks instead.
+ * <p>
+ * The table-wide unique key on {@code event_id} has to include the partition key, so it no longer
+ * stops the same event from being written on two different days. Every partition therefore gets
+ * its own unique index on {@code event_id}, which at least rejects duplicates within a day.
+ * <p>
+ * {@code CREATE TABLE IF NOT EXISTS} leaves an outbox table created before partitioning unchanged.
+ * Such a table is detected on first use and purged in chunks, like on H2, until it is migrated.
+ */
+public class OutboxPartitionManager implements OutboxRetention {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxPartitionManager.class);
+    private static final String TABLE = "outbox_events";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{8})");
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final DatabaseClient databaseClient;
+    private final ChunkedOutboxRetention defaultPartitionRetention;
+    private final ChunkedOutboxRetention unpartitionedRetention;
+    private final int premakeDays;
+    private final Mono<Boolean> partitioned;
+
+    public OutboxPartitionManager(DatabaseClient databaseClient, int premakeDays, int chunkSize) {
+        this.databaseClient = databaseClient;
+        this.defaultPartitionRetention = new ChunkedOutboxRetention(databaseClient, TABLE + "_default", chunkSize);
+        this.unpartitionedRetention = new ChunkedOutboxRetention(databaseClient, TABLE, chunkSize);
+        this.premakeDays = premakeDays;
+        this.partitioned = databaseClient.sql("SELECT relkind = 'p' AS partitioned FROM pg_class " +
+                        "WHERE oid = to_regclass(CAST(:table AS TEXT))")
+                .bind("table", TABLE)
+                .map(row -> row.get("partitioned", Boolean.class))
+                .one()
+                .defaultIfEmpty(false)
+                .doOnNext(isPartitioned -> {
+                    if (!isPartitioned) {
+                        logger.warn("{} is not partitioned; expired outbox events are deleted in chunks instead", TABLE);
+                    }
+                })
+                // Only a successful lookup is kept; a failed one is tried again on the next run
+                .cache(isPartitioned -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @Override
+    public Mono<Void> prepare(Instant now) {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        return partitioned.flatMap(isPartitioned -> !isPartitioned
+                ? Mono.empty()
+                : Flux.range(0, premakeDays + 1)
+                        .map(today::plusDays)
+                        .concatMap(this::createPartition)
+                        .then());
+    }
+
+    @Override
+    public Mono<Long> purge(Instant cutoff, long consumedUpToId) {
+        return partitioned.flatMap(isPartitioned -> isPartitioned
+                ? purgePartitions(cutoff, consumedUpToId)
+                : unpartitionedRetention.purge(cutoff, consumedUpToId));
+    }
+
+    private Mono<Long> purgePartitions(Instant cutoff, long consumedUpToId) {
+        LocalDate cutoffDay = LocalDate.ofInstant(cutoff, ZoneOffset.UTC);
+        Mono<Long> droppedRows = databaseClient.sql("SELECT child.relname AS name FROM pg_inherits " +
+                        "JOIN pg_class parent ON parent.oid = pg_inherits.inhparent " +
+                        "JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+                        "WHERE parent.relname = :table ORDER BY child.relname")
+                .bind("table", TABLE)
+                .map(row -> row.get("name", String.class))
+                .all()
+                .filter(name -> partitionDay(name).filter(day -> day.plusDays(1).compareTo(cutoffDay) <= 0).isPresent())
+                .concatMap(partition -> dropIfProcessed(partition, consumedUpToId))
+                .reduce(0L, Long::sum);
+        return droppedRows.zipWith(defaultPartitionRetention.purge(cutoff, consumedUpToId), Long::sum);
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_DAY.format(day);
+    }
+
+    static Optional<LocalDate> partitionDay(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        return matcher.matches() ? Optional.of(LocalDate.parse(matcher.group(1), PARTITION_DAY)) : Optional.empty();
+    }
+
+    private Mono<Void> createPartition(LocalDate day) {
+        String partition = partitionName(day);
+        return databaseClient.sql("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + TABLE +
+                        " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')")
+                .then()
+                .then(databaseClient.sql("CREATE UNIQUE INDEX IF NOT EXISTS " + partition + "_event_id_key ON " +
+                        partition + " (event_id)").then())
+                .onErrorResume(error -> {
+                    // Typically the default partition already holds rows for this day; they stay there
+                    // and are purged in chunks
+                    logger.warn("Could not create outbox partition {}", partition, error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> dropIfProcessed(String partition, long consumedUpToId) {
+        return databaseClient.sql("SELECT COUNT(*) FILTER (WHERE processed_at IS NULL) AS pending, " +
+                        "COUNT(*) FILTER (WHERE id > :consumedUpToId) AS unconsumed, COUNT(*) AS total " +
+                        "FROM " + partition)
+                .bind("consumedUpToId", consumedUpToId)
+                .map(row -> new long[] {row.get("pending", Long.class), row.get("unconsumed", Long.class), row.get("total", Long.class)})
+                .one()
+                .flatMap(counts -> {
+                    if (counts[0] > 0) {
+                        logger.warn("Keeping expired outbox partition {} with {} unprocessed events", partition, counts[0]);
+                        return Mono.just(0L);
+                    }
+                    if (counts[1] > 0) {
+                        logger.warn("Keeping expired outbox partition {} with {} events not yet read by every consumer",
+                                partition, counts[1]);
+                        return Mono.just(0L);
+                    }
+                    return databaseClient.sql("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition)
+                            .then()
+                            .then(databaseClient.sql("DROP TABLE " + partition).then())
+                            .doOnSuccess(ignored -> logger.info("Dropped outbox partition {} with {} processed events",
+                                    partition, counts[2]))
+                            .thenReturn(counts[2]);
+                });
+    }
+}
@@ -0,0 +1,20 @@
+package com.transferer.shared.outbox;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface OutboxRetention {
+
+    /**
+     * Prepares storage for events written from {@code now} onwards, e.g. by pre-creating partitions.
+     */
+    Mono<Void> prepare(Instant now);
+
+    /**
+     * Removes processed events created before {@code cutoff} and returns how many were removed.
+     * Unprocessed events are always kept, however old, and so are events with ids after
+     * {@code consumedUpToId} that some consumer has yet to read.
+     */
+    Mono<Long> purge(Instant cutoff, long consumedUpToId);
+}
@@ -0,0 +1,40 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.infrastructure.DatabaseDialect;
+import com.transferer.shared.outbox.archive.ArchivingOutboxRetention;
+import com.transferer.shared.outbox.archive.OutboxArchive;
+import com.transferer.shared.outbox.archive.OutboxArchiver;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.nio.file.Path;
+
+@Configuration
+public class OutboxRetentionConfiguration {
+
+    @Bean
+    public OutboxRetention outboxRetention(
+            ConnectionFactory connectionFactory,
+            DatabaseClient databaseClient,
+            @Value("${outbox.retention.premake-days:3}") int premakeDays,
+            @Value("${outbox.retention.chunk-size:5000}") int chunkSize,
+            @Value("${outbox.archive.enabled:false}") boolean archiveEnabled,
+            @Value("${outbox.archive.directory:outbox-archive}") String archiveDirectory,
+            @Value("${outbox.archive.segment-size:10000}") int segmentSize,
+            @Value("${outbox.archive.block-size:65536}") int blockSize,
+            OutboxEventRepository outboxEventRepository) {
+        OutboxRetention retention = switch (DatabaseDialect.of(connectionFactory)) {
+            case POSTGRES -> new OutboxPartitionManager(databaseClient, premakeDays, chunkSize);
+            // H2 has no declarative partitioning
+            case H2 -> new ChunkedOutboxRetention(databaseClient, "outbox_events", chunkSize);
+        };
+        if (!archiveEnabled) {
+            return retention;
+        }
+        OutboxArchive outboxArchive = new OutboxArchive(Path.of(archiveDirectory), blockSize);
+        return new ArchivingOutboxRetention(new OutboxArchiver(outboxEventRepository, outboxArchive, segmentSize), retention);
+    }
+}
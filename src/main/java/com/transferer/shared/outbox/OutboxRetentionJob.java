@@ -0,0 +1,115 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.infrastructure.DatabaseDialect;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+public class OutboxRetentionJob {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRetentionJob.class);
+    // Arbitrary application-wide key of the advisory lock held while a node runs retention
+    static final long RETENTION_LOCK_KEY = 0x726574656e74L;
+
+    private final OutboxRetention outboxRetention;
+    private final ConsumerOffsetRepository consumerOffsetRepository;
+    private final OutboxMetrics outboxMetrics;
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseDialect dialect;
+    private final Duration retention;
+    private final Duration maxConsumerLag;
+
+    public OutboxRetentionJob(
+            OutboxRetention outboxRetention,
+            ConsumerOffsetRepository consumerOffsetRepository,
+            OutboxMetrics outboxMetrics,
+            ConnectionFactory connectionFactory,
+            @Value("${outbox.retention.days:7}") int retentionDays,
+            @Value("${outbox.consumers.max-lag:259200000}") long maxConsumerLagMillis) {
+        this.outboxRetention = outboxRetention;
+        this.consumerOffsetRepository = consumerOffsetRepository;
+        this.outboxMetrics = outboxMetrics;
+        this.connectionFactory = connectionFactory;
+        this.dialect = DatabaseDialect.of(connectionFactory);
+        this.retention = Duration.ofDays(retentionDays);
+        this.maxConsumerLag = Duration.ofMillis(maxConsumerLagMillis);
+    }
+
+    /**
+     * Runs once at startup, so partitions exist before the first events are written, and
+     * periodically after that. Nothing is purged past the offset of the slowest consumer, unless
+     * that consumer has not checked in for longer than {@code outbox.consumers.max-lag}: a removed
+     * or renamed consumer would otherwise hold back retention forever. Such consumers are logged
+     * and counted in {@code outbox.consumers.inactive}; if one comes back, it has lost whatever was
+     * purged in the meantime.
+     * <p>
+     * On Postgres only one node runs retention at a time: the run holds a session advisory lock,
+     * and nodes that cannot take it skip their run. Archiving and partition drops are not safe to
+     * run concurrently. H2 is single-node only and runs without the lock.
+     */
+    @Scheduled(fixedDelayString = "${outbox.retention.interval:3600000}")
+    public void maintain() {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(retention);
+        exclusively(outboxRetention.prepare(now)
+                .onErrorResume(error -> {
+                    logger.error("Error preparing outbox storage", error);
+                    return Mono.empty();
+                })
+                .then(reportInactiveConsumers(now.minus(maxConsumerLag)))
+                .then(consumerOffsetRepository.findSlowestOffset(now.minus(maxConsumerLag)).defaultIfEmpty(Long.MAX_VALUE))
+                .flatMap(consumedUpToId -> outboxRetention.purge(cutoff, consumedUpToId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                    purgedCount -> {
+                        if (purgedCount > 0) {
+                            logger.info("Purged {} processed outbox events created before {}", purgedCount, cutoff);
+                        }
+                    },
+                    error -> logger.error("Error purging processed outbox events", error)
+                );
+    }
+
+    private Mono<Void> reportInactiveConsumers(Instant activeSince) {
+        return consumerOffsetRepository.findInactive(activeSince)
+                .doOnNext(inactive -> logger.warn("Outbox consumer {} has not checked in since {}; no longer holding "
+                        + "back retention at offset {}", inactive.getConsumerName(), inactive.getUpdatedAt(),
+                        inactive.getLastEventId()))
+                .count()
+                .doOnNext(count -> outboxMetrics.recordInactiveConsumers(count.intValue()))
+                .then();
+    }
+
+    private Mono<Long> exclusively(Mono<Long> run) {
+        if (dialect != DatabaseDialect.POSTGRES) {
+            return run;
+        }
+        // Session locks belong to the connection, so the lock is taken and released on one
+        // dedicated connection while the run itself uses the pool
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> advisoryLock(connection, "pg_try_advisory_lock")
+                        .flatMap(locked -> {
+                            if (!locked) {
+                                logger.debug("Skipping outbox retention; another node is running it");
+                                return Mono.empty();
+                            }
+                            return Mono.usingWhen(Mono.just(connection), ignored -> run,
+                                    ignored -> advisoryLock(connection, "pg_advisory_unlock"));
+                        }),
+                Connection::close);
+    }
+
+    private static Mono<Boolean> advisoryLock(Connection connection, String function) {
+        return Mono.from(connection.createStatement("SELECT " + function + "(" + RETENTION_LOCK_KEY + ") AS locked").execute())
+                .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get("locked", Boolean.class))));
+    }
+}
@@ -0,0 +1,26 @@
+package com.transferer.shared.outbox;
+
+import java.time.Duration;
+
+/**
+ * Exponential backoff for failed outbox events: the delay doubles with every attempt up to
+ * {@code maxBackoff}, and an event is dead-lettered once it has failed {@code maxAttempts} times.
+ */
+public record OutboxRetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    public OutboxRetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Outbox retry max attempts must be at least 1");
+        }
+    }
+
+    public boolean isExhausted(int attempts) {
+        return attempts >= maxAttempts;
+    }
+
+    public Duration backoffAfter(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration backoff = initialBackoff.multipliedBy(1L << exponent);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+}
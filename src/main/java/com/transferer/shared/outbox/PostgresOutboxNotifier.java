@@ -0,0 +1,78 @@
+package com.transferer.shared.outbox;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+public class PostgresOutboxNotifier implements OutboxNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresOutboxNotifier.class);
+
+    private final DatabaseClient databaseClient;
+    private final Flux<String> signals;
+
+    public PostgresOutboxNotifier(DatabaseClient databaseClient, ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.signals = listen(unwrapFactory(connectionFactory)).share();
+    }
+
+    @Override
+    public Mono<Void> notifyWithinTransaction() {
+        // NOTIFY is transactional in Postgres: listeners only receive it once the surrounding transaction commits
+        return databaseClient.sql("NOTIFY " + CHANNEL).then();
+    }
+
+    @Override
+    public Flux<String> signals() {
+        return signals;
+    }
+
+    private Flux<String> listen(ConnectionFactory connectionFactory) {
+        return Flux.usingWhen(
+                        connectionFactory.create(),
+                        connection -> {
+                            PostgresqlConnection postgresqlConnection = unwrapConnection(connection);
+                            return postgresqlConnection.createStatement("LISTEN " + CHANNEL)
+                                    .execute()
+                                    .flatMap(PostgresqlResult::getRowsUpdated)
+                                    .doOnComplete(() -> logger.info("Listening for outbox notifications on channel {}", CHANNEL))
+                                    .thenMany(postgresqlConnection.getNotifications())
+                                    .map(Notification::getName);
+                        },
+                        Connection::close
+                )
+                .doOnError(error -> logger.warn("Outbox notification listener failed, reconnecting", error))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .repeatWhen(completions -> completions.delayElements(Duration.ofSeconds(1)));
+    }
+
+    private static ConnectionFactory unwrapFactory(ConnectionFactory connectionFactory) {
+        // Listen on a dedicated connection rather than permanently holding one from the pool
+        if (connectionFactory instanceof Wrapped<?> wrapped && wrapped.unwrap() instanceof ConnectionFactory delegate) {
+            return unwrapFactory(delegate);
+        }
+        return connectionFactory;
+    }
+
+    private static PostgresqlConnection unwrapConnection(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped) {
+            current = wrapped.unwrap();
+        }
+        if (current instanceof PostgresqlConnection postgresqlConnection) {
+            return postgresqlConnection;
+        }
+        throw new IllegalStateException("Outbox notifications require a PostgreSQL connection, got " + connection.getClass());
+    }
+}
@@ -0,0 +1,36 @@
+package com.transferer.shared.outbox.archive;
+
+import com.transferer.shared.outbox.OutboxRetention;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Archives expired events before the underlying retention purges them, so that whatever the
+ * purge removes afterwards (e.g. whole partitions) no longer holds anything worth keeping. Both
+ * stop short of the first expired event that is still unprocessed: an event processed while the
+ * archiver scans past it would otherwise be purged without ever being archived.
+ */
+public class ArchivingOutboxRetention implements OutboxRetention {
+
+    private final OutboxArchiver outboxArchiver;
+    private final OutboxRetention delegate;
+
+    public ArchivingOutboxRetention(OutboxArchiver outboxArchiver, OutboxRetention delegate) {
+        this.outboxArchiver = outboxArchiver;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<Void> prepare(Instant now) {
+        return delegate.prepare(now);
+    }
+
+    @Override
+    public Mono<Long> purge(Instant cutoff, long consumedUpToId) {
+        // Only purged once archiving finished, or the purge could remove rows not archived yet
+        return outboxArchiver.archivableUpTo(cutoff, consumedUpToId)
+                .flatMap(archivableUpToId -> outboxArchiver.archive(cutoff, archivableUpToId)
+                        .flatMap(archived -> delegate.purge(cutoff, archivableUpToId).map(purged -> archived + purged)));
+    }
+}
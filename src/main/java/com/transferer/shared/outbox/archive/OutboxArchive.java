@@ -0,0 +1,241 @@
+package com.transferer.shared.outbox.archive;
+
+import com.transferer.shared.outbox.OutboxEvent;
+import com.transferer.shared.outbox.OutboxEventBinaryFormat;
+import com.transferer.shared.outbox.codec.Lz4Compression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only archive of processed outbox events on local disk. Each {@link #write} produces one
+ * immutable segment of LZ4-compressed, CRC32C-checksummed blocks with a sparse per-block index of
+ * outbox ids and occurrence times (see {@link SegmentFormat}). A segment only becomes visible
+ * under its final name once its contents have been forced to disk.
+ */
+public class OutboxArchive {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxArchive.class);
+
+    private final Path directory;
+    private final int blockSize;
+
+    public OutboxArchive(Path directory, int blockSize) {
+        this.directory = directory;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the outbox ids held by the most recently written segment, or nothing if the archive
+     * is empty.
+     */
+    public List<Long> latestSegmentIds() {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+        Path segment = segments.get(segments.size() - 1);
+        MappedByteBuffer mapped = map(segment);
+        return readIndex(segment, mapped).stream()
+                .flatMap(entry -> readBlock(segment, mapped, entry).stream())
+                .map(OutboxEvent::getId)
+                .toList();
+    }
+
+    /**
+     * Writes {@code outboxEvents}, which must be in ascending id order, as a new segment and
+     * returns once it is durable.
+     */
+    public Path write(List<OutboxEvent> outboxEvents) throws IOException {
+        if (outboxEvents.isEmpty()) {
+            throw new IllegalArgumentException("Cannot archive an empty segment");
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        int sequence = segments.isEmpty() ? 1 : SegmentFormat.sequence(segments.get(segments.size() - 1).getFileName().toString()) + 1;
+        long firstId = outboxEvents.get(0).getId();
+        long lastId = outboxEvents.get(outboxEvents.size() - 1).getId();
+        Path segment = directory.resolve(SegmentFormat.fileName(sequence, firstId, lastId));
+        Path pending = directory.resolve(segment.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(pending,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.allocate(SegmentFormat.HEADER_BYTES)
+                    .putInt(SegmentFormat.MAGIC).putInt(SegmentFormat.VERSION).flip());
+            List<SegmentIndexEntry> index = new ArrayList<>();
+            int start = 0;
+            while (start < outboxEvents.size()) {
+                start = writeBlock(channel, outboxEvents, start, index);
+            }
+            writeIndex(channel, index);
+            channel.force(true);
+        }
+        Files.move(pending, segment, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        return segment;
+    }
+
+    /**
+     * Streams archived events that occurred in {@code [from, to)}, oldest segment first. Segments
+     * are memory-mapped and only the blocks whose index entry overlaps the range are decompressed.
+     */
+    public Flux<OutboxEvent> scan(Instant from, Instant to) {
+        return Flux.defer(() -> Flux.fromIterable(segments()))
+                .concatMap(segment -> Flux.defer(() -> scanSegment(segment, from, to)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private int writeBlock(FileChannel channel, List<OutboxEvent> outboxEvents, int start,
+                           List<SegmentIndexEntry> index) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(blockSize);
+        DataOutputStream out = new DataOutputStream(records);
+        Instant minOccurredAt = outboxEvents.get(start).getOccurredAt();
+        Instant maxOccurredAt = minOccurredAt;
+        int end = start;
+        while (end < outboxEvents.size() && (end == start || records.size() < blockSize)) {
+            OutboxEvent outboxEvent = outboxEvents.get(end++);
+            OutboxEventBinaryFormat.write(out, outboxEvent);
+            minOccurredAt = min(minOccurredAt, outboxEvent.getOccurredAt());
+            maxOccurredAt = max(maxOccurredAt, outboxEvent.getOccurredAt());
+        }
+        byte[] uncompressed = records.toByteArray();
+        byte[] compressed = Lz4Compression.compress(uncompressed);
+        long offset = channel.position();
+        writeFully(channel, ByteBuffer.allocate(SegmentFormat.BLOCK_HEADER_BYTES)
+                .putInt(compressed.length).putInt(checksum(uncompressed)).flip());
+        writeFully(channel, ByteBuffer.wrap(compressed));
+        index.add(new SegmentIndexEntry(outboxEvents.get(start).getId(), outboxEvents.get(end - 1).getId(),
+                minOccurredAt, maxOccurredAt, offset, SegmentFormat.BLOCK_HEADER_BYTES + compressed.length, end - start));
+        return end;
+    }
+
+    private void writeIndex(FileChannel channel, List<SegmentIndexEntry> index) throws IOException {
+        long indexOffset = channel.position();
+        ByteBuffer entries = ByteBuffer.allocate(index.size() * SegmentIndexEntry.BYTES);
+        index.forEach(entry -> entry.writeTo(entries));
+        byte[] indexBytes = entries.array();
+        writeFully(channel, ByteBuffer.wrap(indexBytes));
+        writeFully(channel, ByteBuffer.allocate(SegmentFormat.FOOTER_BYTES)
+                .putInt(index.size()).putInt(checksum(indexBytes)).putLong(indexOffset).putInt(SegmentFormat.FOOTER_MAGIC)
+                .flip());
+    }
+
+    private Flux<OutboxEvent> scanSegment(Path segment, Instant from, Instant to) {
+        MappedByteBuffer mapped = map(segment);
+        return Flux.fromIterable(readIndex(segment, mapped))
+                .filter(entry -> entry.overlaps(from, to))
+                .concatMapIterable(entry -> readBlock(segment, mapped, entry))
+                .filter(outboxEvent -> !outboxEvent.getOccurredAt().isBefore(from) && outboxEvent.getOccurredAt().isBefore(to));
+    }
+
+    private static MappedByteBuffer map(Path segment) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map archive segment " + segment, e);
+        }
+    }
+
+    private static List<SegmentIndexEntry> readIndex(Path segment, ByteBuffer mapped) {
+        ByteBuffer footer = mapped.slice(mapped.capacity() - SegmentFormat.FOOTER_BYTES, SegmentFormat.FOOTER_BYTES);
+        int entryCount = footer.getInt();
+        int expectedChecksum = footer.getInt();
+        long indexOffset = footer.getLong();
+        if (footer.getInt() != SegmentFormat.FOOTER_MAGIC || mapped.getInt(0) != SegmentFormat.MAGIC) {
+            throw new IllegalStateException("Not an outbox archive segment: " + segment);
+        }
+        byte[] indexBytes = new byte[entryCount * SegmentIndexEntry.BYTES];
+        mapped.get((int) indexOffset, indexBytes);
+        if (checksum(indexBytes) != expectedChecksum) {
+            throw new IllegalStateException("Corrupt index in archive segment " + segment);
+        }
+        ByteBuffer entries = ByteBuffer.wrap(indexBytes);
+        List<SegmentIndexEntry> index = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            index.add(SegmentIndexEntry.readFrom(entries));
+        }
+        return index;
+    }
+
+    private static List<OutboxEvent> readBlock(Path segment, ByteBuffer mapped, SegmentIndexEntry entry) {
+        int blockOffset = (int) entry.offset();
+        int compressedLength = mapped.getInt(blockOffset);
+        int expectedChecksum = mapped.getInt(blockOffset + Integer.BYTES);
+        byte[] compressed = new byte[compressedLength];
+        mapped.get(blockOffset + SegmentFormat.BLOCK_HEADER_BYTES, compressed);
+        byte[] uncompressed = Lz4Compression.decompress(compressed);
+        if (checksum(uncompressed) != expectedChecksum) {
+            throw new IllegalStateException("Corrupt block at offset " + blockOffset + " in archive segment " + segment);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(uncompressed))) {
+            List<OutboxEvent> outboxEvents = new ArrayList<>(entry.count());
+            for (int i = 0; i < entry.count(); i++) {
+                outboxEvents.add(OutboxEventBinaryFormat.read(in));
+            }
+            return outboxEvents;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode block at offset " + blockOffset + " in archive segment " + segment, e);
+        }
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SegmentFormat.sequence(file.getFileName().toString()) >= 0)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list outbox archive " + directory, e);
+        }
+    }
+
+    private void forceDirectory() {
+        // Makes the rename itself durable; not every platform lets a directory be opened this way
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Could not force outbox archive directory {}", directory, e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int checksum(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,96 @@
+package com.transferer.shared.outbox.archive;
+
+import com.transferer.shared.outbox.OutboxEvent;
+import com.transferer.shared.outbox.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves processed outbox events into the {@link OutboxArchive}, oldest first, one segment of up
+ * to {@code segmentSize} events at a time. Rows are only deleted once their segment is durable,
+ * and the next segment is not written before they are, so after a crash only the latest segment
+ * can still have rows left in the table; every run deletes those first instead of archiving them
+ * a second time.
+ */
+public class OutboxArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxArchiver.class);
+    // Keeps the IN list of a single delete to a reasonable number of bind parameters
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxArchive outboxArchive;
+    private final int segmentSize;
+
+    public OutboxArchiver(OutboxEventRepository outboxEventRepository, OutboxArchive outboxArchive, int segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Outbox archive segment size must be at least 1");
+        }
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxArchive = outboxArchive;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Archives processed events created before {@code cutoff}, up to the {@code consumedUpToId} that
+     * every consumer has read past, and returns how many were archived.
+     */
+    public Mono<Long> archive(Instant cutoff, long consumedUpToId) {
+        return Mono.fromCallable(outboxArchive::latestSegmentIds)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(this::deleteArchived)
+                .doOnNext(deletedCount -> {
+                    if (deletedCount > 0) {
+                        logger.info("Deleted {} outbox events left behind by an interrupted archive run", deletedCount);
+                    }
+                })
+                .then(archiveAfter(0, cutoff, consumedUpToId));
+    }
+
+    /**
+     * The highest id up to which a run started now archives every processed event created before
+     * {@code cutoff}: up to {@code consumedUpToId}, but short of the first event that is not
+     * processed yet, since that one may be processed after the run has scanned past it.
+     */
+    public Mono<Long> archivableUpTo(Instant cutoff, long consumedUpToId) {
+        return outboxEventRepository.findFirstUnprocessedId(cutoff)
+                .map(firstUnprocessedId -> Math.min(consumedUpToId, firstUnprocessedId - 1))
+                .defaultIfEmpty(consumedUpToId);
+    }
+
+    private Mono<Long> archiveAfter(long afterId, Instant cutoff, long consumedUpToId) {
+        return outboxEventRepository.findArchivable(afterId, cutoff, consumedUpToId, segmentSize)
+                .collectList()
+                .flatMap(outboxEvents -> {
+                    if (outboxEvents.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    List<Long> ids = outboxEvents.stream().map(OutboxEvent::getId).toList();
+                    Mono<Long> archived = writeSegment(outboxEvents)
+                            .then(deleteArchived(ids))
+                            .thenReturn((long) ids.size());
+                    return ids.size() < segmentSize
+                            ? archived
+                            : archived.flatMap(count -> archiveAfter(ids.get(ids.size() - 1), cutoff, consumedUpToId).map(more -> count + more));
+                });
+    }
+
+    private Mono<Void> writeSegment(List<OutboxEvent> outboxEvents) {
+        return Mono.fromCallable(() -> outboxArchive.write(outboxEvents))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(segment -> logger.debug("Archived {} outbox events to {}", outboxEvents.size(), segment))
+                .then();
+    }
+
+    private Mono<Long> deleteArchived(List<Long> ids) {
+        return Flux.fromIterable(ids)
+                .buffer(DELETE_CHUNK_SIZE)
+                .concatMap(outboxEventRepository::deleteArchived)
+                .reduce(0L, Long::sum);
+    }
+}
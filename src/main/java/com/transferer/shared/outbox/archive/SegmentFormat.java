@@ -0,0 +1,43 @@
+package com.transferer.shared.outbox.archive;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * On-disk layout of an archive segment:
+ * <pre>
+ * header  : magic "OBXS", version
+ * block*  : compressed length, CRC32C of the uncompressed records, LZ4-compressed records in
+ *           {@link com.transferer.shared.outbox.OutboxEventBinaryFormat}
+ * index   : one {@link SegmentIndexEntry} per block
+ * footer  : entry count, CRC32C of the index, index offset, magic "OBXF"
+ * </pre>
+ * Segments are named after a sequence number, so that a directory listing sorts them oldest
+ * first, followed by the first and last outbox id they hold.
+ */
+final class SegmentFormat {
+    static final int MAGIC = 0x4F425853;
+    static final int FOOTER_MAGIC = 0x4F425846;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    static final int BLOCK_HEADER_BYTES = 2 * Integer.BYTES;
+    static final int FOOTER_BYTES = 3 * Integer.BYTES + Long.BYTES;
+
+    private static final String EXTENSION = ".seg";
+    private static final Pattern NAME = Pattern.compile("segment-(\\d{10})-(\\d{20})-(\\d{20})\\" + EXTENSION);
+
+    private SegmentFormat() {
+    }
+
+    static String fileName(int sequence, long firstId, long lastId) {
+        return String.format("segment-%010d-%020d-%020d%s", sequence, firstId, lastId, EXTENSION);
+    }
+
+    /**
+     * Returns the sequence number of a segment file, or -1 if the name is not a segment's.
+     */
+    static int sequence(String fileName) {
+        Matcher matcher = NAME.matcher(fileName);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.transferer.shared.outbox.archive;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * Sparse index entry for one compressed block of a segment: the outbox id and occurrence time
+ * ranges it covers and where it sits in the file.
+ */
+record SegmentIndexEntry(
+        long firstId,
+        long lastId,
+        Instant minOccurredAt,
+        Instant maxOccurredAt,
+        long offset,
+        int length,
+        int count) {
+
+    static final int BYTES = 2 * Long.BYTES + 2 * (Long.BYTES + Integer.BYTES) + Long.BYTES + 2 * Integer.BYTES;
+
+    boolean overlaps(Instant from, Instant to) {
+        return minOccurredAt.isBefore(to) && !maxOccurredAt.isBefore(from);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(firstId).putLong(lastId);
+        putInstant(buffer, minOccurredAt);
+        putInstant(buffer, maxOccurredAt);
+        buffer.putLong(offset).putInt(length).putInt(count);
+    }
+
+    static SegmentIndexEntry readFrom(ByteBuffer buffer) {
+        return new SegmentIndexEntry(buffer.getLong(), buffer.getLong(), getInstant(buffer), getInstant(buffer),
+                buffer.getLong(), buffer.getInt(), buffer.getInt());
+    }
+
+    private static void putInstant(ByteBuffer buffer, Instant instant) {
+        buffer.putLong(instant.getEpochSecond()).putInt(instant.getNano());
+    }
+
+    private static Instant getInstant(ByteBuffer buffer) {
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+}
@@ -0,0 +1,29 @@
+package com.transferer.shared.outbox.codec;
+
+import java.io.IOException;
+import java.util.Collection;
+
+public interface EventCodec {
+
+    /**
+     * Identifies the codec in the {@code codec} column, so rows written under one configuration
+     * can still be decoded after a deployment switches to another.
+     */
+    String name();
+
+    /**
+     * Whether encoded payloads are JSON text that can live in the {@code event_data} column.
+     */
+    boolean isTextual();
+
+    /**
+     * Called once at startup with every registered body type, so that codecs can build their
+     * per-type readers and writers ahead of the first event.
+     */
+    default void prepare(Collection<Class<?>> types) {
+    }
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] payload, Class<T> type) throws IOException;
+}
@@ -0,0 +1,84 @@
+package com.transferer.shared.outbox.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class JacksonEventCodec implements EventCodec {
+    public static final String JSON = "json";
+    public static final String SMILE = "smile";
+    public static final String CBOR = "cbor";
+
+    private final String name;
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    JacksonEventCodec(String name, ObjectMapper objectMapper) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+    }
+
+    public static JacksonEventCodec json(ObjectMapper objectMapper) {
+        return new JacksonEventCodec(JSON, eventObjectMapper(objectMapper));
+    }
+
+    public static JacksonEventCodec smile(ObjectMapper objectMapper) {
+        // Shared name and value back-references keep repeated field names and type ids out of the payload
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new JacksonEventCodec(SMILE, eventObjectMapper(objectMapper).copyWith(smileFactory));
+    }
+
+    public static JacksonEventCodec cbor(ObjectMapper objectMapper) {
+        return new JacksonEventCodec(CBOR, eventObjectMapper(objectMapper).copyWith(new CBORFactory()));
+    }
+
+    private static ObjectMapper eventObjectMapper(ObjectMapper objectMapper) {
+        // Event bodies are immutable and built through their constructors, and may carry java.time
+        // and Optional values; fields added by newer versions are ignored by older readers
+        return objectMapper.copy()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean isTextual() {
+        return JSON.equals(name);
+    }
+
+    @Override
+    public void prepare(Collection<Class<?>> types) {
+        types.forEach(type -> {
+            readers.computeIfAbsent(type, objectMapper::readerFor);
+            writers.computeIfAbsent(type, objectMapper::writerFor);
+        });
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return writers.computeIfAbsent(value.getClass(), objectMapper::writerFor).writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(payload);
+    }
+}
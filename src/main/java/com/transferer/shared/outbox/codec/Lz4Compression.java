@@ -0,0 +1,36 @@
+package com.transferer.shared.outbox.codec;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LZ4 block compression with the uncompressed length stored as a 4-byte prefix.
+ */
+public final class Lz4Compression {
+    public static final String SUFFIX = "+lz4";
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private Lz4Compression() {
+    }
+
+    public static byte[] compress(byte[] data) {
+        byte[] compressed = new byte[Integer.BYTES + COMPRESSOR.maxCompressedLength(data.length)];
+        ByteBuffer.wrap(compressed).putInt(data.length);
+        int compressedLength = COMPRESSOR.compress(data, 0, data.length, compressed, Integer.BYTES);
+        byte[] result = new byte[Integer.BYTES + compressedLength];
+        System.arraycopy(compressed, 0, result, 0, result.length);
+        return result;
+    }
+
+    public static byte[] decompress(byte[] data) {
+        int length = ByteBuffer.wrap(data).getInt();
+        byte[] decompressed = new byte[length];
+        DECOMPRESSOR.decompress(data, Integer.BYTES, decompressed, 0, length);
+        return decompressed;
+    }
+}
@@ -0,0 +1,144 @@
+package com.transferer.shared.saga;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The steps, compensations, timeouts and event transitions of one saga, declared once. Instances of
+ * type {@code T} carry their current step of type {@code S}; the {@link SagaEngine} looks it up to
+ * decide what to run next. Steps without a declaration are ones the saga waits at, or terminal.
+ */
+public final class SagaDefinition<S extends Enum<S>, T> {
+
+    private final String name;
+    private final Function<T, S> stepOf;
+    private final Map<S, SagaStep<S, T>> steps;
+    private final Map<Class<?>, Function<?, Mono<T>>> finders;
+    private final Map<Class<?>, Map<S, SagaTransition<S, T, ?>>> transitions;
+
+    private SagaDefinition(Builder<S, T> builder) {
+        this.name = builder.name;
+        this.stepOf = builder.stepOf;
+        this.steps = Collections.unmodifiableMap(new EnumMap<>(builder.steps));
+        this.finders = Collections.unmodifiableMap(new LinkedHashMap<>(builder.finders));
+        this.transitions = Collections.unmodifiableMap(new LinkedHashMap<>(builder.transitions));
+    }
+
+    public static <S extends Enum<S>, T> Builder<S, T> builder(String name, Class<S> stepType, Function<T, S> stepOf) {
+        return new Builder<>(name, stepType, stepOf);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public S stepOf(T instance) {
+        return stepOf.apply(instance);
+    }
+
+    SagaStep<S, T> step(S step) {
+        return steps.get(step);
+    }
+
+    Map<Class<?>, Map<S, SagaTransition<S, T, ?>>> transitions() {
+        return transitions;
+    }
+
+    @SuppressWarnings("unchecked")
+    <E extends DomainEvent<?>> Function<E, Mono<T>> finder(Class<E> eventType) {
+        return (Function<E, Mono<T>>) finders.get(eventType);
+    }
+
+    public static final class Builder<S extends Enum<S>, T> {
+        private final String name;
+        private final Function<T, S> stepOf;
+        private final Map<S, SagaStep<S, T>> steps;
+        private final Map<Class<?>, Function<?, Mono<T>>> finders = new LinkedHashMap<>();
+        private final Map<Class<?>, Map<S, SagaTransition<S, T, ?>>> transitions = new LinkedHashMap<>();
+        private final Class<S> stepType;
+        private Duration defaultTimeout;
+
+        private Builder(String name, Class<S> stepType, Function<T, S> stepOf) {
+            this.name = Objects.requireNonNull(name, "Saga name cannot be null");
+            this.stepType = stepType;
+            this.stepOf = Objects.requireNonNull(stepOf, "Saga step accessor cannot be null");
+            this.steps = new EnumMap<>(stepType);
+        }
+
+        /**
+         * Bounds every step that does not declare its own timeout.
+         */
+        public Builder<S, T> defaultTimeout(Duration timeout) {
+            this.defaultTimeout = timeout;
+            return this;
+        }
+
+        public Builder<S, T> step(S step, Function<T, Mono<T>> action, BiFunction<T, Throwable, Mono<T>> onFailure) {
+            if (steps.putIfAbsent(step, new SagaStep<>(step, action, onFailure, null, null)) != null) {
+                throw new IllegalArgumentException("Saga " + name + " already declares step " + step);
+            }
+            return this;
+        }
+
+        public Builder<S, T> timeout(S step, Duration timeout) {
+            steps.put(step, declared(step).withTimeout(timeout));
+            return this;
+        }
+
+        /**
+         * Declares how to do the work of {@code step} and the step after it in one go. The engine
+         * only uses it where fusion of {@code step} is enabled; the action must leave the instance
+         * where the two separate steps would have.
+         */
+        public Builder<S, T> fuse(S step, Function<T, Mono<T>> fusedAction) {
+            steps.put(step, declared(step).withFusedAction(fusedAction));
+            return this;
+        }
+
+        /**
+         * Declares how to find the instance an event of {@code eventType} is about.
+         */
+        public <E extends DomainEvent<?>> Builder<S, T> on(Class<E> eventType, Function<E, Mono<T>> find) {
+            finders.put(eventType, find);
+            return this;
+        }
+
+        public <E extends DomainEvent<?>> Builder<S, T> transition(Class<E> eventType, S from, BiFunction<T, E, Mono<T>> apply) {
+            Map<S, SagaTransition<S, T, ?>> byStep = transitions.computeIfAbsent(eventType, type -> new EnumMap<>(stepType));
+            if (byStep.putIfAbsent(from, new SagaTransition<>(eventType, from, apply)) != null) {
+                throw new IllegalArgumentException("Saga " + name + " already handles " + eventType.getSimpleName() + " at " + from);
+            }
+            return this;
+        }
+
+        public SagaDefinition<S, T> build() {
+            for (Class<?> eventType : transitions.keySet()) {
+                if (!finders.containsKey(eventType)) {
+                    throw new IllegalStateException("Saga " + name + " does not declare how to find instances for "
+                            + eventType.getSimpleName());
+                }
+            }
+            if (defaultTimeout != null) {
+                steps.replaceAll((step, declared) -> declared.timeout() == null ? declared.withTimeout(defaultTimeout) : declared);
+            }
+            return new SagaDefinition<>(this);
+        }
+
+        private SagaStep<S, T> declared(S step) {
+            SagaStep<S, T> declared = steps.get(step);
+            if (declared == null) {
+                throw new IllegalArgumentException("Saga " + name + " does not declare step " + step);
+            }
+            return declared;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.transferer.shared.saga;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.events.EventBus;
+import com.transferer.shared.events.HandlerOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs a {@link SagaDefinition}. {@link #advance(Object)} runs the step an instance rests at, and
+ * {@link #subscribe(EventBus, HandlerOptions)} applies the declared transitions as events arrive;
+ * events for instances that are not at the step a transition starts from are stale or duplicated
+ * and are ignored. Steps listed in {@code fusedSteps} run their fused action instead, where they
+ * declare one. Every step and transition is timed as {@code saga.step} and
+ * {@code saga.transition}.
+ * <p>
+ * A step that times out is not handed to its failure handler: the error propagates so that the
+ * caller's retry policy runs the step again from the state that was last saved.
+ */
+public class SagaEngine<S extends Enum<S>, T> {
+    private static final Logger logger = LoggerFactory.getLogger(SagaEngine.class);
+
+    private final SagaDefinition<S, T> definition;
+    private final Set<S> fusedSteps;
+    private final MeterRegistry meterRegistry;
+
+    public SagaEngine(SagaDefinition<S, T> definition, Set<S> fusedSteps, MeterRegistry meterRegistry) {
+        this.definition = definition;
+        this.fusedSteps = Set.copyOf(fusedSteps);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Mono<T> advance(T instance) {
+        S current = definition.stepOf(instance);
+        SagaStep<S, T> step = definition.step(current);
+        if (step == null) {
+            return Mono.just(instance);
+        }
+        boolean fused = step.fusedAction() != null && fusedSteps.contains(current);
+        Function<T, Mono<T>> action = fused ? step.fusedAction() : step.action();
+        AtomicReference<String> outcome = new AtomicReference<>(fused ? "fused" : "completed");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Mono<T> execution = Mono.defer(() -> action.apply(instance))
+                .defaultIfEmpty(instance)
+                .onErrorResume(error -> !(error instanceof TimeoutException), error -> {
+                    outcome.set("failed");
+                    logger.debug("Saga {} step {} failed", definition.name(), current, error);
+                    return step.onFailure().apply(instance, error);
+                });
+        if (step.timeout() != null) {
+            execution = execution.timeout(step.timeout());
+        }
+        return execution
+                .doOnSuccess(result -> sample.stop(timer("saga.step", outcome.get(), "step", current.name())))
+                .doOnError(error -> sample.stop(timer("saga.step",
+                        error instanceof TimeoutException ? "timed_out" : "error", "step", current.name())));
+    }
+
+    /**
+     * Subscribes one handler per event type with declared transitions.
+     */
+    public void subscribe(EventBus eventBus, HandlerOptions options) {
+        for (Map.Entry<Class<?>, Map<S, SagaTransition<S, T, ?>>> entry : definition.transitions().entrySet()) {
+            subscribe(eventBus, entry.getKey(), entry.getValue(), options);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends DomainEvent<?>> void subscribe(EventBus eventBus, Class<?> eventType,
+                                                      Map<S, SagaTransition<S, T, ?>> byStep, HandlerOptions options) {
+        Class<E> typedEventType = (Class<E>) eventType;
+        Function<E, Mono<T>> find = definition.finder(typedEventType);
+        eventBus.subscribe(typedEventType, event -> find.apply(event)
+                .flatMap(instance -> apply(instance, event, (Map<S, SagaTransition<S, T, E>>) (Map<S, ?>) byStep))
+                .then(), options);
+    }
+
+    private <E extends DomainEvent<?>> Mono<T> apply(T instance, E event, Map<S, SagaTransition<S, T, E>> byStep) {
+        S current = definition.stepOf(instance);
+        SagaTransition<S, T, E> transition = byStep.get(current);
+        String eventType = event.getClass().getSimpleName();
+        if (transition == null) {
+            logger.debug("Saga {} ignored {} {} at step {}", definition.name(), eventType, event.getEventId(), current);
+            return Mono.empty();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return Mono.defer(() -> transition.apply().apply(instance, event))
+                .doOnSuccess(result -> sample.stop(timer("saga.transition", "completed", "event", eventType, "from", current.name())))
+                .doOnError(error -> sample.stop(timer("saga.transition", "error", "event", eventType, "from", current.name())));
+    }
+
+    private Timer timer(String name, String outcome, String... tags) {
+        return Timer.builder(name)
+                .tag("saga", definition.name())
+                .tags(tags)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.transferer.shared.saga;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * What a saga does while an instance rests at {@code step}: {@code action} moves it on, and
+ * {@code onFailure} decides what becomes of it when the action fails, typically failing it or
+ * starting compensation. {@code timeout}, if set, bounds both. {@code fusedAction}, if set, does
+ * the work of this step and the one after it in a single round trip, for deployments that enable
+ * fusion of this step.
+ */
+public record SagaStep<S extends Enum<S>, T>(
+        S step,
+        Function<T, Mono<T>> action,
+        BiFunction<T, Throwable, Mono<T>> onFailure,
+        Duration timeout,
+        Function<T, Mono<T>> fusedAction) {
+
+    SagaStep<S, T> withTimeout(Duration timeout) {
+        return new SagaStep<>(step, action, onFailure, timeout, fusedAction);
+    }
+
+    SagaStep<S, T> withFusedAction(Function<T, Mono<T>> fusedAction) {
+        return new SagaStep<>(step, action, onFailure, timeout, fusedAction);
+    }
+}
@@ -0,0 +1,15 @@
+package com.transferer.shared.saga;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiFunction;
+
+/**
+ * How an event of {@code eventType} moves an instance on that rests at {@code from}.
+ */
+public record SagaTransition<S extends Enum<S>, T, E extends DomainEvent<?>>(
+        Class<E> eventType,
+        S from,
+        BiFunction<T, E, Mono<T>> apply) {
+}
@@ -15,6 +15,7 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
 
 @Service
 @Transactional
@@ -50,6 +51,40 @@ public class TransactionService {
                 });
     }
 
+    /**
+     * Creates a transaction that goes straight to processing, for callers that would otherwise
+     * mark it as processing right after creating it.
+     */
+    public Mono<Transaction> createProcessingTransaction(AccountId senderAccountId, AccountId recipientAccountId, BigDecimal amount, String description) {
+        return Mono.fromCallable(() -> new Transaction(senderAccountId, recipientAccountId, amount, description))
+                .flatMap(transaction -> {
+                    TransactionCreatedEvent createdEvent = createdEvent(transaction);
+                    transaction.markAsProcessing();
+                    return transactionRepository.saveAndPublishEvents(transaction, Collections.singletonList(createdEvent));
+                });
+    }
+
+    /**
+     * Records a transaction that is settled as part of the caller's own database transaction, so it
+     * goes straight to completed.
+     */
+    public Mono<Transaction> createCompletedTransaction(AccountId senderAccountId, AccountId recipientAccountId, BigDecimal amount, String description) {
+        return Mono.fromCallable(() -> new Transaction(senderAccountId, recipientAccountId, amount, description))
+                .flatMap(transaction -> {
+                    TransactionCreatedEvent createdEvent = createdEvent(transaction);
+                    transaction.markAsProcessing();
+                    transaction.markAsCompleted();
+                    TransactionCompletedEvent completedEvent = new TransactionCompletedEvent(
+                            transaction.getId(),
+                            transaction.getSenderAccountId(),
+                            transaction.getRecipientAccountId(),
+                            transaction.getAmount(),
+                            transaction.getCompletedAt()
+                    );
+                    return transactionRepository.saveAndPublishEvents(transaction, List.of(createdEvent, completedEvent));
+                });
+    }
+
     @Transactional(readOnly = true)
     public Mono<Transaction> getTransaction(TransactionId transactionId) {
         return transactionRepository.findById(transactionId)
@@ -76,16 +111,32 @@ public class TransactionService {
         return transactionRepository.findByStatus(status);
     }
 
+    /**
+     * Leaves a transaction that is already processing as it is, so a saga step that runs again
+     * does not fail on it.
+     */
     public Mono<Transaction> markTransactionAsProcessing(TransactionId transactionId) {
         return getTransaction(transactionId)
-                .doOnNext(Transaction::markAsProcessing)
-                .flatMap(transactionRepository::save);
+                .flatMap(transaction -> {
+                    if (transaction.getStatus() == TransactionStatus.PROCESSING) {
+                        return Mono.just(transaction);
+                    }
+                    transaction.markAsProcessing();
+                    return transactionRepository.save(transaction);
+                });
     }
 
+    /**
+     * Leaves a transaction that is already completed as it is, without publishing its completion
+     * again, so a saga step that runs again does not fail on it.
+     */
     public Mono<Transaction> markTransactionAsCompleted(TransactionId transactionId) {
         return getTransaction(transactionId)
-                .doOnNext(Transaction::markAsCompleted)
                 .flatMap(transaction -> {
+                    if (transaction.getStatus() == TransactionStatus.COMPLETED) {
+                        return Mono.just(transaction);
+                    }
+                    transaction.markAsCompleted();
                     TransactionCompletedEvent event = new TransactionCompletedEvent(
                             transaction.getId(),
                             transaction.getSenderAccountId(),
@@ -111,4 +162,14 @@ public class TransactionService {
                     return transactionRepository.saveAndPublishEvents(transaction, Collections.singletonList(event));
                 });
     }
+
+    private static TransactionCreatedEvent createdEvent(Transaction transaction) {
+        return new TransactionCreatedEvent(
+                transaction.getId(),
+                transaction.getSenderAccountId(),
+                transaction.getRecipientAccountId(),
+                transaction.getAmount(),
+                transaction.getDescription()
+        );
+    }
 }
\ No newline at end of file
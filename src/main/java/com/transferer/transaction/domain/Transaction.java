@@ -2,6 +2,8 @@ package com.transferer.transaction.domain;
 
 import com.transferer.account.domain.AccountId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 import jakarta.validation.constraints.DecimalMin;
@@ -12,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Table("transactions")
-public class Transaction {
+public class Transaction implements Persistable<TransactionId> {
 
     @Id
     private TransactionId id;
@@ -48,6 +50,9 @@ public class Transaction {
     @Column("completed_at")
     private LocalDateTime completedAt;
 
+    @Transient
+    private boolean isNew = true;
+
     protected Transaction() {
     }
 
@@ -134,6 +139,15 @@ public class Transaction {
         return completedAt;
     }
 
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public void markNotNew() {
+        this.isNew = false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
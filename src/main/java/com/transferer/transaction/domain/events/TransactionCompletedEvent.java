@@ -7,6 +7,7 @@ import com.transferer.transaction.domain.TransactionId;
 import com.transferer.transaction.domain.events.body.TransactionCompletedEventBody;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 public class TransactionCompletedEvent extends DomainEvent<TransactionCompletedEventBody> {
@@ -26,6 +27,11 @@ public class TransactionCompletedEvent extends DomainEvent<TransactionCompletedE
         this.transactionId = transactionId;
     }
 
+    public TransactionCompletedEvent(String eventId, Instant occurredAt, TransactionCompletedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.TRANSACTION_COMPLETED, body);
+        this.transactionId = body.getTransactionId();
+    }
+
     @Override
     public String getAggregateId() {
         return transactionId.toString();
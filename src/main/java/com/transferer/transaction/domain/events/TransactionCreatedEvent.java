@@ -7,6 +7,7 @@ import com.transferer.transaction.domain.TransactionId;
 import com.transferer.transaction.domain.events.body.TransactionCreatedEventBody;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class TransactionCreatedEvent extends DomainEvent<TransactionCreatedEventBody> {
     private final TransactionId transactionId;
@@ -25,6 +26,11 @@ public class TransactionCreatedEvent extends DomainEvent<TransactionCreatedEvent
         this.transactionId = transactionId;
     }
 
+    public TransactionCreatedEvent(String eventId, Instant occurredAt, TransactionCreatedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.TRANSACTION_CREATED, body);
+        this.transactionId = body.getTransactionId();
+    }
+
     @Override
     public String getAggregateId() {
         return transactionId.toString();
@@ -7,6 +7,7 @@ import com.transferer.transaction.domain.TransactionId;
 import com.transferer.transaction.domain.events.body.TransactionFailedEventBody;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class TransactionFailedEvent extends DomainEvent<TransactionFailedEventBody> {
     private final TransactionId transactionId;
@@ -25,6 +26,11 @@ public class TransactionFailedEvent extends DomainEvent<TransactionFailedEventBo
         this.transactionId = transactionId;
     }
 
+    public TransactionFailedEvent(String eventId, Instant occurredAt, TransactionFailedEventBody body) {
+        super(eventId, occurredAt, DomainEventType.TRANSACTION_FAILED, body);
+        this.transactionId = body.getTransactionId();
+    }
+
     @Override
     public String getAggregateId() {
         return transactionId.toString();
@@ -42,12 +42,14 @@ public class R2dbcTransactionRepository implements TransactionRepository {
     
     @Override
     public Mono<Transaction> save(Transaction transaction) {
-        return jpaRepository.save(transaction);
+        return jpaRepository.save(transaction)
+                .doOnNext(Transaction::markNotNew);
     }
 
     @Override
     public Mono<Transaction> saveAndPublishEvents(Transaction transaction, List<DomainEvent<?>> events) {
         return jpaRepository.save(transaction)
+                .doOnNext(Transaction::markNotNew)
                 .flatMap(savedTransaction ->
                         eventPublisher.publishWithinTransaction(events, transactionalOperator)
                                 .then(Mono.just(savedTransaction))
@@ -57,27 +59,32 @@ public class R2dbcTransactionRepository implements TransactionRepository {
     
     @Override
     public Mono<Transaction> findById(TransactionId id) {
-        return jpaRepository.findById(id);
+        return jpaRepository.findById(id)
+                .doOnNext(Transaction::markNotNew);
     }
     
     @Override
     public Flux<Transaction> findBySenderAccountId(AccountId senderAccountId) {
-        return jpaRepository.findBySenderAccountId(senderAccountId);
+        return jpaRepository.findBySenderAccountId(senderAccountId)
+                .doOnNext(Transaction::markNotNew);
     }
     
     @Override
     public Flux<Transaction> findByRecipientAccountId(AccountId recipientAccountId) {
-        return jpaRepository.findByRecipientAccountId(recipientAccountId);
+        return jpaRepository.findByRecipientAccountId(recipientAccountId)
+                .doOnNext(Transaction::markNotNew);
     }
     
     @Override
     public Flux<Transaction> findByAccountId(AccountId accountId) {
-        return jpaRepository.findByAccountId(accountId);
+        return jpaRepository.findByAccountId(accountId)
+                .doOnNext(Transaction::markNotNew);
     }
     
     @Override
     public Flux<Transaction> findByStatus(TransactionStatus status) {
-        return jpaRepository.findByStatus(status);
+        return jpaRepository.findByStatus(status)
+                .doOnNext(Transaction::markNotNew);
     }
     
     @Override
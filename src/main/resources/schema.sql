@@ -11,6 +11,17 @@ CREATE TABLE IF NOT EXISTS accounts (
 CREATE INDEX IF NOT EXISTS idx_accounts_account_number ON accounts (account_number);
 CREATE INDEX IF NOT EXISTS idx_accounts_status ON accounts (status);
 
+-- One row per debit or credit applied to an account for a transaction, so that running a saga
+-- step again cannot move the same money twice
+CREATE TABLE IF NOT EXISTS account_entries (
+    account_id VARCHAR(255) NOT NULL,
+    transaction_id VARCHAR(255) NOT NULL,
+    entry_type VARCHAR(10) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, transaction_id, entry_type)
+);
+
 CREATE TABLE IF NOT EXISTS transactions (
     id VARCHAR(255) PRIMARY KEY,
     sender_account_id VARCHAR(255) NOT NULL,
@@ -56,20 +67,85 @@ CREATE INDEX IF NOT EXISTS idx_payments_transaction_id ON payments (transaction_
 CREATE INDEX IF NOT EXISTS idx_payments_sender_account_id ON payments (sender_account_id);
 CREATE INDEX IF NOT EXISTS idx_payments_recipient_account_id ON payments (recipient_account_id);
 CREATE INDEX IF NOT EXISTS idx_payments_status ON payments (status);
+CREATE INDEX IF NOT EXISTS idx_payments_status_updated_at ON payments (status, updated_at, id);
 CREATE INDEX IF NOT EXISTS idx_payments_current_step ON payments (current_step);
 CREATE INDEX IF NOT EXISTS idx_payments_created_at ON payments (created_at);
 
+-- Range-partitioned by day on created_at; OutboxPartitionManager creates the daily partitions
+-- ahead of time and drops them once they expire. Unique keys must include the partition key, so
+-- event_id is only unique per partition, through an index on each one. An existing unpartitioned
+-- outbox_events table is left as it is and purged in chunks until it is migrated.
 CREATE TABLE IF NOT EXISTS outbox_events (
-    id BIGSERIAL PRIMARY KEY,
-    event_id VARCHAR(255) UNIQUE NOT NULL,
+    id BIGSERIAL,
+    event_id VARCHAR(255) NOT NULL,
     event_type VARCHAR(255) NOT NULL,
     aggregate_id VARCHAR(255) NOT NULL,
-    event_data JSONB NOT NULL,
+    event_data JSONB NULL,
+    event_payload BYTEA NULL,
+    codec VARCHAR(32) NOT NULL DEFAULT 'json',
     occurred_at TIMESTAMP NOT NULL,
     processed_at TIMESTAMP NULL,
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
-);
+    claimed_by VARCHAR(255) NULL,
+    claimed_until TIMESTAMP NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NULL,
+    last_error VARCHAR(1000) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (event_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS outbox_events_default PARTITION OF outbox_events DEFAULT;
+CREATE UNIQUE INDEX IF NOT EXISTS outbox_events_default_event_id_key ON outbox_events_default (event_id);
 
 CREATE INDEX IF NOT EXISTS idx_outbox_events_processed_at ON outbox_events (processed_at);
 CREATE INDEX IF NOT EXISTS idx_outbox_events_event_type ON outbox_events (event_type);
-CREATE INDEX IF NOT EXISTS idx_outbox_events_occurred_at ON outbox_events (occurred_at);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_outbox_events_occurred_at ON outbox_events (occurred_at);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_aggregate_id ON outbox_events (aggregate_id, id);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_claimed_by ON outbox_events (claimed_by);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_unprocessed ON outbox_events (id) WHERE processed_at IS NULL;
+
+CREATE TABLE IF NOT EXISTS outbox_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(255) UNIQUE NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    aggregate_id VARCHAR(255) NOT NULL,
+    event_data JSONB NULL,
+    event_payload BYTEA NULL,
+    codec VARCHAR(32) NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    attempts INT NOT NULL,
+    last_error VARCHAR(1000) NULL,
+    dead_lettered_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_dead_letters_dead_lettered_at ON outbox_dead_letters (dead_lettered_at);
+
+CREATE TABLE IF NOT EXISTS consumer_offsets (
+    consumer_name VARCHAR(255) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS processed_events (
+    consumer VARCHAR(255) NOT NULL,
+    event_id VARCHAR(255) NOT NULL,
+    processed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (consumer, event_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_events_processed_at ON processed_events (processed_at);
+
+CREATE TABLE IF NOT EXISTS saga_commands (
+    payment_id VARCHAR(255) PRIMARY KEY,
+    command_id VARCHAR(255) NOT NULL,
+    step VARCHAR(50) NOT NULL,
+    previous_step VARCHAR(50) NULL,
+    issued_at TIMESTAMP NOT NULL,
+    handled BOOLEAN NOT NULL DEFAULT FALSE,
+    claimed_by VARCHAR(255) NULL,
+    claimed_until TIMESTAMP NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_saga_commands_unhandled ON saga_commands (handled, issued_at);
+CREATE INDEX IF NOT EXISTS idx_saga_commands_claimed_by ON saga_commands (claimed_by);
\ No newline at end of file
@@ -90,11 +90,13 @@ public class TestEventUtils {
     }
     
     /**
-     * Checks if the expected events are present in the outbox table.
+     * Checks if the expected events are present in the outbox table. Step changes are kept in
+     * saga_commands instead, one row per payment, and are counted from there.
      */
     private static Mono<Void> checkOutboxForEvents(DatabaseClient databaseClient, Map<DomainEventType, Integer> expectedCounts) {
         return databaseClient
-                .sql("SELECT event_type, COUNT(*) as count FROM outbox_events GROUP BY event_type")
+                .sql("SELECT event_type, COUNT(*) as count FROM outbox_events GROUP BY event_type " +
+                        "UNION ALL SELECT 'PAYMENT_STEP_ADVANCED', COUNT(*) FROM saga_commands")
                 .fetch()
                 .all()
                 .collectMap(
@@ -82,6 +82,8 @@ public abstract class AbstractPaymentSagaTest {
         databaseClient.sql("DELETE FROM transactions").then().block();
         databaseClient.sql("DELETE FROM accounts").then().block();
         databaseClient.sql("DELETE FROM outbox_events").then().block();
+        databaseClient.sql("DELETE FROM processed_events").then().block();
+        databaseClient.sql("DELETE FROM saga_commands").then().block();
     }
 
     @Test
@@ -2,11 +2,18 @@ package com.transferer.payment;
 
 import com.transferer.shared.domain.events.DomainEvent;
 import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.events.ConsumerStartPosition;
+import com.transferer.shared.events.DispatchOptions;
 import com.transferer.shared.events.EventBus;
+import com.transferer.shared.events.EventConsumer;
+import com.transferer.shared.events.HandlerOptions;
+import com.transferer.shared.events.OverflowPolicy;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * A decorator EventBus that publishes each event twice to verify idempotency.
@@ -32,6 +39,16 @@ public class DuplicateEventPublisher implements EventBus {
         delegate.subscribe(eventClass, handler);
     }
 
+    @Override
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler, DispatchOptions options) {
+        delegate.subscribe(eventClass, handler, options);
+    }
+
+    @Override
+    public <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Function<T, Mono<Void>> handler, HandlerOptions options) {
+        delegate.subscribe(eventClass, handler, options);
+    }
+
     @Override
     public Flux<DomainEvent<?>> eventStream() {
         return delegate.eventStream();
@@ -41,4 +58,14 @@ public class DuplicateEventPublisher implements EventBus {
     public Flux<DomainEvent<?>> eventStream(DomainEventType eventType) {
         return delegate.eventStream(eventType);
     }
+
+    @Override
+    public Flux<DomainEvent<?>> eventStream(int capacity, OverflowPolicy overflowPolicy) {
+        return delegate.eventStream(capacity, overflowPolicy);
+    }
+
+    @Override
+    public Disposable consume(String consumerName, ConsumerStartPosition startPosition, EventConsumer consumer) {
+        return delegate.consume(consumerName, startPosition, consumer);
+    }
 }
\ No newline at end of file
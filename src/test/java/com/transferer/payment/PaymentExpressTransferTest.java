@@ -0,0 +1,138 @@
+package com.transferer.payment;
+
+import com.transferer.TestEventUtils;
+import com.transferer.account.application.AccountService;
+import com.transferer.account.domain.Account;
+import com.transferer.account.domain.AccountId;
+import com.transferer.payment.application.PaymentService;
+import com.transferer.payment.domain.Payment;
+import com.transferer.payment.domain.PaymentStatus;
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.transaction.application.TransactionService;
+import com.transferer.transaction.domain.TransactionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({
+    com.transferer.payment.application.PaymentService.class,
+    com.transferer.account.application.AccountService.class,
+    com.transferer.transaction.application.TransactionService.class,
+    com.transferer.payment.infrastructure.R2dbcPaymentRepository.class,
+    com.transferer.payment.infrastructure.R2dbcSagaCommandChannel.class,
+    com.transferer.account.infrastructure.R2dbcAccountRepository.class,
+    com.transferer.transaction.infrastructure.R2dbcTransactionRepository.class,
+    com.transferer.shared.outbox.OutboxEventBus.class,
+    com.transferer.shared.outbox.OutboxDispatchLog.class,
+    com.transferer.shared.outbox.OutboxEventPublisher.class,
+    com.transferer.shared.outbox.OutboxNotifierConfiguration.class,
+    com.transferer.shared.outbox.OutboxCodecConfiguration.class,
+    com.transferer.shared.outbox.OutboxConsumers.class,
+    com.transferer.shared.outbox.OutboxMetrics.class,
+    com.transferer.shared.inbox.R2dbcEventInbox.class,
+    com.transferer.shared.events.EventBusConfiguration.class,
+    io.micrometer.core.instrument.simple.SimpleMeterRegistry.class,
+    com.transferer.TestJacksonConfiguration.class
+})
+@ActiveProfiles("test")
+@TestPropertySource(properties = "payment.express.enabled=true")
+class PaymentExpressTransferTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private AccountId senderAccountId;
+    private AccountId recipientAccountId;
+
+    @BeforeEach
+    void setUp() {
+        Account senderAccount = accountService.openAccount("John Doe", new BigDecimal("1000.00")).block();
+        Account recipientAccount = accountService.openAccount("Jane Smith", new BigDecimal("500.00")).block();
+        senderAccountId = senderAccount.getId();
+        recipientAccountId = recipientAccount.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM payments").then().block();
+        databaseClient.sql("DELETE FROM transactions").then().block();
+        databaseClient.sql("DELETE FROM accounts").then().block();
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+        databaseClient.sql("DELETE FROM processed_events").then().block();
+        databaseClient.sql("DELETE FROM saga_commands").then().block();
+    }
+
+    @Test
+    void should_settle_a_payment_between_local_accounts_in_one_call() {
+        Payment payment = TestEventUtils.performAndWaitForEvents(
+                paymentService.initiatePayment(senderAccountId, recipientAccountId, new BigDecimal("100.00"), "Express"),
+                databaseClient,
+                List.of(
+                        DomainEventType.PAYMENT_INITIATED,
+                        DomainEventType.TRANSACTION_CREATED,
+                        DomainEventType.ACCOUNT_DEBITED,
+                        DomainEventType.ACCOUNT_CREDITED,
+                        DomainEventType.TRANSACTION_COMPLETED,
+                        DomainEventType.PAYMENT_COMPLETED
+                )
+        ).block();
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(payment.getCurrentStep()).isEqualTo(PaymentStep.COMPLETED);
+        assertThat(paymentService.getPayment(payment.getId()).block().getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(transactionService.getTransaction(payment.getTransactionId()).block().getStatus())
+                .isEqualTo(TransactionStatus.COMPLETED);
+
+        assertThat(accountService.getAccountBalance(senderAccountId).block()).isEqualByComparingTo("900.00");
+        assertThat(accountService.getAccountBalance(recipientAccountId).block()).isEqualByComparingTo("600.00");
+    }
+
+    @Test
+    void should_leave_a_payment_the_sender_cannot_cover_to_the_saga() {
+        StepVerifier.create(paymentService.initiatePayment(senderAccountId, recipientAccountId, new BigDecimal("5000.00"), "Too much"))
+                .assertNext(payment -> {
+                    assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PENDING);
+                    assertThat(payment.getCurrentStep()).isEqualTo(PaymentStep.INITIATED);
+                    assertThat(payment.getTransactionId()).isNull();
+                })
+                .verifyComplete();
+
+        assertThat(accountService.getAccountBalance(senderAccountId).block()).isEqualByComparingTo("1000.00");
+        assertThat(transactionService.getTransactionsByAccount(senderAccountId).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void should_leave_a_payment_to_an_inactive_account_to_the_saga() {
+        accountService.suspendAccount(recipientAccountId).block();
+
+        StepVerifier.create(paymentService.initiatePayment(senderAccountId, recipientAccountId, new BigDecimal("100.00"), "Suspended"))
+                .assertNext(payment -> assertThat(payment.getCurrentStep()).isEqualTo(PaymentStep.INITIATED))
+                .verifyComplete();
+
+        assertThat(accountService.getAccountBalance(senderAccountId).block()).isEqualByComparingTo("1000.00");
+        assertThat(accountService.getAccountBalance(recipientAccountId).block()).isEqualByComparingTo("500.00");
+    }
+}
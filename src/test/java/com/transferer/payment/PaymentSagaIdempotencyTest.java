@@ -1,9 +1,15 @@
 package com.transferer.payment;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transferer.shared.events.DispatchOptions;
 import com.transferer.shared.events.EventBus;
+import com.transferer.shared.events.OverflowPolicy;
+import com.transferer.shared.outbox.OutboxConsumers;
+import com.transferer.shared.outbox.OutboxDispatchLog;
 import com.transferer.shared.outbox.OutboxEventBus;
 import com.transferer.shared.outbox.OutboxEventRepository;
+import com.transferer.shared.outbox.OutboxEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -17,9 +23,16 @@ import org.springframework.test.annotation.DirtiesContext;
     com.transferer.account.application.AccountService.class, 
     com.transferer.transaction.application.TransactionService.class,
     com.transferer.payment.infrastructure.R2dbcPaymentRepository.class,
+    com.transferer.payment.infrastructure.R2dbcSagaCommandChannel.class,
     com.transferer.account.infrastructure.R2dbcAccountRepository.class,
     com.transferer.transaction.infrastructure.R2dbcTransactionRepository.class,
     com.transferer.shared.outbox.OutboxEventPublisher.class,
+    com.transferer.shared.outbox.OutboxNotifierConfiguration.class,
+    com.transferer.shared.outbox.OutboxCodecConfiguration.class,
+    com.transferer.shared.outbox.OutboxConsumers.class,
+    com.transferer.shared.outbox.OutboxMetrics.class,
+    com.transferer.shared.inbox.R2dbcEventInbox.class,
+    SimpleMeterRegistry.class,
     com.transferer.TestJacksonConfiguration.class,
     PaymentSagaIdempotencyTest.TestConfiguration.class
 })
@@ -29,8 +42,16 @@ class PaymentSagaIdempotencyTest extends AbstractPaymentSagaTest {
     
     static class TestConfiguration {
         @Bean
-        public OutboxEventBus outboxEventBus(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
-            return new OutboxEventBus(outboxEventRepository, objectMapper);
+        public OutboxDispatchLog outboxDispatchLog() {
+            return OutboxDispatchLog.polling();
+        }
+
+        @Bean
+        public OutboxEventBus outboxEventBus(OutboxEventRepository outboxEventRepository, OutboxEventSerializer outboxEventSerializer,
+                                             OutboxConsumers outboxConsumers, MeterRegistry meterRegistry,
+                                             OutboxDispatchLog outboxDispatchLog) {
+            return new OutboxEventBus(outboxEventRepository, outboxEventSerializer, outboxConsumers, meterRegistry,
+                    1024, OverflowPolicy.DROP_OLDEST, 100, DispatchOptions.synchronous(), outboxDispatchLog);
         }
         
         @Bean("duplicateEventBus")
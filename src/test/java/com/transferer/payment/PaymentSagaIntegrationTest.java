@@ -11,10 +11,19 @@ import org.springframework.test.annotation.DirtiesContext;
     com.transferer.account.application.AccountService.class, 
     com.transferer.transaction.application.TransactionService.class,
     com.transferer.payment.infrastructure.R2dbcPaymentRepository.class,
+    com.transferer.payment.infrastructure.R2dbcSagaCommandChannel.class,
     com.transferer.account.infrastructure.R2dbcAccountRepository.class,
     com.transferer.transaction.infrastructure.R2dbcTransactionRepository.class,
     com.transferer.shared.outbox.OutboxEventBus.class,
+    com.transferer.shared.outbox.OutboxDispatchLog.class,
     com.transferer.shared.outbox.OutboxEventPublisher.class,
+    com.transferer.shared.outbox.OutboxNotifierConfiguration.class,
+    com.transferer.shared.outbox.OutboxCodecConfiguration.class,
+    com.transferer.shared.outbox.OutboxConsumers.class,
+    com.transferer.shared.outbox.OutboxMetrics.class,
+    com.transferer.shared.inbox.R2dbcEventInbox.class,
+    com.transferer.shared.events.EventBusConfiguration.class,
+    io.micrometer.core.instrument.simple.SimpleMeterRegistry.class,
     com.transferer.TestJacksonConfiguration.class
 })
 @ActiveProfiles("test")
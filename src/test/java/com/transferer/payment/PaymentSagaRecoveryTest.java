@@ -0,0 +1,169 @@
+package com.transferer.payment;
+
+import com.transferer.account.application.AccountService;
+import com.transferer.account.domain.AccountId;
+import com.transferer.payment.application.PaymentService;
+import com.transferer.payment.domain.Payment;
+import com.transferer.payment.domain.PaymentRepository;
+import com.transferer.payment.domain.PaymentStatus;
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.transaction.application.TransactionService;
+import com.transferer.transaction.domain.Transaction;
+import com.transferer.transaction.domain.TransactionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({
+    com.transferer.payment.application.PaymentService.class,
+    com.transferer.account.application.AccountService.class,
+    com.transferer.transaction.application.TransactionService.class,
+    com.transferer.payment.infrastructure.R2dbcPaymentRepository.class,
+    com.transferer.payment.infrastructure.R2dbcSagaCommandChannel.class,
+    com.transferer.account.infrastructure.R2dbcAccountRepository.class,
+    com.transferer.transaction.infrastructure.R2dbcTransactionRepository.class,
+    com.transferer.shared.outbox.OutboxEventBus.class,
+    com.transferer.shared.outbox.OutboxDispatchLog.class,
+    com.transferer.shared.outbox.OutboxEventPublisher.class,
+    com.transferer.shared.outbox.OutboxNotifierConfiguration.class,
+    com.transferer.shared.outbox.OutboxCodecConfiguration.class,
+    com.transferer.shared.outbox.OutboxConsumers.class,
+    com.transferer.shared.outbox.OutboxMetrics.class,
+    com.transferer.shared.inbox.R2dbcEventInbox.class,
+    com.transferer.shared.events.EventBusConfiguration.class,
+    io.micrometer.core.instrument.simple.SimpleMeterRegistry.class,
+    com.transferer.TestJacksonConfiguration.class
+})
+@ActiveProfiles("test")
+class PaymentSagaRecoveryTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private AccountId senderAccountId;
+    private AccountId recipientAccountId;
+
+    @BeforeEach
+    void setUp() {
+        senderAccountId = accountService.openAccount("John Doe", new BigDecimal("1000.00")).block().getId();
+        recipientAccountId = accountService.openAccount("Jane Smith", new BigDecimal("500.00")).block().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM payments").then().block();
+        databaseClient.sql("DELETE FROM transactions").then().block();
+        databaseClient.sql("DELETE FROM account_entries").then().block();
+        databaseClient.sql("DELETE FROM accounts").then().block();
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+        databaseClient.sql("DELETE FROM processed_events").then().block();
+        databaseClient.sql("DELETE FROM saga_commands").then().block();
+    }
+
+    @Test
+    void should_debit_the_sender_once_however_often_a_payment_is_resumed() {
+        Payment payment = paymentAt(PaymentStep.TRANSACTION_PROCESSING);
+
+        // Both runs see the payment unchanged, as the debit only writes the account
+        paymentService.resumePayment(reload(payment)).block();
+        paymentService.resumePayment(reload(payment)).block();
+
+        assertThat(accountService.getAccountBalance(senderAccountId).block()).isEqualByComparingTo("900.00");
+        assertThat(countEvents("ACCOUNT_DEBITED")).isEqualTo(1);
+        assertThat(reload(payment).getCurrentStep()).isEqualTo(PaymentStep.TRANSACTION_PROCESSING);
+    }
+
+    @Test
+    void should_not_fail_a_payment_whose_transaction_a_previous_run_already_completed() {
+        Payment payment = paymentAt(PaymentStep.RECIPIENT_CREDITED);
+        transactionService.markTransactionAsCompleted(payment.getTransactionId()).block();
+
+        paymentService.resumePayment(reload(payment)).block();
+
+        Payment resumed = reload(payment);
+        assertThat(resumed.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(resumed.getCurrentStep()).isEqualTo(PaymentStep.RECIPIENT_CREDITED);
+        assertThat(transactionService.getTransaction(payment.getTransactionId()).block().getStatus())
+                .isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(countEvents("TRANSACTION_COMPLETED")).isEqualTo(1);
+    }
+
+    @Test
+    void should_send_the_compensation_step_to_the_saga_when_the_recipient_cannot_be_credited() {
+        Payment payment = paymentAt(PaymentStep.SENDER_DEBITED, true);
+        accountService.debitAccount(senderAccountId, payment.getTransactionId(), payment.getAmount()).block();
+        accountService.suspendAccount(recipientAccountId).block();
+
+        paymentService.resumePayment(reload(payment)).block();
+
+        Payment compensating = reload(payment);
+        assertThat(compensating.getStatus()).isEqualTo(PaymentStatus.COMPENSATING);
+        assertThat(compensating.getCurrentStep()).isEqualTo(PaymentStep.COMPENSATING_SENDER_CREDIT);
+        assertThat(sagaCommandStep(payment)).isEqualTo(PaymentStep.COMPENSATING_SENDER_CREDIT.name());
+
+        // What the relay does with that command
+        paymentService.resumePayment(compensating).block();
+
+        assertThat(accountService.getAccountBalance(senderAccountId).block()).isEqualByComparingTo("1000.00");
+    }
+
+    private Payment paymentAt(PaymentStep step) {
+        return paymentAt(step, false);
+    }
+
+    private Payment paymentAt(PaymentStep step, boolean processing) {
+        BigDecimal amount = new BigDecimal("100.00");
+        Transaction transaction = transactionService.createTransaction(senderAccountId, recipientAccountId, amount, "Stuck")
+                .flatMap(created -> transactionService.markTransactionAsProcessing(created.getId()))
+                .block();
+        Payment payment = new Payment(senderAccountId, recipientAccountId, amount, "Stuck");
+        payment.setTransactionId(transaction.getId());
+        if (processing) {
+            payment.startProcessing();
+        }
+        payment.advanceToStep(step);
+        return paymentRepository.save(payment).block();
+    }
+
+    private Payment reload(Payment payment) {
+        return paymentRepository.findById(payment.getId()).block();
+    }
+
+    private String sagaCommandStep(Payment payment) {
+        return databaseClient.sql("SELECT step FROM saga_commands WHERE payment_id = :paymentId")
+                .bind("paymentId", payment.getId().getValue())
+                .map(row -> row.get("step", String.class))
+                .one()
+                .block();
+    }
+
+    private long countEvents(String eventType) {
+        return databaseClient.sql("SELECT COUNT(*) AS count FROM outbox_events WHERE event_type = :eventType")
+                .bind("eventType", eventType)
+                .map(row -> row.get("count", Long.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,159 @@
+package com.transferer.payment.application;
+
+import com.transferer.account.application.AccountService;
+import com.transferer.account.domain.AccountId;
+import com.transferer.payment.domain.Payment;
+import com.transferer.payment.domain.PaymentId;
+import com.transferer.payment.domain.PaymentRepository;
+import com.transferer.payment.domain.PaymentStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataR2dbcTest
+@Import({
+    com.transferer.payment.application.PaymentService.class,
+    com.transferer.account.application.AccountService.class,
+    com.transferer.transaction.application.TransactionService.class,
+    com.transferer.payment.infrastructure.R2dbcPaymentRepository.class,
+    com.transferer.payment.infrastructure.R2dbcSagaCommandChannel.class,
+    com.transferer.account.infrastructure.R2dbcAccountRepository.class,
+    com.transferer.transaction.infrastructure.R2dbcTransactionRepository.class,
+    com.transferer.shared.outbox.OutboxEventBus.class,
+    com.transferer.shared.outbox.OutboxDispatchLog.class,
+    com.transferer.shared.outbox.OutboxEventPublisher.class,
+    com.transferer.shared.outbox.OutboxNotifierConfiguration.class,
+    com.transferer.shared.outbox.OutboxCodecConfiguration.class,
+    com.transferer.shared.outbox.OutboxConsumers.class,
+    com.transferer.shared.outbox.OutboxMetrics.class,
+    com.transferer.shared.inbox.R2dbcEventInbox.class,
+    com.transferer.shared.events.EventBusConfiguration.class,
+    io.micrometer.core.instrument.simple.SimpleMeterRegistry.class,
+    com.transferer.TestJacksonConfiguration.class
+})
+@ActiveProfiles("test")
+class PaymentSagaSweeperTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private PaymentService paymentService;
+    private List<PaymentId> resumed;
+    private AccountId senderAccountId;
+    private AccountId recipientAccountId;
+
+    @BeforeEach
+    void setUp() {
+        resumed = Collections.synchronizedList(new ArrayList<>());
+        paymentService = mock(PaymentService.class);
+        when(paymentService.resumePayment(any())).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            resumed.add(payment.getId());
+            return Mono.just(payment);
+        });
+        senderAccountId = accountService.openAccount("John Doe", new BigDecimal("1000.00")).block().getId();
+        recipientAccountId = accountService.openAccount("Jane Smith", new BigDecimal("500.00")).block().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM payments").then().block();
+        databaseClient.sql("DELETE FROM accounts").then().block();
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Test
+    void should_page_through_every_idle_payment_oldest_first() {
+        List<PaymentId> idle = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            idle.add(payment(PaymentStep.INITIATED, NOW.minusMinutes(10 - i)));
+        }
+        // Same timestamp as the first page's last row, so the keyset has to break the tie by id
+        idle.add(payment(PaymentStep.INITIATED, NOW.minusMinutes(9)));
+        payment(PaymentStep.INITIATED, NOW.minusSeconds(10));
+
+        StepVerifier.create(sweeper(2).sweepOnce(NOW))
+                .expectNext(6L)
+                .verifyComplete();
+
+        assertThat(resumed).containsExactlyInAnyOrderElementsOf(idle);
+    }
+
+    @Test
+    void should_wait_out_the_threshold_of_the_step_a_payment_rests_at() {
+        PaymentId stuckCreating = payment(PaymentStep.INITIATED, NOW.minusMinutes(2));
+        payment(PaymentStep.SENDER_DEBITED, NOW.minusMinutes(2));
+        PaymentId stuckDebiting = payment(PaymentStep.SENDER_DEBITED, NOW.minusMinutes(20));
+
+        StepVerifier.create(sweeper(100).sweepOnce(NOW))
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(resumed).containsExactlyInAnyOrder(stuckCreating, stuckDebiting);
+    }
+
+    @Test
+    void should_leave_settled_payments_alone() {
+        Payment completed = new Payment(senderAccountId, recipientAccountId, new BigDecimal("10.00"), "Done");
+        completed.markAsCompleted();
+        paymentRepository.save(completed).block();
+        setUpdatedAt(completed.getId(), NOW.minusHours(1));
+
+        StepVerifier.create(sweeper(100).sweepOnce(NOW))
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertThat(resumed).isEmpty();
+    }
+
+    private PaymentSagaSweeper sweeper(int pageSize) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("payment.saga.sweeper.step-idle-thresholds.INITIATED", "60000");
+        return new PaymentSagaSweeper(paymentRepository, paymentService, environment, 600000, pageSize, 2, 1000, 1000);
+    }
+
+    private PaymentId payment(PaymentStep step, LocalDateTime updatedAt) {
+        Payment payment = new Payment(senderAccountId, recipientAccountId, new BigDecimal("10.00"), "Stuck");
+        if (step != PaymentStep.INITIATED) {
+            payment.advanceToStep(step);
+        }
+        paymentRepository.save(payment).block();
+        setUpdatedAt(payment.getId(), updatedAt);
+        return payment.getId();
+    }
+
+    private void setUpdatedAt(PaymentId paymentId, LocalDateTime updatedAt) {
+        databaseClient.sql("UPDATE payments SET updated_at = :updatedAt WHERE id = :id")
+                .bind("updatedAt", updatedAt)
+                .bind("id", paymentId.getValue())
+                .then()
+                .block();
+    }
+}
@@ -0,0 +1,44 @@
+package com.transferer.payment.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void should_grant_a_full_burst_without_waiting() {
+        TokenBucket bucket = new TokenBucket(10, 3, nanos::get);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+    }
+
+    @Test
+    void should_queue_reservations_past_the_burst_at_the_rate() {
+        TokenBucket bucket = new TokenBucket(10, 1, nanos::get);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(100));
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(200));
+    }
+
+    @Test
+    void should_refill_over_time_but_no_further_than_the_burst() {
+        TokenBucket bucket = new TokenBucket(10, 2, nanos::get);
+        bucket.reserve();
+        bucket.reserve();
+
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(100));
+    }
+}
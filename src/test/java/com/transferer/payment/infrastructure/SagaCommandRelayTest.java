@@ -0,0 +1,115 @@
+package com.transferer.payment.infrastructure;
+
+import com.transferer.payment.domain.PaymentId;
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.shared.events.HandlerOptions;
+import com.transferer.shared.outbox.InJvmOutboxNotifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class SagaCommandRelayTest {
+
+    @Autowired
+    private SagaCommandRepository sagaCommandRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private R2dbcSagaCommandChannel channel;
+    private InJvmOutboxNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        notifier = new InJvmOutboxNotifier();
+        channel = new R2dbcSagaCommandChannel(sagaCommandRepository, notifier, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM saga_commands").then().block();
+    }
+
+    @Test
+    void should_keep_only_the_latest_command_of_a_payment() {
+        PaymentId paymentId = PaymentId.generate();
+        channel.send(command(paymentId, Optional.empty(), PaymentStep.INITIATED)).block();
+        channel.send(command(paymentId, Optional.of(PaymentStep.INITIATED), PaymentStep.TRANSACTION_CREATED)).block();
+        channel.send(command(PaymentId.generate(), Optional.empty(), PaymentStep.INITIATED)).block();
+
+        SagaCommand stored = sagaCommandRepository.findById(paymentId.getValue()).block();
+        assertThat(sagaCommandRepository.count().block()).isEqualTo(2);
+        assertThat(stored.getStep()).isEqualTo(PaymentStep.TRANSACTION_CREATED.name());
+        assertThat(stored.getPreviousStep()).isEqualTo(PaymentStep.INITIATED.name());
+    }
+
+    @Test
+    void should_relay_unhandled_commands_once_and_acknowledge_them() {
+        List<PaymentStep> handled = Collections.synchronizedList(new ArrayList<>());
+        channel.subscribe(command -> Mono.fromRunnable(() -> handled.add(command.getBody().getCurrentStep())), handlerOptions());
+        PaymentId paymentId = PaymentId.generate();
+        channel.send(command(paymentId, Optional.empty(), PaymentStep.INITIATED)).block();
+        channel.send(command(paymentId, Optional.of(PaymentStep.INITIATED), PaymentStep.TRANSACTION_CREATED)).block();
+
+        StepVerifier.create(relay(60000).relayBatch())
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(Mono.defer(() -> sagaCommandRepository.findById(paymentId.getValue()))
+                        .filter(SagaCommand::isHandled)
+                        .repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(20)))
+                        .timeout(Duration.ofSeconds(2)))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(handled).containsExactly(PaymentStep.TRANSACTION_CREATED);
+        StepVerifier.create(relay(60000).relayBatch())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_relay_a_command_again_once_its_lease_expires() {
+        channel.send(command(PaymentId.generate(), Optional.empty(), PaymentStep.INITIATED)).block();
+
+        StepVerifier.create(relay(0).relayBatch())
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(Mono.delay(Duration.ofMillis(5)).then(relay(0).relayBatch()))
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(relay(60000).relayBatch().then(relay(60000).relayBatch()))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    private SagaCommandRelay relay(long leaseDurationMillis) {
+        return new SagaCommandRelay(sagaCommandRepository, channel, notifier, "test-node", 10, 1000, leaseDurationMillis, 7);
+    }
+
+    private static HandlerOptions handlerOptions() {
+        return new HandlerOptions(1, 100, Duration.ofSeconds(1), 0, Duration.ofMillis(1));
+    }
+
+    private static PaymentStepAdvancedEvent command(PaymentId paymentId, Optional<PaymentStep> previousStep, PaymentStep step) {
+        return new PaymentStepAdvancedEvent(paymentId, previousStep, step);
+    }
+}
@@ -0,0 +1,95 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class AfterCommitDispatcherTest {
+
+    @Autowired
+    private ReactiveTransactionManager transactionManager;
+
+    private TransactionalOperator transactionalOperator;
+    private List<String> dispatched;
+    private AfterCommitDispatcher afterCommitDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        transactionalOperator = TransactionalOperator.create(transactionManager);
+        dispatched = new ArrayList<>();
+        afterCommitDispatcher = new AfterCommitDispatcher(event -> dispatched.add(event.getAggregateId()));
+    }
+
+    @Test
+    void should_dispatch_events_of_a_transaction_in_order_once_it_commits() {
+        Mono<Void> transaction = afterCommitDispatcher.dispatchAfterCommit(List.of(new TestEvent("a"), new TestEvent("b")))
+                .then(afterCommitDispatcher.dispatchAfterCommit(List.of(new TestEvent("c"))))
+                .then(Mono.fromRunnable(() -> assertThat(dispatched).isEmpty()))
+                .then();
+
+        StepVerifier.create(transaction.as(transactionalOperator::transactional))
+                .verifyComplete();
+
+        assertThat(dispatched).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void should_discard_events_of_a_transaction_that_rolls_back() {
+        Mono<Void> transaction = afterCommitDispatcher.dispatchAfterCommit(List.of(new TestEvent("a")))
+                .then(Mono.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(transaction.as(transactionalOperator::transactional))
+                .verifyError(IllegalStateException.class);
+
+        assertThat(dispatched).isEmpty();
+    }
+
+    @Test
+    void should_dispatch_straight_away_outside_a_transaction() {
+        afterCommitDispatcher.dispatchAfterCommit(List.of(new TestEvent("a"))).block();
+
+        assertThat(dispatched).containsExactly("a");
+    }
+
+    @Test
+    void should_not_fail_a_committed_transaction_when_a_subscriber_throws() {
+        AfterCommitDispatcher failing = new AfterCommitDispatcher(event -> {
+            throw new IllegalStateException("queue full");
+        });
+
+        StepVerifier.create(failing.dispatchAfterCommit(List.of(new TestEvent("a"))).as(transactionalOperator::transactional))
+                .verifyComplete();
+    }
+
+    private static class TestEvent extends DomainEvent<DomainEventBody> {
+        private final String aggregateId;
+
+        TestEvent(String aggregateId) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+            this.aggregateId = aggregateId;
+        }
+
+        @Override
+        public String getAggregateId() {
+            return aggregateId;
+        }
+    }
+}
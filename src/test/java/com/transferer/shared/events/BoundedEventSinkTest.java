@@ -0,0 +1,136 @@
+package com.transferer.shared.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedEventSinkTest {
+
+    private MeterRegistry meterRegistry;
+    private BoundedEventSink<Integer> sink;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sink = new BoundedEventSink<>("test", 3, OverflowPolicy.DROP_OLDEST, Duration.ofMillis(50), meterRegistry);
+    }
+
+    @Test
+    void should_evict_the_oldest_events_of_a_full_buffer() {
+        StepVerifier.create(sink.asFlux(), 0)
+                .then(() -> emit(1, 2, 3, 4, 5))
+                .then(() -> assertThat(occupancy()).isEqualTo(3))
+                .thenRequest(3)
+                .expectNext(3, 4, 5)
+                .thenCancel()
+                .verify();
+        assertThat(dropped("drop_oldest")).isEqualTo(2);
+    }
+
+    @Test
+    void should_discard_incoming_events_once_the_buffer_is_full() {
+        StepVerifier.create(sink.asFlux(3, OverflowPolicy.DROP_NEWEST), 0)
+                .then(() -> emit(1, 2, 3, 4, 5))
+                .thenRequest(3)
+                .expectNext(1, 2, 3)
+                .thenCancel()
+                .verify();
+        assertThat(dropped("drop_newest")).isEqualTo(2);
+    }
+
+    @Test
+    void should_disconnect_a_subscriber_that_falls_behind() {
+        StepVerifier.create(sink.asFlux(2, OverflowPolicy.DISCONNECT), 0)
+                .then(() -> emit(1, 2, 3))
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify();
+        assertThat(dropped("disconnect")).isEqualTo(3);
+        assertThat(occupancy()).isZero();
+    }
+
+    @Test
+    void should_make_the_producer_wait_for_room() {
+        StepVerifier.create(sink.asFlux(1, OverflowPolicy.BLOCK_PRODUCER), 1)
+                .then(() -> emit(1, 2))
+                .expectNext(1)
+                .then(() -> Mono.delay(Duration.ofMillis(10), Schedulers.boundedElastic()).subscribe(tick -> emit(3)))
+                // The emission of 3 is waiting for 2 to be requested
+                .thenRequest(2)
+                .expectNext(2, 3)
+                .thenCancel()
+                .verify(Duration.ofSeconds(2));
+        assertThat(dropped("block_producer")).isZero();
+    }
+
+    @Test
+    void should_give_up_waiting_for_room_after_the_block_timeout() {
+        StepVerifier.create(sink.asFlux(1, OverflowPolicy.BLOCK_PRODUCER), 0)
+                .then(() -> emit(1, 2))
+                .thenRequest(5)
+                .expectNext(1)
+                .thenCancel()
+                .verify();
+        assertThat(dropped("block_producer")).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_make_a_producer_on_a_non_blocking_thread_wait() {
+        BoundedEventSink<Integer> patientSink = new BoundedEventSink<>("test", 3, OverflowPolicy.DROP_OLDEST,
+                Duration.ofMinutes(1), meterRegistry);
+        StepVerifier.create(patientSink.asFlux(1, OverflowPolicy.BLOCK_PRODUCER), 0)
+                .then(() -> Mono.fromRunnable(() -> {
+                            patientSink.emit(1);
+                            patientSink.emit(2);
+                        })
+                        .subscribeOn(Schedulers.parallel())
+                        .block(Duration.ofSeconds(5)))
+                .thenRequest(5)
+                .expectNext(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertThat(dropped("block_producer")).isEqualTo(1);
+    }
+
+    @Test
+    void should_give_every_subscriber_its_own_buffer() {
+        StepVerifier.create(sink.asFlux(1, OverflowPolicy.DROP_OLDEST), 0)
+                .then(() -> sink.asFlux().subscribe())
+                .then(() -> emit(1, 2))
+                .thenRequest(1)
+                .expectNext(2)
+                .thenCancel()
+                .verify();
+        assertThat(dropped("drop_oldest")).isEqualTo(1);
+    }
+
+    @Test
+    void should_release_the_buffer_of_a_cancelled_subscriber() {
+        sink.asFlux().take(Duration.ofMillis(1)).blockLast(Duration.ofSeconds(1));
+        emit(1, 2);
+
+        assertThat(occupancy()).isZero();
+    }
+
+    private void emit(Integer... events) {
+        for (Integer event : events) {
+            sink.emit(event);
+        }
+    }
+
+    private double occupancy() {
+        return meterRegistry.get("eventbus.buffer.occupancy").tag("sink", "test").gauge().value();
+    }
+
+    private double dropped(String policy) {
+        return meterRegistry.get("eventbus.events.dropped").tag("sink", "test").tag("policy", policy).counter().count();
+    }
+}
@@ -0,0 +1,192 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares the per-event cost of the dispatch table in {@link EventDispatcher} against the
+ * previous lookup, a map keyed on the exact event class holding lists of handlers that each
+ * check and cast the event again, with the saga's shape of six event classes subscribed once each.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.transferer.shared.events.EventDispatchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+    private static final List<DomainEventType> SAGA_EVENT_TYPES = List.of(
+            DomainEventType.PAYMENT_STEP_ADVANCED,
+            DomainEventType.TRANSACTION_CREATED,
+            DomainEventType.ACCOUNT_DEBITED,
+            DomainEventType.ACCOUNT_CREDITED,
+            DomainEventType.TRANSACTION_COMPLETED,
+            DomainEventType.PAYMENT_FAILED
+    );
+
+    private ClassKeyedDispatcher classKeyedDispatcher;
+    private EventDispatcher eventDispatcher;
+    private DomainEvent<?>[] events;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        classKeyedDispatcher = new ClassKeyedDispatcher();
+        eventDispatcher = new EventDispatcher("benchmark", DispatchOptions.synchronous(), new SimpleMeterRegistry());
+        events = new DomainEvent<?>[SAGA_EVENT_TYPES.size()];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = SagaEvents.create(i, SAGA_EVENT_TYPES.get(i));
+        }
+        subscribeAll(classKeyedDispatcher::subscribe, blackhole);
+        subscribeAll(eventDispatcher::subscribe, blackhole);
+    }
+
+    @Benchmark
+    public void classKeyedMap() {
+        classKeyedDispatcher.dispatch(nextEvent());
+    }
+
+    @Benchmark
+    public void dispatchTable() {
+        eventDispatcher.dispatch(nextEvent());
+    }
+
+    private DomainEvent<?> nextEvent() {
+        DomainEvent<?> event = events[next];
+        next = next + 1 == events.length ? 0 : next + 1;
+        return event;
+    }
+
+    private interface Subscriber {
+        <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void subscribeAll(Subscriber subscriber, Blackhole blackhole) {
+        for (DomainEvent<?> event : events) {
+            subscriber.subscribe((Class<DomainEvent<?>>) event.getClass(), blackhole::consume);
+        }
+    }
+
+    /**
+     * The lookup the buses used before the dispatch table.
+     */
+    private static final class ClassKeyedDispatcher {
+        private final ConcurrentHashMap<Class<? extends DomainEvent<?>>, CopyOnWriteArrayList<Consumer<DomainEvent<?>>>> subscribers =
+                new ConcurrentHashMap<>();
+
+        <T extends DomainEvent<?>> void subscribe(Class<T> eventClass, Consumer<T> handler) {
+            subscribers.computeIfAbsent(eventClass, k -> new CopyOnWriteArrayList<>()).add(event -> {
+                if (eventClass.isInstance(event)) {
+                    handler.accept(eventClass.cast(event));
+                }
+            });
+        }
+
+        void dispatch(DomainEvent<?> event) {
+            CopyOnWriteArrayList<Consumer<DomainEvent<?>>> handlers = subscribers.get(event.getClass());
+            if (handlers != null) {
+                handlers.forEach(handler -> {
+                    try {
+                        handler.accept(event);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * One distinct event class per saga step, so that lookups cannot all hit the same entry.
+     */
+    private static final class SagaEvents {
+        static DomainEvent<?> create(int index, DomainEventType eventType) {
+            return switch (index) {
+                case 0 -> new StepEvent0(eventType);
+                case 1 -> new StepEvent1(eventType);
+                case 2 -> new StepEvent2(eventType);
+                case 3 -> new StepEvent3(eventType);
+                case 4 -> new StepEvent4(eventType);
+                default -> new StepEvent5(eventType);
+            };
+        }
+    }
+
+    private abstract static class StepEvent extends DomainEvent<DomainEventBody> {
+        StepEvent(DomainEventType eventType) {
+            super(eventType, new DomainEventBody());
+        }
+
+        @Override
+        public String getAggregateId() {
+            return "payment";
+        }
+    }
+
+    private static final class StepEvent0 extends StepEvent {
+        StepEvent0(DomainEventType eventType) {
+            super(eventType);
+        }
+    }
+
+    private static final class StepEvent1 extends StepEvent {
+        StepEvent1(DomainEventType eventType) {
+            super(eventType);
+        }
+    }
+
+    private static final class StepEvent2 extends StepEvent {
+        StepEvent2(DomainEventType eventType) {
+            super(eventType);
+        }
+    }
+
+    private static final class StepEvent3 extends StepEvent {
+        StepEvent3(DomainEventType eventType) {
+            super(eventType);
+        }
+    }
+
+    private static final class StepEvent4 extends StepEvent {
+        StepEvent4(DomainEventType eventType) {
+            super(eventType);
+        }
+    }
+
+    private static final class StepEvent5 extends StepEvent {
+        StepEvent5(DomainEventType eventType) {
+            super(eventType);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EventDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,290 @@
+package com.transferer.shared.events;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventDispatcherTest {
+
+    private MeterRegistry meterRegistry;
+    private Scheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = Schedulers.newParallel("dispatch-test", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void should_run_synchronous_handlers_on_the_publishing_thread() {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        List<Thread> threads = new ArrayList<>();
+        dispatcher.subscribe(TestEvent.class, event -> threads.add(Thread.currentThread()));
+
+        dispatcher.dispatch(new TestEvent("a", 1));
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    void should_route_events_to_subscriptions_of_their_supertypes() {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        List<String> handled = new ArrayList<>();
+        dispatcher.subscribe(DomainEvent.class, event -> handled.add("any:" + event.getAggregateId()));
+        dispatcher.subscribe(TestEvent.class, event -> handled.add("test:" + event.getAggregateId()));
+
+        dispatcher.dispatch(new TestEvent("a", 1));
+        dispatcher.subscribe(TestEvent.class, event -> handled.add("late:" + event.getAggregateId()));
+        dispatcher.dispatch(new TestEvent("b", 2));
+
+        assertThat(handled).containsExactly("any:a", "test:a", "any:b", "test:b", "late:b");
+    }
+
+    @Test
+    void should_resolve_a_type_again_when_another_class_is_published_under_it() {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        List<String> handled = new ArrayList<>();
+        dispatcher.subscribe(OtherEvent.class, event -> handled.add("other:" + event.getAggregateId()));
+
+        dispatcher.dispatch(new TestEvent("a", 1));
+        dispatcher.dispatch(new OtherEvent("b"));
+
+        assertThat(handled).containsExactly("other:b");
+    }
+
+    @Test
+    void should_return_before_a_slow_queued_handler_has_run() throws Exception {
+        EventDispatcher dispatcher = new EventDispatcher("test", queued(16, 1), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(2);
+        dispatcher.subscribe(TestEvent.class, event -> {
+            started.countDown();
+            await(release);
+            handled.countDown();
+        });
+
+        dispatcher.dispatch(new TestEvent("a", 1));
+        dispatcher.dispatch(new TestEvent("a", 2));
+
+        assertThat(handled.getCount()).isEqualTo(2);
+        await(started);
+        assertThat(queueDepth()).isEqualTo(1);
+        release.countDown();
+        assertThat(handled.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void should_keep_events_of_an_aggregate_in_order_across_lanes() throws Exception {
+        EventDispatcher dispatcher = new EventDispatcher("test", queued(1000, 4), meterRegistry);
+        List<TestEvent> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(400);
+        dispatcher.subscribe(TestEvent.class, event -> {
+            sleep(ThreadLocalRandom.current().nextInt(0, 2));
+            handled.add(event);
+            done.countDown();
+        });
+
+        for (int sequence = 0; sequence < 100; sequence++) {
+            for (String aggregateId : List.of("a", "b", "c", "d")) {
+                dispatcher.dispatch(new TestEvent(aggregateId, sequence));
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        for (String aggregateId : List.of("a", "b", "c", "d")) {
+            assertThat(handled.stream().filter(event -> event.getAggregateId().equals(aggregateId)).map(TestEvent::getSequence))
+                    .isSorted()
+                    .hasSize(100);
+        }
+    }
+
+    @Test
+    void should_reject_events_once_the_queue_is_full() {
+        EventDispatcher dispatcher = new EventDispatcher("test", queued(1, 1), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        dispatcher.subscribe(TestEvent.class, event -> {
+            started.countDown();
+            await(release);
+        });
+
+        try {
+            dispatcher.dispatch(new TestEvent("a", 1));
+            await(started);
+            dispatcher.dispatch(new TestEvent("a", 2));
+
+            assertThatThrownBy(() -> dispatcher.dispatch(new TestEvent("a", 3)))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(meterRegistry.get("eventbus.dispatch.rejected").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void should_cap_the_number_of_reactive_handlers_in_flight() throws Exception {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+        dispatcher.subscribe(TestEvent.class, event -> Mono.fromRunnable(() -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .then(Mono.delay(Duration.ofMillis(5)))
+                .doOnTerminate(() -> {
+                    inFlight.decrementAndGet();
+                    done.countDown();
+                })
+                .then(), new HandlerOptions(3, 100, Duration.ofSeconds(1), 0, Duration.ofMillis(10)));
+
+        for (int i = 0; i < 50; i++) {
+            dispatcher.dispatch(new TestEvent("aggregate-" + i, i));
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxInFlight.get()).isBetween(1, 3);
+    }
+
+    @Test
+    void should_retry_a_failing_reactive_handler_and_count_it_once_retries_are_exhausted() throws Exception {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch succeeded = new CountDownLatch(1);
+        dispatcher.subscribe(TestEvent.class, event -> Mono.defer(() -> {
+            attempts.incrementAndGet();
+            if (event.getAggregateId().equals("broken") || attempts.get() < 3) {
+                return Mono.error(new IllegalStateException("boom"));
+            }
+            succeeded.countDown();
+            return Mono.empty();
+        }), new HandlerOptions(1, 100, Duration.ofSeconds(1), 2, Duration.ofMillis(1)));
+
+        dispatcher.dispatch(new TestEvent("a", 1));
+        assertThat(succeeded.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+
+        dispatcher.dispatch(new TestEvent("broken", 2));
+        Thread.sleep(200);
+        assertThat(meterRegistry.get("eventbus.handler.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_give_up_on_a_reactive_handler_that_times_out() throws Exception {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        CountDownLatch next = new CountDownLatch(1);
+        dispatcher.subscribe(TestEvent.class, event -> event.getSequence() == 1 ? Mono.never() : Mono.fromRunnable(next::countDown),
+                new HandlerOptions(1, 100, Duration.ofMillis(50), 0, Duration.ofMillis(1)));
+
+        dispatcher.dispatch(new TestEvent("a", 1));
+        dispatcher.dispatch(new TestEvent("a", 2));
+
+        assertThat(next.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("eventbus.handler.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_skip_events_the_inbox_has_already_seen() throws Exception {
+        EventDispatcher dispatcher = new EventDispatcher("test", DispatchOptions.synchronous(), meterRegistry);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        EventInbox inbox = (consumer, event, handling) -> seen.add(consumer + ":" + event.getEventId()) ? handling : Mono.empty();
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        dispatcher.subscribe(TestEvent.class, event -> Mono.fromRunnable(() -> {
+            handled.add(event.getSequence());
+            done.countDown();
+        }), new HandlerOptions(1, 100, Duration.ofSeconds(1), 0, Duration.ofMillis(1)).withInbox(inbox, "test"));
+
+        TestEvent redelivered = new TestEvent("a", 1);
+        dispatcher.dispatch(redelivered);
+        dispatcher.dispatch(redelivered);
+        dispatcher.dispatch(new TestEvent("a", 2));
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly(1, 2);
+    }
+
+    private DispatchOptions queued(int queueCapacity, int lanes) {
+        return DispatchOptions.queued(queueCapacity, lanes, scheduler);
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("eventbus.dispatch.queue.depth").tag("event", "TestEvent").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class OtherEvent extends DomainEvent<DomainEventBody> {
+        private final String aggregateId;
+
+        OtherEvent(String aggregateId) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+            this.aggregateId = aggregateId;
+        }
+
+        @Override
+        public String getAggregateId() {
+            return aggregateId;
+        }
+    }
+
+    private static class TestEvent extends DomainEvent<DomainEventBody> {
+        private final String aggregateId;
+        private final int sequence;
+
+        TestEvent(String aggregateId, int sequence) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+            this.aggregateId = aggregateId;
+            this.sequence = sequence;
+        }
+
+        int getSequence() {
+            return sequence;
+        }
+
+        @Override
+        public String getAggregateId() {
+            return aggregateId;
+        }
+    }
+}
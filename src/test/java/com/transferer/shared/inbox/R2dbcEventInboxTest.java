@@ -0,0 +1,109 @@
+package com.transferer.shared.inbox;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({R2dbcEventInbox.class, SimpleMeterRegistry.class, com.transferer.TestJacksonConfiguration.class})
+@ActiveProfiles("test")
+class R2dbcEventInboxTest {
+
+    @Autowired
+    private R2dbcEventInbox eventInbox;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM processed_events").then().block();
+    }
+
+    @Test
+    void should_handle_an_event_once_per_consumer() {
+        TestEvent event = new TestEvent();
+        AtomicInteger handled = new AtomicInteger();
+
+        eventInbox.processOnce("saga", event, Mono.fromRunnable(handled::incrementAndGet)).block();
+        eventInbox.processOnce("saga", event, Mono.fromRunnable(handled::incrementAndGet)).block();
+        assertThat(handled.get()).isEqualTo(1);
+        assertThat(skipped("cache")).isEqualTo(1);
+
+        eventInbox.processOnce("projection", event, Mono.fromRunnable(handled::incrementAndGet)).block();
+        assertThat(handled.get()).isEqualTo(2);
+    }
+
+    @Test
+    void should_skip_events_recorded_by_another_instance() {
+        TestEvent event = new TestEvent();
+        AtomicInteger handled = new AtomicInteger();
+        R2dbcEventInbox otherInstance = new R2dbcEventInbox(databaseClient, meterRegistry, 100, 7);
+
+        otherInstance.processOnce("saga", event, Mono.fromRunnable(handled::incrementAndGet)).block();
+        eventInbox.processOnce("saga", event, Mono.fromRunnable(handled::incrementAndGet)).block();
+
+        assertThat(handled.get()).isEqualTo(1);
+        assertThat(skipped("store")).isEqualTo(1);
+    }
+
+    @Test
+    void should_handle_a_failed_event_again_when_it_is_redelivered() {
+        TestEvent event = new TestEvent();
+        AtomicInteger handled = new AtomicInteger();
+
+        StepVerifier.create(eventInbox.processOnce("saga", event, Mono.error(new IllegalStateException("boom"))))
+                .verifyError(IllegalStateException.class);
+        eventInbox.processOnce("saga", event, Mono.fromRunnable(handled::incrementAndGet)).block();
+
+        assertThat(handled.get()).isEqualTo(1);
+    }
+
+    @Test
+    void should_purge_records_older_than_the_cutoff() {
+        eventInbox.processOnce("saga", new TestEvent(), Mono.empty()).block();
+        eventInbox.processOnce("saga", new TestEvent(), Mono.empty()).block();
+
+        StepVerifier.create(eventInbox.purgeProcessedBefore(Instant.now().minus(Duration.ofDays(1))))
+                .expectNext(0L)
+                .verifyComplete();
+        StepVerifier.create(eventInbox.purgeProcessedBefore(Instant.now().plusSeconds(1)))
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    private double skipped(String source) {
+        return meterRegistry.get("inbox.duplicates.skipped").tag("source", source).counter().count();
+    }
+
+    private static class TestEvent extends DomainEvent<DomainEventBody> {
+        TestEvent() {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+        }
+
+        @Override
+        public String getAggregateId() {
+            return "a";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.transferer.shared.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventJournalTest {
+
+    private static final int FILE_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private EventJournal eventJournal;
+
+    @AfterEach
+    void tearDown() {
+        if (eventJournal != null) {
+            eventJournal.close();
+        }
+    }
+
+    @Test
+    void should_read_back_concurrent_appends_once_they_are_durable() throws Exception {
+        eventJournal = new EventJournal(directory, FILE_SIZE);
+
+        List<CompletableFuture<Void>> appends = IntStream.range(0, 20)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> eventJournal.append(List.of(payload("event-" + i))))
+                        .thenCompose(append -> append))
+                .toList();
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).get();
+
+        assertThat(readAll(eventJournal)).hasSize(20).allMatch(payload -> payload.startsWith("event-"));
+    }
+
+    @Test
+    void should_roll_over_to_new_files_and_delete_consumed_ones() throws Exception {
+        eventJournal = new EventJournal(directory, FILE_SIZE);
+        for (int i = 0; i < 10; i++) {
+            eventJournal.append(List.of(payload("x".repeat(1000) + i))).get();
+        }
+
+        List<JournalEntry> entries = eventJournal.read(eventJournal.loadCheckpoint(), 100);
+        assertThat(entries).hasSize(10);
+        assertThat(entries.get(9).position().file()).isGreaterThan(1);
+
+        JournalPosition last = entries.get(9).next();
+        eventJournal.saveCheckpoint(last);
+        eventJournal.deleteBefore(last);
+        assertThat(Files.exists(directory.resolve("journal-0000000001.log"))).isFalse();
+        assertThat(eventJournal.loadCheckpoint()).isEqualTo(last);
+    }
+
+    @Test
+    void should_discard_a_record_torn_by_a_crash_and_keep_appending_after_the_last_valid_one() throws Exception {
+        eventJournal = new EventJournal(directory, FILE_SIZE);
+        eventJournal.append(List.of(payload("first"), payload("second"))).get();
+        eventJournal.append(List.of(payload("torn-record"))).get();
+        JournalPosition tornAt = eventJournal.read(eventJournal.loadCheckpoint(), 10).get(2).position();
+        eventJournal.close();
+
+        // Simulate a crash mid-write: the file ends halfway through the last record's payload
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal-0000000001.log").toFile(), "rw")) {
+            file.setLength(tornAt.offset() + EventJournal.FRAME_HEADER_BYTES + 4);
+        }
+
+        eventJournal = new EventJournal(directory, FILE_SIZE);
+        assertThat(readAll(eventJournal)).containsExactly("first", "second");
+
+        eventJournal.append(List.of(payload("third"))).get();
+        assertThat(readAll(eventJournal)).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void should_discard_a_record_whose_checksum_does_not_match() throws Exception {
+        eventJournal = new EventJournal(directory, FILE_SIZE);
+        eventJournal.append(List.of(payload("first"), payload("second"))).get();
+        JournalPosition second = eventJournal.read(eventJournal.loadCheckpoint(), 10).get(1).position();
+        eventJournal.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal-0000000001.log").toFile(), "rw")) {
+            file.seek(second.offset() + EventJournal.FRAME_HEADER_BYTES);
+            file.write('S');
+        }
+
+        eventJournal = new EventJournal(directory, FILE_SIZE);
+        assertThat(readAll(eventJournal)).containsExactly("first");
+    }
+
+    private static List<String> readAll(EventJournal eventJournal) throws IOException {
+        List<String> payloads = new ArrayList<>();
+        for (JournalEntry entry : eventJournal.read(eventJournal.loadCheckpoint(), Integer.MAX_VALUE)) {
+            payloads.add(new String(entry.payload(), StandardCharsets.UTF_8));
+        }
+        return payloads;
+    }
+
+    private static byte[] payload(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
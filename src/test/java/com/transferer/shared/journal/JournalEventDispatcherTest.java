@@ -0,0 +1,107 @@
+package com.transferer.shared.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transferer.payment.domain.PaymentId;
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.outbox.EventTypeRegistry;
+import com.transferer.shared.outbox.OutboxEventSerializer;
+import com.transferer.shared.outbox.codec.JacksonEventCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalEventDispatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<DomainEvent<?>> dispatched = Collections.synchronizedList(new ArrayList<>());
+    private OutboxEventSerializer outboxEventSerializer;
+    private EventJournal eventJournal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxEventSerializer = new OutboxEventSerializer(
+                EventTypeRegistry.defaultRegistry(),
+                List.of(JacksonEventCodec.json(objectMapper)),
+                "json",
+                -1
+        );
+        eventJournal = new EventJournal(directory, 1 << 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventJournal.close();
+    }
+
+    @Test
+    void should_dispatch_published_events_in_order_and_resume_from_the_checkpoint() throws Exception {
+        JournalEventPublisher publisher = new JournalEventPublisher(eventJournal, outboxEventSerializer);
+        PaymentStepAdvancedEvent first = stepAdvanced(PaymentStep.SENDER_DEBITED);
+        PaymentStepAdvancedEvent second = stepAdvanced(PaymentStep.RECIPIENT_CREDITED);
+        publisher.publish(first).block();
+        publisher.publish(second).block();
+
+        assertThat(dispatcher().drain().block()).isEqualTo(2);
+        assertThat(dispatched).extracting(DomainEvent::getEventId)
+                .containsExactly(first.getEventId(), second.getEventId());
+
+        PaymentStepAdvancedEvent third = stepAdvanced(PaymentStep.COMPLETED);
+        publisher.publish(third).block();
+        dispatched.clear();
+
+        assertThat(dispatcher().drain().block()).isEqualTo(1);
+        assertThat(dispatched).extracting(DomainEvent::getEventId).containsExactly(third.getEventId());
+    }
+
+    @Test
+    void should_retry_from_the_rejected_record_instead_of_skipping_it() throws Exception {
+        JournalEventPublisher publisher = new JournalEventPublisher(eventJournal, outboxEventSerializer);
+        PaymentStepAdvancedEvent first = stepAdvanced(PaymentStep.SENDER_DEBITED);
+        PaymentStepAdvancedEvent second = stepAdvanced(PaymentStep.RECIPIENT_CREDITED);
+        publisher.publish(first).block();
+        publisher.publish(second).block();
+        AtomicBoolean rejected = new AtomicBoolean();
+        JournalEventDispatcher dispatcher = new JournalEventDispatcher(eventJournal, event -> {
+            if (event.getEventId().equals(second.getEventId()) && rejected.compareAndSet(false, true)) {
+                throw new RejectedExecutionException("queue full");
+            }
+            return Mono.fromRunnable(() -> dispatched.add(event));
+        }, outboxEventSerializer, 10, Duration.ofMillis(10));
+
+        assertThat(dispatcher.drain().block()).isEqualTo(1);
+        assertThat(rejected).isTrue();
+        assertThat(dispatched).extracting(DomainEvent::getEventId)
+                .containsExactly(first.getEventId(), second.getEventId());
+
+        dispatched.clear();
+        assertThat(dispatcher().drain().block()).isZero();
+        assertThat(dispatched).isEmpty();
+    }
+
+    private JournalEventDispatcher dispatcher() {
+        return new JournalEventDispatcher(eventJournal,
+                event -> Mono.fromRunnable(() -> dispatched.add(event)), outboxEventSerializer, 1, Duration.ofMillis(10));
+    }
+
+    private static PaymentStepAdvancedEvent stepAdvanced(PaymentStep step) {
+        return new PaymentStepAdvancedEvent(PaymentId.generate(), Optional.empty(), step);
+    }
+}
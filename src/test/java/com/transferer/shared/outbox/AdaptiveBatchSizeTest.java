@@ -0,0 +1,54 @@
+package com.transferer.shared.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveBatchSizeTest {
+
+    private final OutboxDrainPolicy drainPolicy = new OutboxDrainPolicy(
+            100, 10, 120, Duration.ofMillis(500), Duration.ofMillis(250), Duration.ofSeconds(30));
+
+    @Test
+    void should_grow_additively_after_fast_full_batches_up_to_the_maximum() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(drainPolicy);
+
+        batchSize.record(100, 100, Duration.ofMillis(100));
+        assertThat(batchSize.current()).isEqualTo(110);
+
+        batchSize.record(110, 110, Duration.ofMillis(100));
+        batchSize.record(120, 120, Duration.ofMillis(100));
+        assertThat(batchSize.current()).isEqualTo(120);
+    }
+
+    @Test
+    void should_halve_after_slow_batches_down_to_the_minimum() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(drainPolicy);
+
+        batchSize.record(100, 100, Duration.ofSeconds(2));
+        assertThat(batchSize.current()).isEqualTo(50);
+
+        batchSize.record(50, 50, Duration.ofSeconds(2));
+        batchSize.record(25, 25, Duration.ofSeconds(2));
+        batchSize.record(12, 12, Duration.ofSeconds(2));
+        assertThat(batchSize.current()).isEqualTo(10);
+    }
+
+    @Test
+    void should_keep_its_size_after_short_batches() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(drainPolicy);
+
+        batchSize.record(3, 100, Duration.ofMillis(10));
+
+        assertThat(batchSize.current()).isEqualTo(100);
+    }
+
+    @Test
+    void should_back_off_idle_polls_exponentially() {
+        assertThat(drainPolicy.idleDelayAfter(0)).isEqualTo(Duration.ofMillis(250));
+        assertThat(drainPolicy.idleDelayAfter(3)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(drainPolicy.idleDelayAfter(20)).isEqualTo(Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,89 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class ChunkedOutboxRetentionTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Test
+    void should_purge_processed_events_in_chunks_and_keep_unprocessed_ones() {
+        Instant processedAt = Instant.now();
+        for (int i = 0; i < 7; i++) {
+            OutboxEvent processed = outboxEvent();
+            processed.setProcessedAt(processedAt);
+            outboxEventRepository.save(processed).block();
+        }
+        OutboxEvent pending = outboxEventRepository.save(outboxEvent()).block();
+
+        ChunkedOutboxRetention retention = new ChunkedOutboxRetention(databaseClient, "outbox_events", 3);
+
+        StepVerifier.create(retention.purge(Instant.now().plusSeconds(60), Long.MAX_VALUE))
+                .expectNext(7L)
+                .verifyComplete();
+        assertThat(outboxEventRepository.findAll().map(OutboxEvent::getId).collectList().block())
+                .containsExactly(pending.getId());
+    }
+
+    @Test
+    void should_keep_processed_events_created_after_the_cutoff() {
+        OutboxEvent processed = outboxEvent();
+        processed.setProcessedAt(Instant.now());
+        outboxEventRepository.save(processed).block();
+
+        ChunkedOutboxRetention retention = new ChunkedOutboxRetention(databaseClient, "outbox_events", 3);
+
+        StepVerifier.create(retention.purge(Instant.now().minusSeconds(3600), Long.MAX_VALUE))
+                .expectNext(0L)
+                .verifyComplete();
+        assertThat(outboxEventRepository.count().block()).isEqualTo(1);
+    }
+
+    @Test
+    void should_keep_processed_events_a_consumer_has_not_read_yet() {
+        Instant processedAt = Instant.now();
+        OutboxEvent consumed = outboxEvent();
+        consumed.setProcessedAt(processedAt);
+        consumed = outboxEventRepository.save(consumed).block();
+        OutboxEvent unconsumed = outboxEvent();
+        unconsumed.setProcessedAt(processedAt);
+        unconsumed = outboxEventRepository.save(unconsumed).block();
+
+        ChunkedOutboxRetention retention = new ChunkedOutboxRetention(databaseClient, "outbox_events", 3);
+
+        StepVerifier.create(retention.purge(Instant.now().plusSeconds(60), consumed.getId()))
+                .expectNext(1L)
+                .verifyComplete();
+        assertThat(outboxEventRepository.findAll().map(OutboxEvent::getId).collectList().block())
+                .containsExactly(unconsumed.getId());
+    }
+
+    private OutboxEvent outboxEvent() {
+        return new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED, "a", "{}", Instant.now());
+    }
+}
@@ -0,0 +1,129 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing and acknowledging a batch of outbox events row by row against the batched
+ * paths. Row by row costs two round trips per event; the batched paths cost two per batch.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.transferer.shared.outbox.OutboxBatchingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxBatchingBenchmark {
+
+    private static final String INSERT_ROW = "INSERT INTO outbox_events "
+            + "(event_id, event_type, aggregate_id, event_data, occurred_at, created_at) "
+            + "VALUES (:eventId, :eventType, :aggregateId, :eventData, :occurredAt, :createdAt)";
+
+    // A payment saga writes roughly one event per hop, and a processor batch holds up to 100
+    @Param({"6", "100"})
+    private int eventsPerBatch;
+
+    private DatabaseClient databaseClient;
+    private OutboxEventBatchRepositoryImpl batchRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///outbox-benchmark;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("test-schema.sql")).populate(connectionFactory).block();
+        databaseClient = DatabaseClient.create(connectionFactory);
+        batchRepository = new OutboxEventBatchRepositoryImpl(databaseClient, connectionFactory,
+                new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Benchmark
+    public long rowByRow() {
+        List<OutboxEvent> events = newEvents();
+        for (OutboxEvent event : events) {
+            databaseClient.sql(INSERT_ROW)
+                    .bind("eventId", event.getEventId())
+                    .bind("eventType", event.getEventType().name())
+                    .bind("aggregateId", event.getAggregateId())
+                    .bind("eventData", event.getEventData())
+                    .bind("occurredAt", event.getOccurredAt())
+                    .bind("createdAt", event.getCreatedAt())
+                    .then()
+                    .block();
+        }
+        long marked = 0;
+        for (OutboxEvent event : events) {
+            marked += databaseClient.sql("UPDATE outbox_events SET processed_at = :processedAt WHERE event_id = :eventId")
+                    .bind("processedAt", Instant.now())
+                    .bind("eventId", event.getEventId())
+                    .fetch()
+                    .rowsUpdated()
+                    .block();
+        }
+        return marked;
+    }
+
+    @Benchmark
+    public long batched() {
+        List<OutboxEvent> events = newEvents();
+        batchRepository.insertAll(events).block();
+        long marked = databaseClient.sql("UPDATE outbox_events SET processed_at = :processedAt WHERE event_id IN (:eventIds)")
+                .bind("processedAt", Instant.now())
+                .bind("eventIds", Flux.fromIterable(events).map(OutboxEvent::getEventId).collectList().block())
+                .fetch()
+                .rowsUpdated()
+                .block();
+        return marked;
+    }
+
+    private List<OutboxEvent> newEvents() {
+        String aggregateId = UUID.randomUUID().toString();
+        List<OutboxEvent> events = new ArrayList<>(eventsPerBatch);
+        for (int i = 0; i < eventsPerBatch; i++) {
+            events.add(new OutboxEvent(
+                    UUID.randomUUID().toString(),
+                    DomainEventType.PAYMENT_STEP_ADVANCED,
+                    aggregateId,
+                    "{}",
+                    Instant.now()
+            ));
+        }
+        return events;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(OutboxBatchingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,225 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import com.transferer.shared.events.ConsumerStartPosition;
+import com.transferer.shared.events.EventConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class OutboxConsumerTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ConsumerOffsetRepository consumerOffsetRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private OutboxEventSerializer outboxEventSerializer;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxEventSerializer = mock(OutboxEventSerializer.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(outboxEventSerializer.deserialize(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> new TestEvent(invocation.<OutboxEvent>getArgument(0).getAggregateId()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+        databaseClient.sql("DELETE FROM consumer_offsets").then().block();
+    }
+
+    @Test
+    void should_read_in_batches_and_commit_the_offset_after_each() {
+        List<Long> ids = saveEvents("a", "b", "c");
+        List<String> consumed = new ArrayList<>();
+        OutboxConsumer consumer = consumer("projection", ConsumerStartPosition.EARLIEST, 2, collectingInto(consumed));
+
+        StepVerifier.create(consumer.consumeBatch())
+                .expectNext(2)
+                .verifyComplete();
+        assertThat(offsetOf("projection")).isEqualTo(ids.get(1));
+
+        StepVerifier.create(consumer.consumeBatch())
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(consumer.consumeBatch())
+                .expectNext(0)
+                .verifyComplete();
+        assertThat(consumed).containsExactly("a", "b", "c");
+        assertThat(offsetOf("projection")).isEqualTo(ids.get(2));
+    }
+
+    @Test
+    void should_keep_the_offset_when_the_consumer_fails() {
+        saveEvents("a");
+        OutboxConsumer failing = consumer("projection", ConsumerStartPosition.EARLIEST, 10,
+                events -> Mono.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(failing.consumeBatch())
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        List<String> consumed = new ArrayList<>();
+        StepVerifier.create(consumer("projection", ConsumerStartPosition.EARLIEST, 10, collectingInto(consumed)).consumeBatch())
+                .expectNext(1)
+                .verifyComplete();
+        assertThat(consumed).containsExactly("a");
+    }
+
+    @Test
+    void should_track_consumers_independently() {
+        saveEvents("a", "b");
+        List<String> fast = new ArrayList<>();
+        List<String> slow = new ArrayList<>();
+
+        consumer("fast", ConsumerStartPosition.EARLIEST, 10, collectingInto(fast)).consumeBatch().block();
+        consumer("slow", ConsumerStartPosition.EARLIEST, 1, collectingInto(slow)).consumeBatch().block();
+
+        assertThat(fast).containsExactly("a", "b");
+        assertThat(slow).containsExactly("a");
+        StepVerifier.create(consumerOffsetRepository.findSlowestOffset(Instant.now().minusSeconds(60)))
+                .expectNext(offsetOf("slow"))
+                .verifyComplete();
+    }
+
+    @Test
+    void should_stop_holding_back_retention_for_consumers_that_no_longer_check_in() {
+        saveEvents("a", "b");
+        consumer("current", ConsumerStartPosition.EARLIEST, 10, collectingInto(new ArrayList<>())).consumeBatch().block();
+        consumer("renamed", ConsumerStartPosition.EARLIEST, 1, collectingInto(new ArrayList<>())).consumeBatch().block();
+        databaseClient.sql("UPDATE consumer_offsets SET updated_at = :updatedAt WHERE consumer_name = 'renamed'")
+                .bind("updatedAt", Instant.now().minus(Duration.ofDays(4)))
+                .then()
+                .block();
+        Instant activeSince = Instant.now().minus(Duration.ofDays(3));
+
+        StepVerifier.create(consumerOffsetRepository.findSlowestOffset(activeSince))
+                .expectNext(offsetOf("current"))
+                .verifyComplete();
+        StepVerifier.create(consumerOffsetRepository.findInactive(activeSince).map(ConsumerOffset::getConsumerName))
+                .expectNext("renamed")
+                .verifyComplete();
+    }
+
+    @Test
+    void should_count_ids_skipped_at_settled_gaps() {
+        saveEvents("seed");
+        List<String> consumed = new ArrayList<>();
+        OutboxConsumer consumer = consumer("projection", ConsumerStartPosition.LATEST, 10, collectingInto(consumed));
+        consumer.consumeBatch().block();
+        List<Long> ids = saveEvents("a", "b", "c");
+        databaseClient.sql("DELETE FROM outbox_events WHERE id = :id").bind("id", ids.get(1)).then().block();
+
+        consumer.consumeBatch().block();
+
+        assertThat(consumed).containsExactly("a", "c");
+        assertThat(meterRegistry.get("outbox.consumer.ids.skipped").tag("consumer", "projection").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void should_start_a_new_consumer_after_the_latest_event() {
+        saveEvents("a");
+        List<String> consumed = new ArrayList<>();
+        OutboxConsumer consumer = consumer("projection", ConsumerStartPosition.LATEST, 10, collectingInto(consumed));
+
+        StepVerifier.create(consumer.consumeBatch())
+                .expectNext(0)
+                .verifyComplete();
+        saveEvents("b");
+        consumer.consumeBatch().block();
+
+        assertThat(consumed).containsExactly("b");
+    }
+
+    @Test
+    void should_stop_at_a_recent_gap_and_skip_it_once_it_has_settled() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = List.of(outboxEvent(1, now), outboxEvent(2, now), outboxEvent(4, now));
+
+        assertThat(OutboxConsumer.settledPrefix(0, batch, now.minusSeconds(5)))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(1L, 2L);
+        assertThat(OutboxConsumer.settledPrefix(0, batch, now.plusSeconds(5)))
+                .extracting(OutboxEvent::getId)
+                .containsExactly(1L, 2L, 4L);
+    }
+
+    private OutboxConsumer consumer(String name, ConsumerStartPosition startPosition, int batchSize, EventConsumer eventConsumer) {
+        return new OutboxConsumer(name, startPosition, eventConsumer, outboxEventRepository, consumerOffsetRepository,
+                outboxEventSerializer, new OutboxMetrics(meterRegistry, outboxEventRepository), batchSize, Duration.ZERO,
+                Duration.ofSeconds(1));
+    }
+
+    private static EventConsumer collectingInto(List<String> consumed) {
+        return events -> Mono.fromRunnable(() -> events.forEach(event -> consumed.add(event.getAggregateId())));
+    }
+
+    private long offsetOf(String consumerName) {
+        return consumerOffsetRepository.findById(consumerName).block().getLastEventId();
+    }
+
+    private List<Long> saveEvents(String... aggregateIds) {
+        List<Long> ids = new ArrayList<>();
+        for (String aggregateId : aggregateIds) {
+            OutboxEvent outboxEvent = new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED,
+                    aggregateId, "{}", Instant.now());
+            ids.add(outboxEventRepository.save(outboxEvent).block().getId());
+        }
+        return ids;
+    }
+
+    private OutboxEvent outboxEvent(long id, Instant createdAt) {
+        OutboxEvent outboxEvent = new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED,
+                "a", "{}", createdAt);
+        outboxEvent.setId(id);
+        outboxEvent.setCreatedAt(createdAt);
+        return outboxEvent;
+    }
+
+    private static class TestEvent extends DomainEvent<DomainEventBody> {
+        private final String aggregateId;
+
+        TestEvent(String aggregateId) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+            this.aggregateId = aggregateId;
+        }
+
+        @Override
+        public String getAggregateId() {
+            return aggregateId;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({
+    OutboxDeadLetterService.class,
+    OutboxNotifierConfiguration.class,
+    com.transferer.TestJacksonConfiguration.class
+})
+@ActiveProfiles("test")
+class OutboxDeadLetterServiceTest {
+
+    @Autowired
+    private OutboxDeadLetterService outboxDeadLetterService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxDeadLetterRepository outboxDeadLetterRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+        databaseClient.sql("DELETE FROM outbox_dead_letters").then().block();
+    }
+
+    @Test
+    void should_move_a_claimed_event_to_dead_letters_and_replay_it() {
+        OutboxEvent outboxEvent = outboxEventRepository.save(new OutboxEvent(
+                UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED, "a", "{}", Instant.now())).block();
+        Instant now = Instant.now();
+        outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), 10).block();
+
+        StepVerifier.create(outboxDeadLetterService.deadLetter(outboxEvent, "node-1", "boom"))
+                .verifyComplete();
+
+        assertThat(outboxEventRepository.count().block()).isZero();
+        OutboxDeadLetter deadLetter = outboxDeadLetterRepository.findAll().blockFirst();
+        assertThat(deadLetter.getEventId()).isEqualTo(outboxEvent.getEventId());
+        assertThat(deadLetter.getAttempts()).isEqualTo(1);
+        assertThat(deadLetter.getLastError()).isEqualTo("boom");
+
+        StepVerifier.create(outboxDeadLetterService.replay(deadLetter.getId()))
+                .verifyComplete();
+
+        assertThat(outboxDeadLetterRepository.count().block()).isZero();
+        OutboxEvent replayed = outboxEventRepository.findAll().blockFirst();
+        assertThat(replayed.getEventId()).isEqualTo(outboxEvent.getEventId());
+        assertThat(replayed.getAttempts()).isZero();
+        assertThat(replayed.getId()).isGreaterThan(outboxEvent.getId());
+    }
+
+    @Test
+    void should_not_dead_letter_an_event_whose_claim_was_lost() {
+        OutboxEvent outboxEvent = outboxEventRepository.save(new OutboxEvent(
+                UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED, "a", "{}", Instant.now())).block();
+
+        StepVerifier.create(outboxDeadLetterService.deadLetter(outboxEvent, "node-1", "boom"))
+                .verifyComplete();
+
+        assertThat(outboxEventRepository.count().block()).isEqualTo(1);
+        assertThat(outboxDeadLetterRepository.count().block()).isZero();
+    }
+
+    @Test
+    void should_fail_to_replay_an_unknown_dead_letter() {
+        StepVerifier.create(outboxDeadLetterService.replay(42L))
+                .expectError(OutboxDeadLetterNotFoundException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,348 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import com.transferer.shared.events.EventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxEventProcessorTest {
+
+    private OutboxEventRepository outboxEventRepository;
+    private OutboxEventSerializer outboxEventSerializer;
+    private OutboxDeadLetterService outboxDeadLetterService;
+    private MeterRegistry meterRegistry;
+    private List<String> published;
+    private List<Long> markedAsProcessed;
+    private AtomicLong idSequence;
+    private OutboxDispatchLog dispatchLog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        outboxEventSerializer = mock(OutboxEventSerializer.class);
+        outboxDeadLetterService = mock(OutboxDeadLetterService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        published = Collections.synchronizedList(new ArrayList<>());
+        markedAsProcessed = Collections.synchronizedList(new ArrayList<>());
+        idSequence = new AtomicLong();
+        dispatchLog = OutboxDispatchLog.polling();
+
+        when(outboxEventSerializer.deserialize(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> new TestEvent(invocation.<OutboxEvent>getArgument(0).getEventData()));
+        when(outboxEventRepository.claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt())).thenReturn(Mono.just(1));
+        when(outboxEventRepository.releaseClaims(anyString())).thenReturn(Mono.just(0));
+        when(outboxEventRepository.recordFailure(any(), anyString(), anyString(), any())).thenReturn(Mono.just(1));
+        when(outboxDeadLetterService.deadLetter(any(), anyString(), anyString())).thenReturn(Mono.empty());
+        when(outboxEventRepository.markAllAsProcessed(anyCollection(), anyString(), any()))
+                .thenAnswer(invocation -> Mono.fromCallable(() -> {
+                    Collection<Long> ids = invocation.getArgument(0);
+                    markedAsProcessed.addAll(ids);
+                    return ids.size();
+                }));
+    }
+
+    @Test
+    void should_publish_events_of_the_same_aggregate_in_order() {
+        List<OutboxEvent> batch = List.of(
+                outboxEvent("a", "a1"), outboxEvent("b", "b1"), outboxEvent("a", "a2"),
+                outboxEvent("c", "c1"), outboxEvent("b", "b2"), outboxEvent("a", "a3"),
+                outboxEvent("c", "c2"), outboxEvent("b", "b3"), outboxEvent("a", "a4")
+        );
+        when(outboxEventRepository.findClaimedEvents(anyString())).thenReturn(Flux.fromIterable(batch));
+
+        EventPublisher slowPublisher = event -> Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(1, 15)))
+                .doOnNext(ignored -> published.add(((TestEvent) event).getName()))
+                .then();
+
+        StepVerifier.create(processor(slowPublisher, 4).dispatchBatch())
+                .expectNext(9L)
+                .verifyComplete();
+
+        assertThat(published).hasSize(9);
+        assertThat(published.stream().filter(name -> name.startsWith("a"))).containsExactly("a1", "a2", "a3", "a4");
+        assertThat(published.stream().filter(name -> name.startsWith("b"))).containsExactly("b1", "b2", "b3");
+        assertThat(published.stream().filter(name -> name.startsWith("c"))).containsExactly("c1", "c2");
+        assertThat(meterRegistry.get("outbox.dispatch.latency")
+                .tag("type", DomainEventType.PAYMENT_STEP_ADVANCED.name()).timer().count()).isEqualTo(9);
+    }
+
+    @Test
+    void should_hold_back_later_events_of_an_aggregate_after_a_failure() {
+        OutboxEvent a1 = outboxEvent("a", "a1");
+        OutboxEvent a2 = outboxEvent("a", "a2");
+        OutboxEvent a3 = outboxEvent("a", "a3");
+        OutboxEvent b1 = outboxEvent("b", "b1");
+        when(outboxEventRepository.findClaimedEvents(anyString())).thenReturn(Flux.just(a1, a2, b1, a3));
+
+        EventPublisher failingPublisher = event -> {
+            String name = ((TestEvent) event).getName();
+            if (name.equals("a2")) {
+                return Mono.error(new IllegalStateException("boom"));
+            }
+            published.add(name);
+            return Mono.empty();
+        };
+
+        StepVerifier.create(processor(failingPublisher, 1).dispatchBatch())
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(published).containsExactly("a1", "b1");
+        assertThat(markedAsProcessed).containsExactlyInAnyOrder(a1.getId(), b1.getId());
+    }
+
+    @Test
+    void should_drain_as_soon_as_the_notifier_signals() throws Exception {
+        InJvmOutboxNotifier notifier = new InJvmOutboxNotifier();
+        CountDownLatch publishedLatch = new CountDownLatch(1);
+        when(outboxEventRepository.findClaimedEvents(anyString()))
+                .thenReturn(Flux.empty())
+                .thenReturn(Flux.just(outboxEvent("a", "a1")));
+        OutboxEventProcessor processor = processor(event -> Mono.fromRunnable(() -> {
+            published.add(((TestEvent) event).getName());
+            publishedLatch.countDown();
+        }), 1, notifier);
+
+        processor.start();
+        try {
+            notifier.notifyWithinTransaction().block();
+            assertThat(publishedLatch.await(2, TimeUnit.SECONDS)).isTrue();
+            assertThat(published).containsExactly("a1");
+        } finally {
+            processor.stop();
+        }
+    }
+
+    @Test
+    void should_poll_an_idle_outbox_again_without_a_signal() throws Exception {
+        CountDownLatch publishedLatch = new CountDownLatch(1);
+        when(outboxEventRepository.claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt()))
+                .thenReturn(Mono.just(0))
+                .thenReturn(Mono.just(0))
+                .thenReturn(Mono.just(1))
+                .thenReturn(Mono.just(0));
+        when(outboxEventRepository.findClaimedEvents(anyString())).thenReturn(Flux.just(outboxEvent("a", "a1")));
+        OutboxEventProcessor processor = processor(event -> Mono.fromRunnable(() -> {
+            published.add(((TestEvent) event).getName());
+            publishedLatch.countDown();
+        }), 10, 1, new InJvmOutboxNotifier());
+
+        processor.start();
+        try {
+            assertThat(publishedLatch.await(2, TimeUnit.SECONDS)).isTrue();
+            assertThat(published).containsExactly("a1");
+        } finally {
+            processor.stop();
+        }
+    }
+
+    @Test
+    void should_advance_the_cursor_on_full_batches_and_rewind_on_short_ones() {
+        when(outboxEventRepository.claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt()))
+                .thenReturn(Mono.just(2))
+                .thenReturn(Mono.just(1))
+                .thenReturn(Mono.just(0));
+        when(outboxEventRepository.findClaimedEvents(anyString()))
+                .thenReturn(Flux.just(outboxEvent("a", "a1"), outboxEvent("b", "b1")))
+                .thenReturn(Flux.just(outboxEvent("c", "c1")));
+        OutboxEventProcessor processor = processor(event -> Mono.empty(), 2, 1, new InJvmOutboxNotifier());
+
+        processor.dispatchBatch().block();
+        processor.dispatchBatch().block();
+        processor.dispatchBatch().block();
+
+        InOrder inOrder = inOrder(outboxEventRepository);
+        inOrder.verify(outboxEventRepository).claimEvents(anyString(), eq(0L), any(), any(), any(), eq(2));
+        inOrder.verify(outboxEventRepository).claimEvents(anyString(), eq(2L), any(), any(), any(), eq(2));
+        inOrder.verify(outboxEventRepository).claimEvents(anyString(), eq(0L), any(), any(), any(), eq(2));
+    }
+
+    @Test
+    void should_back_off_a_failed_event_and_dead_letter_it_once_attempts_are_exhausted() {
+        OutboxEvent retried = outboxEvent("a", "a1");
+        OutboxEvent exhausted = outboxEvent("b", "b1");
+        exhausted.setAttempts(2);
+        when(outboxEventRepository.findClaimedEvents(anyString())).thenReturn(Flux.just(retried, exhausted));
+
+        StepVerifier.create(processor(event -> Mono.error(new IllegalStateException("boom")), 1).dispatchBatch())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(outboxEventRepository).recordFailure(eq(retried.getId()), anyString(), contains("boom"), any());
+        verify(outboxDeadLetterService).deadLetter(eq(exhausted), anyString(), contains("boom"));
+        verify(outboxEventRepository, never()).recordFailure(eq(exhausted.getId()), anyString(), anyString(), any());
+        assertThat(failures("retried")).isEqualTo(1);
+        assertThat(failures("dead_lettered")).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_count_a_retry_when_the_claim_was_lost_before_the_failure_was_recorded() {
+        when(outboxEventRepository.findClaimedEvents(anyString())).thenReturn(Flux.just(outboxEvent("a", "a1")));
+        when(outboxEventRepository.recordFailure(any(), anyString(), anyString(), any())).thenReturn(Mono.just(0));
+
+        StepVerifier.create(processor(event -> Mono.error(new IllegalStateException("boom")), 1).dispatchBatch())
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertThat(failures("retried")).isZero();
+    }
+
+    @Test
+    void should_not_wake_up_for_retries_once_stopped() {
+        when(outboxEventRepository.claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt()))
+                .thenReturn(Mono.just(1))
+                .thenReturn(Mono.just(0));
+        when(outboxEventRepository.findClaimedEvents(anyString())).thenReturn(Flux.just(outboxEvent("a", "a1")));
+        // Backs off for 1s, far shorter than the idle polls
+        OutboxEventProcessor processor = new OutboxEventProcessor(outboxEventRepository,
+                event -> Mono.error(new IllegalStateException("boom")), outboxEventSerializer, new InJvmOutboxNotifier(),
+                outboxDeadLetterService, new OutboxMetrics(meterRegistry, outboxEventRepository), dispatchLog,
+                new OutboxRetryPolicy(3, Duration.ofSeconds(1), Duration.ofMinutes(1)),
+                OutboxDrainPolicy.fixedBatchSize(100, Duration.ofMinutes(1), Duration.ofMinutes(1)),
+                1, "test-node", 30000);
+
+        processor.start();
+        verify(outboxEventRepository, timeout(1000)).recordFailure(any(), anyString(), anyString(), any());
+        processor.stop();
+        processor.requestDrain();
+
+        verify(outboxEventRepository, after(1500).times(1)).claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void should_acknowledge_events_delivered_in_process_and_only_claim_events_past_the_grace_window() {
+        dispatchLog = OutboxDispatchLog.hybrid(Duration.ofSeconds(5), 100);
+        dispatchLog.record("a1");
+        dispatchLog.record("b1");
+        dispatchLog.record("c1");
+        List<String> acknowledged = Collections.synchronizedList(new ArrayList<>());
+        when(outboxEventRepository.markAllAsDispatched(anyCollection(), any()))
+                .thenAnswer(invocation -> Mono.fromCallable(() -> {
+                    Collection<String> eventIds = invocation.getArgument(0);
+                    acknowledged.addAll(eventIds);
+                    return eventIds.size();
+                }));
+        when(outboxEventRepository.claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt())).thenReturn(Mono.just(0));
+        OutboxEventProcessor processor = processor(event -> Mono.empty(), 2, 1, new InJvmOutboxNotifier());
+
+        processor.dispatchBatch().block();
+        processor.dispatchBatch().block();
+
+        assertThat(acknowledged).containsExactly("a1", "b1", "c1");
+        verify(outboxEventRepository, times(2)).markAllAsDispatched(anyCollection(), any());
+        ArgumentCaptor<Instant> now = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> occurredBefore = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxEventRepository, times(2)).claimEvents(anyString(), anyLong(), now.capture(), any(), occurredBefore.capture(), anyInt());
+        assertThat(Duration.between(occurredBefore.getValue(), now.getValue())).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void should_acknowledge_events_delivered_in_process_while_the_processor_is_idle() {
+        dispatchLog = OutboxDispatchLog.hybrid(Duration.ofMillis(200), 100);
+        when(outboxEventRepository.markAllAsDispatched(anyCollection(), any())).thenReturn(Mono.just(1));
+        when(outboxEventRepository.claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt())).thenReturn(Mono.just(0));
+        // Idle polls far beyond the grace window, so only the acknowledgement timer can flush the log
+        OutboxEventProcessor processor = new OutboxEventProcessor(outboxEventRepository, event -> Mono.empty(),
+                outboxEventSerializer, new InJvmOutboxNotifier(), outboxDeadLetterService,
+                new OutboxMetrics(meterRegistry, outboxEventRepository), dispatchLog,
+                new OutboxRetryPolicy(3, Duration.ofSeconds(1), Duration.ofMinutes(1)),
+                OutboxDrainPolicy.fixedBatchSize(100, Duration.ofMinutes(1), Duration.ofMinutes(1)),
+                1, "test-node", 30000);
+
+        processor.start();
+        try {
+            verify(outboxEventRepository, timeout(1000)).claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt());
+            dispatchLog.record("a1");
+
+            verify(outboxEventRepository, timeout(1000)).markAllAsDispatched(eq(List.of("a1")), any());
+            verify(outboxEventRepository, times(1)).claimEvents(anyString(), anyLong(), any(), any(), any(), anyInt());
+        } finally {
+            processor.stop();
+        }
+    }
+
+    private double failures(String outcome) {
+        return meterRegistry.get("outbox.events.failed")
+                .tag("type", DomainEventType.PAYMENT_STEP_ADVANCED.name())
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+
+    private OutboxEventProcessor processor(EventPublisher eventPublisher, int lanes) {
+        return processor(eventPublisher, lanes, new InJvmOutboxNotifier());
+    }
+
+    private OutboxEventProcessor processor(EventPublisher eventPublisher, int lanes, OutboxNotifier notifier) {
+        return processor(eventPublisher, 100, lanes, notifier);
+    }
+
+    private OutboxEventProcessor processor(EventPublisher eventPublisher, int batchSize, int lanes, OutboxNotifier notifier) {
+        OutboxRetryPolicy retryPolicy = new OutboxRetryPolicy(3, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        OutboxDrainPolicy drainPolicy = OutboxDrainPolicy.fixedBatchSize(batchSize, Duration.ofMillis(50), Duration.ofSeconds(1));
+        return new OutboxEventProcessor(outboxEventRepository, eventPublisher, outboxEventSerializer, notifier,
+                outboxDeadLetterService, new OutboxMetrics(meterRegistry, outboxEventRepository), dispatchLog, retryPolicy,
+                drainPolicy, lanes, "test-node", 30000);
+    }
+
+    private OutboxEvent outboxEvent(String aggregateId, String name) {
+        OutboxEvent outboxEvent = new OutboxEvent(name, DomainEventType.PAYMENT_STEP_ADVANCED, aggregateId, name, Instant.now());
+        outboxEvent.setId(idSequence.incrementAndGet());
+        return outboxEvent;
+    }
+
+    private static class TestEvent extends DomainEvent<DomainEventBody> {
+        private final String name;
+
+        TestEvent(String name) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        @Override
+        public String getAggregateId() {
+            return name.substring(0, 1);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class OutboxEventRepositoryTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Test
+    void should_give_concurrent_owners_disjoint_claims() {
+        saveEvents("a", "b", "c", "d");
+        Instant now = Instant.now();
+        Instant leaseUntil = now.plusSeconds(30);
+
+        StepVerifier.create(outboxEventRepository.claimEvents("node-1", 0, now, leaseUntil, 2))
+                .expectNext(2)
+                .verifyComplete();
+        StepVerifier.create(outboxEventRepository.claimEvents("node-2", 0, now, leaseUntil, 10))
+                .expectNext(2)
+                .verifyComplete();
+
+        List<String> firstClaim = claimedAggregates("node-1");
+        List<String> secondClaim = claimedAggregates("node-2");
+        assertThat(firstClaim).containsExactly("a", "b");
+        assertThat(secondClaim).containsExactly("c", "d");
+    }
+
+    @Test
+    void should_not_claim_events_behind_an_earlier_event_leased_elsewhere() {
+        saveEvents("a", "a", "b");
+        Instant now = Instant.now();
+        Instant leaseUntil = now.plusSeconds(30);
+
+        outboxEventRepository.claimEvents("node-1", 0, now, leaseUntil, 1).block();
+        outboxEventRepository.claimEvents("node-2", 0, now, leaseUntil, 10).block();
+
+        assertThat(claimedAggregates("node-1")).containsExactly("a");
+        assertThat(claimedAggregates("node-2")).containsExactly("b");
+    }
+
+    @Test
+    void should_only_let_the_owner_mark_an_event_as_processed() {
+        saveEvents("a");
+        Instant now = Instant.now();
+        outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), 10).block();
+        OutboxEvent claimed = outboxEventRepository.findClaimedEvents("node-1").blockFirst();
+        assertThat(claimed).isNotNull();
+
+        StepVerifier.create(outboxEventRepository.markAsProcessed(claimed.getId(), "node-2", now))
+                .expectNext(0)
+                .verifyComplete();
+        StepVerifier.create(outboxEventRepository.markAsProcessed(claimed.getId(), "node-1", now))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_make_expired_leases_claimable_again() {
+        saveEvents("a", "b");
+        Instant past = Instant.now().minus(Duration.ofMinutes(5));
+        outboxEventRepository.claimEvents("node-1", 0, past, past.plusSeconds(30), 10).block();
+
+        StepVerifier.create(outboxEventRepository.releaseExpiredLeases(Instant.now()))
+                .expectNext(2)
+                .verifyComplete();
+        StepVerifier.create(outboxEventRepository.claimEvents("node-2", 0, Instant.now(), Instant.now().plusSeconds(30), 10))
+                .expectNext(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_insert_a_batch_of_events_in_one_statement() {
+        List<OutboxEvent> batch = List.of(outboxEvent("a"), outboxEvent("a"), outboxEvent("b"));
+
+        StepVerifier.create(outboxEventRepository.insertAll(batch))
+                .expectNext(3)
+                .verifyComplete();
+
+        Instant now = Instant.now();
+        outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), 10).block();
+        assertThat(outboxEventRepository.findClaimedEvents("node-1").map(OutboxEvent::getEventId).collectList().block())
+                .containsExactlyElementsOf(batch.stream().map(OutboxEvent::getEventId).toList());
+    }
+
+    @Test
+    void should_mark_a_chunk_of_owned_events_as_processed_in_one_statement() {
+        saveEvents("a", "b", "c");
+        Instant now = Instant.now();
+        outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), 2).block();
+        outboxEventRepository.claimEvents("node-2", 0, now, now.plusSeconds(30), 10).block();
+        List<Long> ids = outboxEventRepository.findAll().map(OutboxEvent::getId).collectList().block();
+
+        StepVerifier.create(outboxEventRepository.markAllAsProcessed(ids, "node-1", now))
+                .expectNext(2)
+                .verifyComplete();
+        assertThat(claimedAggregates("node-1")).isEmpty();
+        assertThat(claimedAggregates("node-2")).containsExactly("c");
+    }
+
+    @Test
+    void should_only_claim_events_after_the_cursor() {
+        saveEvents("a", "b", "c");
+        List<Long> ids = outboxEventRepository.findAll().map(OutboxEvent::getId).sort().collectList().block();
+        Instant now = Instant.now();
+
+        StepVerifier.create(outboxEventRepository.claimEvents("node-1", ids.get(0), now, now.plusSeconds(30), 10))
+                .expectNext(2)
+                .verifyComplete();
+        assertThat(claimedAggregates("node-1")).containsExactly("b", "c");
+    }
+
+    @Test
+    void should_not_claim_events_behind_an_earlier_event_pending_before_the_cursor() {
+        saveEvents("a", "a", "b");
+        List<Long> ids = outboxEventRepository.findAll().map(OutboxEvent::getId).sort().collectList().block();
+        Instant now = Instant.now();
+
+        outboxEventRepository.claimEvents("node-1", ids.get(0), now, now.plusSeconds(30), 10).block();
+
+        assertThat(claimedAggregates("node-1")).containsExactly("b");
+    }
+
+    @Test
+    void should_store_binary_payloads() {
+        OutboxEvent binaryEvent = outboxEvent("a");
+        binaryEvent.setEventData(null);
+        binaryEvent.setEventPayload(new byte[] {1, 2, 3});
+        binaryEvent.setCodec("smile");
+
+        outboxEventRepository.insertAll(List.of(binaryEvent, outboxEvent("b"))).block();
+
+        OutboxEvent stored = outboxEventRepository.findAll()
+                .filter(outboxEvent -> outboxEvent.getAggregateId().equals("a"))
+                .blockFirst();
+        assertThat(stored.getCodec()).isEqualTo("smile");
+        assertThat(stored.getEventData()).isNull();
+        assertThat(stored.getEventPayload()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void should_not_claim_events_backing_off_or_queued_behind_them() {
+        saveEvents("a", "a", "b");
+        Instant now = Instant.now();
+        outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), 1).block();
+        OutboxEvent failed = outboxEventRepository.findClaimedEvents("node-1").blockFirst();
+
+        StepVerifier.create(outboxEventRepository.recordFailure(failed.getId(), "node-1", "boom", now.plusSeconds(60)))
+                .expectNext(1)
+                .verifyComplete();
+        outboxEventRepository.releaseClaims("node-1").block();
+        outboxEventRepository.claimEvents("node-2", 0, now, now.plusSeconds(30), 10).block();
+
+        assertThat(claimedAggregates("node-2")).containsExactly("b");
+        OutboxEvent backingOff = outboxEventRepository.findById(failed.getId()).block();
+        assertThat(backingOff.getAttempts()).isEqualTo(1);
+        assertThat(backingOff.getLastError()).isEqualTo("boom");
+    }
+
+    @Test
+    void should_count_the_backlog_and_find_its_oldest_event() {
+        saveEvents("a", "b", "c");
+        List<Long> ids = outboxEventRepository.findAll().map(OutboxEvent::getId).sort().collectList().block();
+        outboxEventRepository.claimEvents("node-1", 0, Instant.now(), Instant.now().plusSeconds(30), 1).block();
+        outboxEventRepository.markAsProcessed(ids.get(0), "node-1", Instant.now()).block();
+
+        StepVerifier.create(outboxEventRepository.countUnprocessed())
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(outboxEventRepository.findOldestUnprocessed().map(OutboxEvent::getId))
+                .expectNext(ids.get(1))
+                .verifyComplete();
+    }
+
+    @Test
+    void should_only_claim_events_that_occurred_before_the_cutoff() {
+        Instant now = Instant.now();
+        outboxEventRepository.save(new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED,
+                "settled", "{}", now.minusSeconds(10))).block();
+        saveEvents("recent");
+
+        StepVerifier.create(outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), now.minusSeconds(5), 10))
+                .expectNext(1)
+                .verifyComplete();
+        assertThat(claimedAggregates("node-1")).containsExactly("settled");
+    }
+
+    @Test
+    void should_mark_events_dispatched_in_process_as_processed_by_event_id() {
+        OutboxEvent dispatched = outboxEventRepository.save(outboxEvent("a")).block();
+        saveEvents("b");
+        Instant now = Instant.now();
+
+        StepVerifier.create(outboxEventRepository.markAllAsDispatched(List.of(dispatched.getEventId()), now))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(outboxEventRepository.markAllAsDispatched(List.of(dispatched.getEventId()), now))
+                .expectNext(0)
+                .verifyComplete();
+        outboxEventRepository.claimEvents("node-1", 0, now, now.plusSeconds(30), 10).block();
+        assertThat(claimedAggregates("node-1")).containsExactly("b");
+    }
+
+    private void saveEvents(String... aggregateIds) {
+        for (String aggregateId : aggregateIds) {
+            outboxEventRepository.save(outboxEvent(aggregateId)).block();
+        }
+    }
+
+    private OutboxEvent outboxEvent(String aggregateId) {
+        return new OutboxEvent(
+                UUID.randomUUID().toString(),
+                DomainEventType.PAYMENT_STEP_ADVANCED,
+                aggregateId,
+                "{}",
+                Instant.now()
+        );
+    }
+
+    private List<String> claimedAggregates(String owner) {
+        return outboxEventRepository.findClaimedEvents(owner)
+                .map(OutboxEvent::getAggregateId)
+                .collectList()
+                .block();
+    }
+}
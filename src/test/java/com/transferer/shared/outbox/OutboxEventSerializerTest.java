@@ -0,0 +1,144 @@
+package com.transferer.shared.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transferer.account.domain.AccountId;
+import com.transferer.payment.domain.PaymentId;
+import com.transferer.payment.domain.PaymentStep;
+import com.transferer.payment.domain.events.PaymentStepAdvancedEvent;
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import com.transferer.shared.outbox.codec.JacksonEventCodec;
+import com.transferer.transaction.domain.TransactionId;
+import com.transferer.transaction.domain.events.TransactionCompletedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxEventSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void should_keep_json_payloads_in_event_data() throws Exception {
+        OutboxEvent outboxEvent = serializer("json", -1).serialize(new SampleEvent("hello"));
+
+        assertThat(outboxEvent.getCodec()).isEqualTo("json");
+        assertThat(outboxEvent.getEventData()).contains("hello");
+        assertThat(outboxEvent.getEventPayload()).isNull();
+        assertThat(serializer("json", -1).deserialize(outboxEvent, SampleBody.class).getMessage()).isEqualTo("hello");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"smile", "cbor"})
+    void should_store_binary_payloads_in_event_payload(String format) throws Exception {
+        OutboxEvent outboxEvent = serializer(format, -1).serialize(new SampleEvent("hello"));
+
+        assertThat(outboxEvent.getCodec()).isEqualTo(format);
+        assertThat(outboxEvent.getEventData()).isNull();
+        assertThat(outboxEvent.getEventPayload()).isNotEmpty();
+        assertThat(serializer(format, -1).deserialize(outboxEvent, SampleBody.class).getMessage()).isEqualTo("hello");
+    }
+
+    @Test
+    void should_compress_payloads_above_the_threshold() throws Exception {
+        String message = "transfer ".repeat(200);
+        OutboxEvent small = serializer("smile", 512).serialize(new SampleEvent("hello"));
+        OutboxEvent large = serializer("smile", 512).serialize(new SampleEvent(message));
+
+        assertThat(small.getCodec()).isEqualTo("smile");
+        assertThat(large.getCodec()).isEqualTo("smile+lz4");
+        assertThat(large.getEventPayload().length).isLessThan(message.length());
+        assertThat(serializer("smile", 512).deserialize(large, SampleBody.class).getMessage()).isEqualTo(message);
+    }
+
+    @Test
+    void should_decode_rows_written_with_a_different_format() throws Exception {
+        OutboxEvent jsonRow = serializer("json", -1).serialize(new SampleEvent("hello"));
+        OutboxEvent compressedRow = serializer("json", 0).serialize(new SampleEvent("hello"));
+
+        OutboxEventSerializer cborSerializer = serializer("cbor", -1);
+        assertThat(cborSerializer.deserialize(jsonRow, SampleBody.class).getMessage()).isEqualTo("hello");
+        assertThat(compressedRow.getCodec()).isEqualTo("json+lz4");
+        assertThat(cborSerializer.deserialize(compressedRow, SampleBody.class).getMessage()).isEqualTo("hello");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"json", "smile", "cbor"})
+    void should_rebuild_domain_events_from_the_registry(String format) throws Exception {
+        PaymentId paymentId = PaymentId.generate();
+        PaymentStepAdvancedEvent stepAdvanced = new PaymentStepAdvancedEvent(
+                paymentId, Optional.of(PaymentStep.SENDER_DEBITED), PaymentStep.RECIPIENT_CREDITED);
+        TransactionCompletedEvent transactionCompleted = new TransactionCompletedEvent(
+                TransactionId.generate(), AccountId.generate(), AccountId.generate(),
+                new BigDecimal("12.50"), LocalDateTime.now());
+
+        DomainEvent<?> rebuiltStep = serializer(format, -1).deserialize(serializer(format, -1).serialize(stepAdvanced));
+        DomainEvent<?> rebuiltTransaction = serializer(format, -1).deserialize(serializer(format, -1).serialize(transactionCompleted));
+
+        assertThat(rebuiltStep).isInstanceOf(PaymentStepAdvancedEvent.class);
+        assertThat(rebuiltStep.getEventId()).isEqualTo(stepAdvanced.getEventId());
+        assertThat(rebuiltStep.getOccurredAt()).isEqualTo(stepAdvanced.getOccurredAt());
+        assertThat(rebuiltStep.getAggregateId()).isEqualTo(paymentId.toString());
+        assertThat(((PaymentStepAdvancedEvent) rebuiltStep).getBody().getPreviousStep()).contains(PaymentStep.SENDER_DEBITED);
+        assertThat(((PaymentStepAdvancedEvent) rebuiltStep).getBody().getCurrentStep()).isEqualTo(PaymentStep.RECIPIENT_CREDITED);
+        assertThat(rebuiltTransaction).isInstanceOf(TransactionCompletedEvent.class);
+        assertThat(((TransactionCompletedEvent) rebuiltTransaction).getBody().getAmount()).isEqualByComparingTo("12.50");
+        assertThat(((TransactionCompletedEvent) rebuiltTransaction).getBody().getCompletedAt())
+                .isEqualTo(transactionCompleted.getBody().getCompletedAt());
+    }
+
+    @Test
+    void should_not_write_class_names_into_the_payload() {
+        OutboxEvent outboxEvent = serializer("json", -1).serialize(new PaymentStepAdvancedEvent(
+                PaymentId.generate(), Optional.empty(), PaymentStep.SENDER_DEBITED));
+
+        assertThat(outboxEvent.getEventData()).doesNotContain("@class").doesNotContain("com.transferer");
+    }
+
+    private OutboxEventSerializer serializer(String format, int compressionThreshold) {
+        return new OutboxEventSerializer(
+                EventTypeRegistry.defaultRegistry(),
+                List.of(JacksonEventCodec.json(objectMapper), JacksonEventCodec.smile(objectMapper), JacksonEventCodec.cbor(objectMapper)),
+                format,
+                compressionThreshold
+        );
+    }
+
+    static class SampleBody extends DomainEventBody {
+        private String message;
+
+        SampleBody() {
+        }
+
+        SampleBody(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    private static class SampleEvent extends DomainEvent<SampleBody> {
+        SampleEvent(String message) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new SampleBody(message));
+        }
+
+        @Override
+        public String getAggregateId() {
+            return "sample";
+        }
+    }
+}
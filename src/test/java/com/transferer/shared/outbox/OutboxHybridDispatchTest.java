@@ -0,0 +1,107 @@
+package com.transferer.shared.outbox;
+
+import com.transferer.account.application.AccountService;
+import com.transferer.account.domain.events.AccountOpenedEvent;
+import com.transferer.shared.events.EventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@DataR2dbcTest
+@Import({
+    com.transferer.account.application.AccountService.class,
+    com.transferer.account.infrastructure.R2dbcAccountRepository.class,
+    com.transferer.shared.outbox.OutboxEventBus.class,
+    com.transferer.shared.outbox.OutboxDispatchLog.class,
+    com.transferer.shared.outbox.OutboxEventPublisher.class,
+    com.transferer.shared.outbox.OutboxNotifierConfiguration.class,
+    com.transferer.shared.outbox.OutboxCodecConfiguration.class,
+    com.transferer.shared.outbox.OutboxConsumers.class,
+    com.transferer.shared.outbox.OutboxMetrics.class,
+    com.transferer.shared.events.EventBusConfiguration.class,
+    io.micrometer.core.instrument.simple.SimpleMeterRegistry.class,
+    com.transferer.TestJacksonConfiguration.class
+})
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "outbox.processor.mode=hybrid",
+    "outbox.processor.grace-window=100",
+    "outbox.processor.acknowledge-interval=50"
+})
+class OutboxHybridDispatchTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private OutboxEventBus outboxEventBus;
+
+    @Autowired
+    private OutboxDispatchLog dispatchLog;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxEventSerializer outboxEventSerializer;
+
+    @Autowired
+    private OutboxNotifier outboxNotifier;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM accounts").then().block();
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Test
+    void should_never_republish_events_a_repository_published_and_the_bus_delivered_after_commit() {
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        outboxEventBus.subscribe(AccountOpenedEvent.class, event -> delivered.add(event.getEventId()));
+        EventPublisher republisher = mock(EventPublisher.class);
+        OutboxEventProcessor processor = new OutboxEventProcessor(outboxEventRepository, republisher, outboxEventSerializer,
+                outboxNotifier, mock(OutboxDeadLetterService.class),
+                new OutboxMetrics(new SimpleMeterRegistry(), outboxEventRepository), dispatchLog,
+                new OutboxRetryPolicy(3, Duration.ofSeconds(1), Duration.ofMinutes(1)),
+                OutboxDrainPolicy.fixedBatchSize(100, Duration.ofMillis(50), Duration.ofSeconds(1)),
+                1, "test-node", 30000);
+
+        accountService.openAccount("John Doe", new BigDecimal("100.00")).block();
+        assertThat(delivered).hasSize(1);
+        // Past the grace window, so only the acknowledgement keeps the row from being claimed
+        Mono.delay(Duration.ofMillis(200)).block();
+
+        StepVerifier.create(processor.dispatchBatch())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verifyNoInteractions(republisher);
+        assertThat(outboxEventRepository.findAll().collectList().block())
+                .singleElement()
+                .satisfies(outboxEvent -> {
+                    assertThat(outboxEvent.getEventId()).isEqualTo(delivered.get(0));
+                    assertThat(outboxEvent.getProcessedAt()).isNotNull();
+                });
+    }
+}
@@ -0,0 +1,129 @@
+package com.transferer.shared.outbox;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.PostgreSQLR2DBCDatabaseContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxPartitionManagerIntegrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private DatabaseClient databaseClient;
+    private OutboxPartitionManager partitionManager;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(PostgreSQLR2DBCDatabaseContainer.getOptions(postgres));
+        databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("DROP SCHEMA public CASCADE").then()
+                .then(databaseClient.sql("CREATE SCHEMA public").then())
+                .block();
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).populate(connectionFactory).block();
+        partitionManager = new OutboxPartitionManager(databaseClient, 3, 100);
+        now = Instant.now();
+    }
+
+    @Test
+    void should_drop_expired_partitions_once_every_event_in_them_is_processed() {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        partitionManager.prepare(now.minus(Duration.ofDays(10))).block();
+        insert(UUID.randomUUID().toString(), today.minusDays(10), true).block();
+        insert(UUID.randomUUID().toString(), today.minusDays(9), false).block();
+
+        StepVerifier.create(partitionManager.purge(now.minus(Duration.ofDays(7)), Long.MAX_VALUE))
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertThat(exists(OutboxPartitionManager.partitionName(today.minusDays(10)))).isFalse();
+        assertThat(exists(OutboxPartitionManager.partitionName(today.minusDays(9)))).isTrue();
+        assertThat(exists(OutboxPartitionManager.partitionName(today.minusDays(7)))).isTrue();
+    }
+
+    @Test
+    void should_keep_expired_partitions_with_events_some_consumer_has_not_read() {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        partitionManager.prepare(now.minus(Duration.ofDays(10))).block();
+        insert(UUID.randomUUID().toString(), today.minusDays(10), true).block();
+
+        StepVerifier.create(partitionManager.purge(now.minus(Duration.ofDays(7)), 0))
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertThat(exists(OutboxPartitionManager.partitionName(today.minusDays(10)))).isTrue();
+    }
+
+    @Test
+    void should_reject_a_duplicate_event_id_within_a_partition() {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        partitionManager.prepare(now).block();
+        String eventId = UUID.randomUUID().toString();
+        insert(eventId, today, false).block();
+
+        StepVerifier.create(insert(eventId, today, false))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    void should_fall_back_to_chunked_deletes_when_the_table_is_not_partitioned() {
+        databaseClient.sql("DROP TABLE outbox_events").then()
+                .then(databaseClient.sql("CREATE TABLE outbox_events (" +
+                        "id BIGSERIAL PRIMARY KEY, event_id VARCHAR(255) UNIQUE NOT NULL, " +
+                        "event_type VARCHAR(255) NOT NULL, aggregate_id VARCHAR(255) NOT NULL, " +
+                        "occurred_at TIMESTAMP NOT NULL, processed_at TIMESTAMP NULL, " +
+                        "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)").then())
+                .block();
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        insert(UUID.randomUUID().toString(), today.minusDays(10), true).block();
+        insert(UUID.randomUUID().toString(), today.minusDays(10), false).block();
+
+        partitionManager.prepare(now).block();
+        StepVerifier.create(partitionManager.purge(now.minus(Duration.ofDays(7)), Long.MAX_VALUE))
+                .expectNext(1L)
+                .verifyComplete();
+
+        assertThat(databaseClient.sql("SELECT COUNT(*) AS total FROM outbox_events")
+                .map(row -> row.get("total", Long.class)).one().block()).isEqualTo(1);
+    }
+
+    private Mono<Void> insert(String eventId, LocalDate day, boolean processed) {
+        LocalDateTime createdAt = day.atTime(12, 0);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO outbox_events " +
+                        "(event_id, event_type, aggregate_id, occurred_at, processed_at, created_at) " +
+                        "VALUES (:eventId, 'PAYMENT_STEP_ADVANCED', 'a', :createdAt, :processedAt, :createdAt)")
+                .bind("eventId", eventId)
+                .bind("createdAt", createdAt);
+        spec = processed ? spec.bind("processedAt", createdAt) : spec.bindNull("processedAt", LocalDateTime.class);
+        return spec.then();
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(databaseClient.sql("SELECT to_regclass(CAST(:table AS TEXT)) IS NOT NULL AS present")
+                .bind("table", table)
+                .map(row -> row.get("present", Boolean.class))
+                .one()
+                .block());
+    }
+}
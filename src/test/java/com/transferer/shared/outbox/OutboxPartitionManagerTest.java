@@ -0,0 +1,23 @@
+package com.transferer.shared.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxPartitionManagerTest {
+
+    @Test
+    void should_round_trip_daily_partition_names() {
+        LocalDate day = LocalDate.of(2024, 2, 29);
+
+        assertThat(OutboxPartitionManager.partitionName(day)).isEqualTo("outbox_events_p20240229");
+        assertThat(OutboxPartitionManager.partitionDay("outbox_events_p20240229")).contains(day);
+    }
+
+    @Test
+    void should_not_treat_the_default_partition_as_a_daily_one() {
+        assertThat(OutboxPartitionManager.partitionDay("outbox_events_default")).isEmpty();
+    }
+}
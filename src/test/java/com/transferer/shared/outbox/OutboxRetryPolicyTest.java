@@ -0,0 +1,27 @@
+package com.transferer.shared.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxRetryPolicyTest {
+
+    private final OutboxRetryPolicy retryPolicy = new OutboxRetryPolicy(5, Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+    @Test
+    void should_double_the_backoff_up_to_the_maximum() {
+        assertThat(retryPolicy.backoffAfter(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(retryPolicy.backoffAfter(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(retryPolicy.backoffAfter(4)).isEqualTo(Duration.ofSeconds(8));
+        assertThat(retryPolicy.backoffAfter(5)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(retryPolicy.backoffAfter(100)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void should_be_exhausted_once_max_attempts_are_reached() {
+        assertThat(retryPolicy.isExhausted(4)).isFalse();
+        assertThat(retryPolicy.isExhausted(5)).isTrue();
+    }
+}
@@ -0,0 +1,107 @@
+package com.transferer.shared.outbox.archive;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.outbox.ChunkedOutboxRetention;
+import com.transferer.shared.outbox.OutboxEvent;
+import com.transferer.shared.outbox.OutboxEventRepository;
+import com.transferer.shared.outbox.OutboxRetention;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class ArchivingOutboxRetentionTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Test
+    void should_archive_every_expired_event_before_the_delegate_purges_it() {
+        for (int i = 0; i < 9; i++) {
+            OutboxEvent processed = new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED,
+                    "a", "{}", Instant.now());
+            processed.setProcessedAt(Instant.now());
+            outboxEventRepository.save(processed).block();
+        }
+        OutboxArchive outboxArchive = new OutboxArchive(directory, 1024);
+        ArchivingOutboxRetention retention = new ArchivingOutboxRetention(
+                new OutboxArchiver(outboxEventRepository, outboxArchive, 2),
+                new ChunkedOutboxRetention(databaseClient, "outbox_events", 100)
+        );
+
+        StepVerifier.create(retention.purge(Instant.now().plusSeconds(60), Long.MAX_VALUE))
+                .expectNext(9L)
+                .verifyComplete();
+
+        assertThat(outboxEventRepository.count().block()).isZero();
+        assertThat(outboxArchive.scan(Instant.EPOCH, Instant.now().plusSeconds(60)).count().block()).isEqualTo(9);
+    }
+
+    @Test
+    void should_not_purge_events_processed_after_the_archiver_scanned_past_them() {
+        OutboxEvent pending = outboxEventRepository.save(new OutboxEvent(UUID.randomUUID().toString(),
+                DomainEventType.PAYMENT_STEP_ADVANCED, "a", "{}", Instant.now())).block();
+        OutboxEvent processed = new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED,
+                "b", "{}", Instant.now());
+        processed.setProcessedAt(Instant.now());
+        outboxEventRepository.save(processed).block();
+        OutboxArchive outboxArchive = new OutboxArchive(directory, 1024);
+        ChunkedOutboxRetention chunkedRetention = new ChunkedOutboxRetention(databaseClient, "outbox_events", 100);
+        // The pending event gets processed once archiving is done, right before the purge runs
+        OutboxRetention delegate = new OutboxRetention() {
+            @Override
+            public Mono<Void> prepare(Instant now) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<Long> purge(Instant cutoff, long consumedUpToId) {
+                return databaseClient.sql("UPDATE outbox_events SET processed_at = :now WHERE id = :id")
+                        .bind("now", Instant.now())
+                        .bind("id", pending.getId())
+                        .then()
+                        .then(chunkedRetention.purge(cutoff, consumedUpToId));
+            }
+        };
+        ArchivingOutboxRetention retention = new ArchivingOutboxRetention(
+                new OutboxArchiver(outboxEventRepository, outboxArchive, 2), delegate);
+
+        StepVerifier.create(retention.purge(Instant.now().plusSeconds(60), Long.MAX_VALUE))
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertThat(outboxEventRepository.count().block()).isEqualTo(2);
+
+        StepVerifier.create(retention.purge(Instant.now().plusSeconds(60), Long.MAX_VALUE))
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(outboxArchive.scan(Instant.EPOCH, Instant.now().plusSeconds(60)).count().block()).isEqualTo(2);
+    }
+}
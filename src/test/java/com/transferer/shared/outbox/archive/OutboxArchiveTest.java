@@ -0,0 +1,107 @@
+package com.transferer.shared.outbox.archive;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.outbox.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxArchiveTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_scan_only_events_in_the_time_range_across_segments() throws Exception {
+        OutboxArchive archive = new OutboxArchive(directory, 256);
+        archive.write(outboxEvents(1, 50));
+        archive.write(outboxEvents(51, 100));
+
+        List<Long> ids = archive.scan(START.plusSeconds(40), START.plusSeconds(60))
+                .map(OutboxEvent::getId)
+                .collectList()
+                .block();
+
+        assertThat(ids).containsExactlyElementsOf(range(40, 59));
+        assertThat(archive.latestSegmentIds()).containsExactlyElementsOf(range(51, 100));
+    }
+
+    @Test
+    void should_round_trip_textual_and_binary_payloads() throws Exception {
+        OutboxArchive archive = new OutboxArchive(directory, 1024);
+        OutboxEvent binary = outboxEvent(2);
+        binary.setEventData(null);
+        binary.setEventPayload(new byte[] {1, 2, 3});
+        binary.setCodec("smile+lz4");
+        archive.write(List.of(outboxEvent(1), binary));
+
+        List<OutboxEvent> archived = archive.scan(START, START.plusSeconds(10)).collectList().block();
+
+        assertThat(archived).hasSize(2);
+        assertThat(archived.get(0).getEventData()).isEqualTo("{\"n\":1}");
+        assertThat(archived.get(0).getEventType()).isEqualTo(DomainEventType.PAYMENT_STEP_ADVANCED);
+        assertThat(archived.get(0).getProcessedAt()).isEqualTo(START.plusSeconds(3600));
+        assertThat(archived.get(1).getEventPayload()).containsExactly(1, 2, 3);
+        assertThat(archived.get(1).getCodec()).isEqualTo("smile+lz4");
+    }
+
+    @Test
+    void should_detect_a_corrupted_block() throws Exception {
+        OutboxArchive archive = new OutboxArchive(directory, 1024);
+        Path segment = archive.write(outboxEvents(1, 10));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(20);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        StepVerifier.create(archive.scan(START, START.plusSeconds(100)))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    void should_name_segments_by_sequence_and_id_range_without_leaving_pending_files() throws Exception {
+        OutboxArchive archive = new OutboxArchive(directory, 1024);
+        archive.write(outboxEvents(1, 10));
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactly("segment-0000000001-00000000000000000001-00000000000000000010.seg");
+        }
+    }
+
+    private static List<OutboxEvent> outboxEvents(long firstId, long lastId) {
+        List<OutboxEvent> outboxEvents = new ArrayList<>();
+        for (long id = firstId; id <= lastId; id++) {
+            outboxEvents.add(outboxEvent(id));
+        }
+        return outboxEvents;
+    }
+
+    private static OutboxEvent outboxEvent(long id) {
+        OutboxEvent outboxEvent = new OutboxEvent("event-" + id, DomainEventType.PAYMENT_STEP_ADVANCED, "a",
+                "{\"n\":" + id + "}", START.plusSeconds(id));
+        outboxEvent.setId(id);
+        outboxEvent.setProcessedAt(START.plusSeconds(3600));
+        return outboxEvent;
+    }
+
+    private static List<Long> range(long first, long last) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = first; id <= last; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
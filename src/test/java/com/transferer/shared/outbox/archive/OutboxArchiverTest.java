@@ -0,0 +1,84 @@
+package com.transferer.shared.outbox.archive;
+
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.outbox.OutboxEvent;
+import com.transferer.shared.outbox.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import(com.transferer.TestJacksonConfiguration.class)
+@ActiveProfiles("test")
+class OutboxArchiverTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        databaseClient.sql("DELETE FROM outbox_events").then().block();
+    }
+
+    @Test
+    void should_archive_processed_events_in_segments_and_delete_them() {
+        for (int i = 0; i < 5; i++) {
+            saveEvent(true);
+        }
+        OutboxEvent pending = saveEvent(false);
+        OutboxArchive outboxArchive = new OutboxArchive(directory, 1024);
+        OutboxArchiver outboxArchiver = new OutboxArchiver(outboxEventRepository, outboxArchive, 2);
+
+        StepVerifier.create(outboxArchiver.archive(Instant.now().plusSeconds(60), Long.MAX_VALUE))
+                .expectNext(5L)
+                .verifyComplete();
+
+        assertThat(outboxEventRepository.findAll().map(OutboxEvent::getId).collectList().block())
+                .containsExactly(pending.getId());
+        assertThat(outboxArchive.scan(Instant.EPOCH, Instant.now().plusSeconds(60)).count().block()).isEqualTo(5);
+        assertThat(outboxArchive.latestSegmentIds()).hasSize(1);
+    }
+
+    @Test
+    void should_delete_rows_of_an_archived_segment_left_behind_without_archiving_them_again() throws Exception {
+        OutboxEvent archivedButNotDeleted = saveEvent(true);
+        OutboxArchive outboxArchive = new OutboxArchive(directory, 1024);
+        outboxArchive.write(List.of(archivedButNotDeleted));
+        OutboxArchiver outboxArchiver = new OutboxArchiver(outboxEventRepository, outboxArchive, 10);
+
+        StepVerifier.create(outboxArchiver.archive(Instant.now().plusSeconds(60), Long.MAX_VALUE))
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertThat(outboxEventRepository.count().block()).isZero();
+        assertThat(outboxArchive.scan(Instant.EPOCH, Instant.now().plusSeconds(60)).count().block()).isEqualTo(1);
+    }
+
+    private OutboxEvent saveEvent(boolean processed) {
+        OutboxEvent outboxEvent = new OutboxEvent(UUID.randomUUID().toString(), DomainEventType.PAYMENT_STEP_ADVANCED,
+                "a", "{}", Instant.now());
+        if (processed) {
+            outboxEvent.setProcessedAt(Instant.now());
+        }
+        return outboxEventRepository.save(outboxEvent).block();
+    }
+}
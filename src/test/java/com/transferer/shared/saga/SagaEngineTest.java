@@ -0,0 +1,184 @@
+package com.transferer.shared.saga;
+
+import com.transferer.shared.domain.events.DomainEvent;
+import com.transferer.shared.domain.events.DomainEventType;
+import com.transferer.shared.domain.events.body.DomainEventBody;
+import com.transferer.shared.events.EventBus;
+import com.transferer.shared.events.HandlerOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SagaEngineTest {
+
+    private MeterRegistry meterRegistry;
+    private List<String> calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        calls = new ArrayList<>();
+    }
+
+    @Test
+    void should_run_the_step_an_instance_rests_at_and_time_it() {
+        SagaEngine<Step, Order> engine = new SagaEngine<>(definition(), Set.of(), meterRegistry);
+
+        StepVerifier.create(engine.advance(new Order(Step.RESERVE)))
+                .assertNext(order -> assertThat(order.step).isEqualTo(Step.CHARGE))
+                .verifyComplete();
+
+        assertThat(calls).containsExactly("reserve");
+        assertThat(stepTimer(Step.RESERVE, "completed")).isEqualTo(1);
+    }
+
+    @Test
+    void should_hand_a_failed_step_to_its_failure_handler() {
+        SagaEngine<Step, Order> engine = new SagaEngine<>(definition(), Set.of(), meterRegistry);
+
+        StepVerifier.create(engine.advance(new Order(Step.CHARGE)))
+                .assertNext(order -> assertThat(order.step).isEqualTo(Step.FAILED))
+                .verifyComplete();
+
+        assertThat(calls).containsExactly("charge", "fail: declined");
+        assertThat(stepTimer(Step.CHARGE, "failed")).isEqualTo(1);
+    }
+
+    @Test
+    void should_only_run_the_fused_action_where_fusion_is_enabled() {
+        SagaEngine<Step, Order> unfused = new SagaEngine<>(definition(), Set.of(), meterRegistry);
+        SagaEngine<Step, Order> fused = new SagaEngine<>(definition(), Set.of(Step.RESERVE), meterRegistry);
+
+        unfused.advance(new Order(Step.RESERVE)).block();
+        StepVerifier.create(fused.advance(new Order(Step.RESERVE)))
+                .assertNext(order -> assertThat(order.step).isEqualTo(Step.SHIP))
+                .verifyComplete();
+
+        assertThat(calls).containsExactly("reserve", "reserve and charge");
+        assertThat(stepTimer(Step.RESERVE, "fused")).isEqualTo(1);
+    }
+
+    @Test
+    void should_let_a_timed_out_step_propagate_instead_of_failing_the_instance() {
+        SagaDefinition<Step, Order> definition = SagaDefinition.<Step, Order>builder("order", Step.class, order -> order.step)
+                .defaultTimeout(Duration.ofMillis(50))
+                .step(Step.RESERVE, order -> Mono.<Order>never(), (order, error) -> moveTo(order, Step.FAILED, "fail"))
+                .build();
+        SagaEngine<Step, Order> engine = new SagaEngine<>(definition, Set.of(), meterRegistry);
+
+        StepVerifier.create(engine.advance(new Order(Step.RESERVE)))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(calls).isEmpty();
+        assertThat(stepTimer(Step.RESERVE, "timed_out")).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_apply_transitions_only_from_the_step_they_start_at() {
+        Order shipping = new Order(Step.SHIP);
+        Order reserving = new Order(Step.RESERVE);
+        SagaDefinition<Step, Order> definition = SagaDefinition.<Step, Order>builder("order", Step.class, order -> order.step)
+                .on(ShippedEvent.class, event -> Mono.just(event.order))
+                .transition(ShippedEvent.class, Step.SHIP, (order, event) -> moveTo(order, Step.DONE, "shipped"))
+                .build();
+        EventBus eventBus = mock(EventBus.class);
+        new SagaEngine<>(definition, Set.of(), meterRegistry).subscribe(eventBus, HandlerOptions.defaults());
+        ArgumentCaptor<Function<ShippedEvent, Mono<Void>>> handler = ArgumentCaptor.forClass(Function.class);
+        verify(eventBus).subscribe(eq(ShippedEvent.class), handler.capture(), any(HandlerOptions.class));
+
+        handler.getValue().apply(new ShippedEvent(shipping)).block();
+        handler.getValue().apply(new ShippedEvent(reserving)).block();
+
+        assertThat(shipping.step).isEqualTo(Step.DONE);
+        assertThat(reserving.step).isEqualTo(Step.RESERVE);
+        assertThat(calls).containsExactly("shipped");
+    }
+
+    @Test
+    void should_refuse_transitions_without_a_way_to_find_their_instance() {
+        SagaDefinition.Builder<Step, Order> builder = SagaDefinition.<Step, Order>builder("order", Step.class, order -> order.step)
+                .transition(ShippedEvent.class, Step.SHIP, (order, event) -> Mono.just(order));
+
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    private SagaDefinition<Step, Order> definition() {
+        return SagaDefinition.<Step, Order>builder("order", Step.class, order -> order.step)
+                .step(Step.RESERVE, order -> moveTo(order, Step.CHARGE, "reserve"),
+                        (order, error) -> moveTo(order, Step.FAILED, "fail: " + error.getMessage()))
+                .fuse(Step.RESERVE, order -> moveTo(order, Step.SHIP, "reserve and charge"))
+                .step(Step.CHARGE, order -> {
+                            calls.add("charge");
+                            return Mono.error(new IllegalStateException("declined"));
+                        },
+                        (order, error) -> moveTo(order, Step.FAILED, "fail: " + error.getMessage()))
+                .build();
+    }
+
+    private Mono<Order> moveTo(Order order, Step step, String call) {
+        return Mono.fromCallable(() -> {
+            calls.add(call);
+            order.step = step;
+            return order;
+        });
+    }
+
+    private double stepTimer(Step step, String outcome) {
+        return meterRegistry.get("saga.step")
+                .tag("saga", "order")
+                .tag("step", step.name())
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    private enum Step {
+        RESERVE,
+        CHARGE,
+        SHIP,
+        DONE,
+        FAILED
+    }
+
+    private static class Order {
+        private Step step;
+
+        Order(Step step) {
+            this.step = step;
+        }
+    }
+
+    private static class ShippedEvent extends DomainEvent<DomainEventBody> {
+        private final Order order;
+
+        ShippedEvent(Order order) {
+            super(DomainEventType.PAYMENT_STEP_ADVANCED, new DomainEventBody());
+            this.order = order;
+        }
+
+        @Override
+        public String getAggregateId() {
+            return "order";
+        }
+    }
+}